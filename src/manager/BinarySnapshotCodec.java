@@ -0,0 +1,364 @@
+package manager;
+
+import task.DeferredText;
+import task.Status;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class BinarySnapshotCodec {
+    static final byte[] MAGIC = {'T', 'T', 'S', 'B'};
+    static final int VERSION = 1;
+    static final int FIXED_VERSION = 2;
+
+    private static final int HEADER_SIZE = MAGIC.length + 1 + 3 * Integer.BYTES;
+    private static final int RECORD_SIZE = 4 * Long.BYTES + 2 * Integer.BYTES + 2;
+    private static final int ID = 0;
+    private static final int EPIC = 8;
+    private static final int START_TIME = 16;
+    private static final int DURATION = 24;
+    private static final int NAME = 32;
+    private static final int DESCRIPTION = 36;
+    private static final int TYPE = 40;
+    private static final int STATUS = 41;
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private BinarySnapshotCodec() {
+    }
+
+    static void write(Snapshot snapshot, OutputStream out) throws IOException {
+        Map<String, Integer> indexes = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (Collection<Row> rows : snapshot.tables()) {
+            for (Row row : rows) {
+                index(row.name(), indexes, strings);
+                index(row.description(), indexes, strings);
+            }
+        }
+        Buffer buffer = new Buffer();
+        out.write(MAGIC);
+        buffer.writeVarint(VERSION);
+        buffer.writeVarint(strings.size());
+        buffer.writeTo(out);
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            buffer.writeVarint(bytes.length);
+            buffer.writeTo(out);
+            out.write(bytes);
+        }
+        buffer.writeVarint(snapshot.size());
+        buffer.writeTo(out);
+        Buffer record = new Buffer();
+        for (Collection<Row> rows : snapshot.tables()) {
+            for (Row row : rows) {
+                record.writeByte(row.type.ordinal());
+                record.writeVarint(row.id);
+                record.writeByte(row.status.ordinal());
+                record.writeVarint(index(row.name(), indexes, strings));
+                record.writeVarint(index(row.description(), indexes, strings));
+                if (row.type == TaskType.SUBTASK) {
+                    record.writeVarint(row.epic);
+                }
+                if (row.type != TaskType.EPIC) {
+                    record.writeVarint((row.startTime << 1) ^ (row.startTime >> 63));
+                    record.writeVarint(row.duration);
+                }
+                buffer.writeVarint(record.size);
+                buffer.writeTo(out);
+                record.writeTo(out);
+            }
+        }
+        List<Long> history = snapshot.getHistory();
+        buffer.writeVarint(history.size());
+        for (long id : history) {
+            buffer.writeVarint(id);
+        }
+        buffer.writeTo(out);
+    }
+
+    static void writeFixed(Snapshot snapshot, OutputStream out) throws IOException {
+        Map<String, Integer> offsets = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int[] heapSize = new int[1];
+        int[] references = new int[2 * snapshot.size()];
+        int reference = 0;
+        for (Collection<Row> rows : snapshot.tables()) {
+            for (Row row : rows) {
+                references[reference++] = offset(row.name(), offsets, strings, heapSize);
+                references[reference++] = offset(row.description(), offsets, strings, heapSize);
+            }
+        }
+        List<Long> history = snapshot.getHistory();
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(MAGIC);
+        data.writeByte(FIXED_VERSION);
+        data.writeInt(snapshot.size());
+        data.writeInt(history.size());
+        data.writeInt(heapSize[0]);
+        reference = 0;
+        for (Collection<Row> rows : snapshot.tables()) {
+            for (Row row : rows) {
+                data.writeLong(row.id);
+                data.writeLong(row.epic);
+                data.writeLong(row.startTime);
+                data.writeLong(row.duration);
+                data.writeInt(references[reference++]);
+                data.writeInt(references[reference++]);
+                data.writeByte(row.type.ordinal());
+                data.writeByte(row.status.ordinal());
+            }
+        }
+        for (long id : history) {
+            data.writeLong(id);
+        }
+        for (byte[] bytes : strings) {
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        }
+        data.flush();
+    }
+
+    static Snapshot read(ByteBuffer buffer) throws IOException {
+        try {
+            long version = readVarint(buffer);
+            if (version == VERSION) {
+                return readStream(buffer);
+            }
+            if (version != FIXED_VERSION) {
+                throw new IOException("unsupported snapshot version " + version);
+            }
+            return readFixed(buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException exception) {
+            throw new IOException("corrupted snapshot", exception);
+        }
+    }
+
+    private static Snapshot readFixed(ByteBuffer buffer) throws IOException {
+        int rowCount = buffer.getInt(MAGIC.length + 1);
+        int historyCount = buffer.getInt(MAGIC.length + 1 + Integer.BYTES);
+        int heapSize = buffer.getInt(MAGIC.length + 1 + 2 * Integer.BYTES);
+        long historyOffset = HEADER_SIZE + (long) rowCount * RECORD_SIZE;
+        long heapOffset = historyOffset + (long) historyCount * Long.BYTES;
+        if (rowCount < 0 || historyCount < 0 || heapSize < 0 || heapOffset + heapSize != buffer.limit()) {
+            throw new IOException("corrupted snapshot");
+        }
+        FixedText text = new FixedText(buffer, rowCount, (int) heapOffset, heapSize);
+        Snapshot snapshot = new Snapshot();
+        for (int record = 0; record < rowCount; record++) {
+            int offset = HEADER_SIZE + record * RECORD_SIZE;
+            reference(buffer.getInt(offset + NAME), heapSize);
+            reference(buffer.getInt(offset + DESCRIPTION), heapSize);
+            snapshot.put(new Row(
+                    buffer.getLong(offset + ID),
+                    TYPES[buffer.get(offset + TYPE)],
+                    STATUSES[buffer.get(offset + STATUS)],
+                    buffer.getLong(offset + EPIC),
+                    buffer.getLong(offset + START_TIME),
+                    buffer.getLong(offset + DURATION),
+                    text,
+                    record
+            ));
+        }
+        Long[] history = new Long[historyCount];
+        for (int i = 0; i < historyCount; i++) {
+            history[i] = buffer.getLong((int) historyOffset + i * Long.BYTES);
+        }
+        snapshot.setHistory(List.of(history));
+        if (buffer.isDirect()) {
+            snapshot.setDetach(text::detach);
+        } else {
+            text.detach();
+        }
+        return snapshot;
+    }
+
+    private static int reference(int reference, int heapSize) throws IOException {
+        if (reference < -1 || reference > heapSize - Integer.BYTES) {
+            throw new IOException("corrupted snapshot");
+        }
+        return reference;
+    }
+
+    private static Snapshot readStream(ByteBuffer buffer) {
+        String[] strings = new String[1 + (int) readVarint(buffer)];
+        for (int i = 1; i < strings.length; i++) {
+            strings[i] = readString(buffer, (int) readVarint(buffer));
+        }
+        Snapshot snapshot = new Snapshot();
+        long count = readVarint(buffer);
+        for (long i = 0; i < count; i++) {
+            int length = (int) readVarint(buffer);
+            int end = buffer.position() + length;
+            TaskType type = TYPES[buffer.get()];
+            long id = readVarint(buffer);
+            Status status = STATUSES[buffer.get()];
+            String name = strings[(int) readVarint(buffer)];
+            String description = strings[(int) readVarint(buffer)];
+            long epic = type == TaskType.SUBTASK ? readVarint(buffer) : 0;
+            long startTime = 0;
+            long duration = 0;
+            if (type != TaskType.EPIC) {
+                long zigzag = readVarint(buffer);
+                startTime = (zigzag >>> 1) ^ -(zigzag & 1);
+                duration = readVarint(buffer);
+            }
+            buffer.position(end);
+            snapshot.put(new Row(id, type, name, status, description, epic, startTime, duration));
+        }
+        long[] history = new long[(int) readVarint(buffer)];
+        for (int i = 0; i < history.length; i++) {
+            history[i] = readVarint(buffer);
+        }
+        snapshot.setHistory(Arrays.stream(history).boxed().toList());
+        return snapshot;
+    }
+
+    private static int index(String string, Map<String, Integer> indexes, List<String> strings) {
+        if (string == null) {
+            return 0;
+        }
+        return indexes.computeIfAbsent(string, s -> {
+            strings.add(s);
+            return strings.size();
+        });
+    }
+
+    private static int offset(String string, Map<String, Integer> offsets, List<byte[]> strings, int[] heapSize) {
+        if (string == null) {
+            return -1;
+        }
+        return offsets.computeIfAbsent(string, s -> {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            int offset = heapSize[0];
+            strings.add(bytes);
+            heapSize[0] += Integer.BYTES + bytes.length;
+            return offset;
+        });
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        if (buffer.hasArray()) {
+            String string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                    StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return string;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static class FixedText implements DeferredText {
+        private final int rowCount;
+        private final int heapOffset;
+        private final int heapSize;
+        private ByteBuffer mapping;
+        private int[] references;
+        private byte[] heap;
+
+        private FixedText(ByteBuffer mapping, int rowCount, int heapOffset, int heapSize) {
+            this.mapping = mapping;
+            this.rowCount = rowCount;
+            this.heapOffset = heapOffset;
+            this.heapSize = heapSize;
+        }
+
+        @Override
+        public synchronized String name(int record) {
+            return string(2 * record);
+        }
+
+        @Override
+        public synchronized String description(int record) {
+            return string(2 * record + 1);
+        }
+
+        private synchronized void detach() {
+            if (mapping == null) {
+                return;
+            }
+            references = new int[2 * rowCount];
+            for (int i = 0; i < references.length; i++) {
+                references[i] = reference(i);
+            }
+            heap = new byte[heapSize];
+            mapping.get(heapOffset, heap);
+            mapping = null;
+        }
+
+        private int reference(int index) {
+            return mapping.getInt(HEADER_SIZE + index / 2 * RECORD_SIZE + (index % 2 == 0 ? NAME : DESCRIPTION));
+        }
+
+        private String string(int index) {
+            if (mapping == null) {
+                int reference = references[index];
+                if (reference < 0) {
+                    return null;
+                }
+                int length = ByteBuffer.wrap(heap, reference, Integer.BYTES).getInt();
+                return new String(heap, reference + Integer.BYTES, length, StandardCharsets.UTF_8);
+            }
+            int reference = reference(index);
+            if (reference < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[mapping.getInt(heapOffset + reference)];
+            mapping.get(heapOffset + reference + Integer.BYTES, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static class Buffer {
+        private byte[] bytes = new byte[64];
+        private int size;
+
+        private void ensure(int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+            }
+        }
+
+        private void writeByte(int value) {
+            ensure(size + 1);
+            bytes[size++] = (byte) value;
+        }
+
+        private void writeVarint(long value) {
+            ensure(size + 10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        private void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, size);
+            size = 0;
+        }
+    }
+}
@@ -2,105 +2,122 @@ package manager;
 
 import task.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class CSVFormatter {
     public static final String delimiter = ",";
 
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
     public static String toString(Task task) {
-        return Stream.of(
-                task.getId(),
-                task.getType(),
-                task.getName(),
-                task.getStatus(),
-                task.getDescription(),
-                task.getStartTime(),
-                task.getDuration()
-        ).map(Objects::toString).collect(Collectors.joining(delimiter));
+        return toString((AbstractTask) task);
     }
 
-    public static Task parseTask(String value) {
-        String[] splitValue = value.split(delimiter);
-        if (TaskType.valueOf(splitValue[1]) != TaskType.TASK) {
+    public static Task parseTask(CharSequence value) {
+        CsvCodec.Fields fields = new CsvCodec.Fields(value);
+        long id = fields.nextLong();
+        if (fields.nextEnum(TYPES) != TaskType.TASK) {
             throw new IllegalArgumentException("the type of passed string is not Task");
         }
+        String name = fields.nextText();
+        Status status = fields.nextEnum(STATUSES);
         Task task = new Task(
-                splitValue[2],
-                splitValue[4],
-                LocalDateTime.parse(splitValue[5]),
-                Duration.parse(splitValue[6])
+                name,
+                fields.nextText(),
+                AbstractTimeTask.ofEpochSecond(fields.nextEpochSecond()),
+                Duration.ofSeconds(fields.nextDurationSeconds())
         );
-        task.setId(Long.parseLong(splitValue[0]));
-        task.setStatus(Status.valueOf(splitValue[3]));
+        task.setId(id);
+        task.setStatus(status);
         return task;
     }
 
     public static String toString(Subtask subtask) {
-        return Stream.of(
-                subtask.getId(),
-                subtask.getType(),
-                subtask.getName(),
-                subtask.getStatus(),
-                subtask.getDescription(),
-                subtask.getParentEpic().getId(),
-                subtask.getStartTime(),
-                subtask.getDuration()
-        ).map(Objects::toString).collect(Collectors.joining(delimiter));
+        return toString((AbstractTask) subtask);
     }
 
-    public static Subtask parseSubtask(String value, Function<Long, Epic> getEpicById) {
-        String[] splitValue = value.split(delimiter);
-        if (TaskType.valueOf(splitValue[1]) != TaskType.SUBTASK) {
+    public static Subtask parseSubtask(CharSequence value, Function<Long, Epic> getEpicById) {
+        CsvCodec.Fields fields = new CsvCodec.Fields(value);
+        long id = fields.nextLong();
+        if (fields.nextEnum(TYPES) != TaskType.SUBTASK) {
             throw new IllegalArgumentException("the type of passed string is not Subtask");
         }
+        String name = fields.nextText();
+        Status status = fields.nextEnum(STATUSES);
         Subtask subtask = new Subtask(
-                splitValue[2],
-                splitValue[4],
-                getEpicById.apply(Long.parseLong(splitValue[5])),
-                LocalDateTime.parse(splitValue[6]),
-                Duration.parse(splitValue[7])
+                name,
+                fields.nextText(),
+                getEpicById.apply(fields.nextLong()),
+                AbstractTimeTask.ofEpochSecond(fields.nextEpochSecond()),
+                Duration.ofSeconds(fields.nextDurationSeconds())
         );
-        subtask.setId(Long.parseLong(splitValue[0]));
-        subtask.setStatus(Status.valueOf(splitValue[3]));
+        subtask.setId(id);
+        subtask.setStatus(status);
         return subtask;
     }
 
     public static String toString(Epic epic) {
-        return Stream.of(
-                epic.getId(),
-                epic.getType(),
-                epic.getName(),
-                epic.getStatus(),
-                epic.getDescription()
-        ).map(Objects::toString).collect(Collectors.joining(delimiter));
+        return toString((AbstractTask) epic);
     }
 
-    public static Epic parseEpic(String value) {
-        String[] splitValue = value.split(delimiter);
-        if (TaskType.valueOf(splitValue[1]) != TaskType.EPIC) {
+    public static Epic parseEpic(CharSequence value) {
+        CsvCodec.Fields fields = new CsvCodec.Fields(value);
+        long id = fields.nextLong();
+        if (fields.nextEnum(TYPES) != TaskType.EPIC) {
             throw new IllegalArgumentException("the type of passed string is not Epic");
         }
-        Epic epic = new Epic(splitValue[2], splitValue[4]);
-        epic.setId(Long.parseLong(splitValue[0]));
-        epic.setStatus(Status.valueOf(splitValue[3]));
+        String name = fields.nextText();
+        Status status = fields.nextEnum(STATUSES);
+        Epic epic = new Epic(name, fields.nextText());
+        epic.setId(id);
+        epic.setStatus(status);
         return epic;
     }
 
+    public static String toString(AbstractTask task) {
+        StringBuilder builder = new StringBuilder();
+        try {
+            write(builder, task);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return builder.toString();
+    }
+
+    public static void write(Appendable out, AbstractTask task) throws IOException {
+        switch (task.getType()) {
+            case TASK -> {
+                Task t = (Task) task;
+                CsvCodec.writeRecord(out, t.getId(), TaskType.TASK, t.getName(), t.getStatus(), t.getDescription(),
+                        0, t.getStartEpochSecond(), t.getDurationSeconds());
+            }
+            case EPIC -> CsvCodec.writeRecord(out, task.getId(), TaskType.EPIC, task.getName(), task.getStatus(),
+                    task.getDescription(), 0, 0, 0);
+            case SUBTASK -> {
+                Subtask s = (Subtask) task;
+                CsvCodec.writeRecord(out, s.getId(), TaskType.SUBTASK, s.getName(), s.getStatus(), s.getDescription(),
+                        s.getParentEpic().getId(), s.getStartEpochSecond(), s.getDurationSeconds());
+            }
+        }
+    }
+
     public static String toString(HistoryManager historyManager) {
-        return historyManager.getHistory().stream()
-                .map(AbstractTask::getId)
-                .map(Objects::toString)
-                .collect(Collectors.joining(delimiter));
+        StringBuilder builder = new StringBuilder();
+        for (AbstractTask task : historyManager.getHistory()) {
+            if (!builder.isEmpty()) {
+                builder.append(CsvCodec.DELIMITER);
+            }
+            builder.append(task.getId().longValue());
+        }
+        return builder.toString();
     }
 
-    static List<Long> parseHistory(String value) {
-        return Arrays.stream(value.split(delimiter)).map(Long::parseLong).collect(Collectors.toList());
+    static List<Long> parseHistory(CharSequence value) {
+        return CsvCodec.parseHistory(value);
     }
 }
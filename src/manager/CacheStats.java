@@ -0,0 +1,39 @@
+package manager;
+
+import lombok.Getter;
+
+@Getter
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int entries;
+    private final long size;
+    private final long capacity;
+
+    CacheStats(long hits, long misses, long evictions, int entries, long size, long capacity) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.entries = entries;
+        this.size = size;
+        this.capacity = capacity;
+    }
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", entries=" + entries +
+                ", size=" + size +
+                ", capacity=" + capacity +
+                '}';
+    }
+}
@@ -0,0 +1,48 @@
+package manager;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+public enum Compression {
+    NONE, GZIP, DEFLATE;
+
+    static final int HEADER_SIZE = 2;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    OutputStream compress(OutputStream out) throws IOException {
+        return switch (this) {
+            case NONE -> out;
+            case GZIP -> new BufferedOutputStream(new GZIPOutputStream(out, BUFFER_SIZE), BUFFER_SIZE);
+            case DEFLATE -> new BufferedOutputStream(new DeflaterOutputStream(out), BUFFER_SIZE);
+        };
+    }
+
+    InputStream decompress(InputStream in) throws IOException {
+        return switch (this) {
+            case NONE -> in;
+            case GZIP -> new GZIPInputStream(in, BUFFER_SIZE);
+            case DEFLATE -> new InflaterInputStream(in);
+        };
+    }
+
+    static Compression detect(byte[] header) {
+        if (header.length < HEADER_SIZE) {
+            return NONE;
+        }
+        int first = header[0] & 0xFF;
+        int second = header[1] & 0xFF;
+        if (first == 0x1F && second == 0x8B) {
+            return GZIP;
+        }
+        if (first == 0x78 && (first << 8 | second) % 31 == 0) {
+            return DEFLATE;
+        }
+        return NONE;
+    }
+}
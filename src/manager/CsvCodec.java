@@ -0,0 +1,383 @@
+package manager;
+
+import task.AbstractTimeTask;
+import task.Status;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+class CsvCodec {
+    static final char DELIMITER = ',';
+    private static final char QUOTE = '"';
+    private static final char ESCAPE = '\\';
+    private static final long SECONDS_PER_DAY = 86_400;
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private CsvCodec() {
+    }
+
+    static void writeRecord(Appendable out, long id, TaskType type, String name, Status status, String description,
+                            long epic, long startTime, long duration) throws IOException {
+        writeLong(out, id);
+        out.append(DELIMITER).append(type.name()).append(DELIMITER);
+        writeText(out, name);
+        out.append(DELIMITER).append(status.name()).append(DELIMITER);
+        writeText(out, description);
+        if (type == TaskType.EPIC) {
+            return;
+        }
+        out.append(DELIMITER);
+        if (type == TaskType.SUBTASK) {
+            writeLong(out, epic);
+            out.append(DELIMITER);
+        }
+        writeTime(out, startTime);
+        out.append(DELIMITER);
+        writeDuration(out, duration);
+    }
+
+    static void writeHistory(Appendable out, Iterable<Long> ids) throws IOException {
+        boolean first = true;
+        for (long id : ids) {
+            if (!first) {
+                out.append(DELIMITER);
+            }
+            writeLong(out, id);
+            first = false;
+        }
+    }
+
+    static void writeText(Appendable out, String value) throws IOException {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        if (!needsQuotes(value)) {
+            out.append(value);
+            return;
+        }
+        out.append(QUOTE);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case QUOTE -> out.append(QUOTE).append(QUOTE);
+                case ESCAPE -> out.append(ESCAPE).append(ESCAPE);
+                case '\n' -> out.append(ESCAPE).append('n');
+                case '\r' -> out.append(ESCAPE).append('r');
+                default -> out.append(c);
+            }
+        }
+        out.append(QUOTE);
+    }
+
+    private static boolean needsQuotes(String value) {
+        if (!value.isEmpty() && value.charAt(0) == QUOTE) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == DELIMITER || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static void writeLong(Appendable out, long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            out.append(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            out.append('-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + value / divisor % 10));
+        }
+    }
+
+    static void writeTime(Appendable out, long epochSecond) throws IOException {
+        long days = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+        long z = days + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < 0 || year > 9999) {
+            out.append(AbstractTimeTask.ofEpochSecond(epochSecond).toString());
+            return;
+        }
+        writeDigits(out, (int) year, 4);
+        out.append('-');
+        writeDigits(out, month, 2);
+        out.append('-');
+        writeDigits(out, day, 2);
+        out.append('T');
+        writeDigits(out, secondOfDay / 3600, 2);
+        out.append(':');
+        writeDigits(out, secondOfDay / 60 % 60, 2);
+        if (secondOfDay % 60 != 0) {
+            out.append(':');
+            writeDigits(out, secondOfDay % 60, 2);
+        }
+    }
+
+    static void writeDuration(Appendable out, long seconds) throws IOException {
+        if (seconds == 0) {
+            out.append("PT0S");
+            return;
+        }
+        long hours = seconds / 3600;
+        long minutes = seconds % 3600 / 60;
+        long rest = seconds % 60;
+        out.append("PT");
+        if (hours != 0) {
+            writeLong(out, hours);
+            out.append('H');
+        }
+        if (minutes != 0) {
+            writeLong(out, minutes);
+            out.append('M');
+        }
+        if (rest != 0) {
+            writeLong(out, rest);
+            out.append('S');
+        }
+    }
+
+    private static void writeDigits(Appendable out, int value, int width) throws IOException {
+        for (int divisor = width == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + value / divisor % 10));
+        }
+    }
+
+    static List<Long> parseHistory(CharSequence value) {
+        List<Long> history = new ArrayList<>();
+        Fields fields = new Fields(value);
+        while (fields.hasNext()) {
+            history.add(fields.nextLong());
+        }
+        return history;
+    }
+
+    static class Fields {
+        private final CharSequence line;
+        private int position;
+        private boolean exhausted;
+
+        Fields(CharSequence line) {
+            this.line = line;
+        }
+
+        boolean hasNext() {
+            return !exhausted;
+        }
+
+        long nextLong() {
+            int start = position;
+            int end = end(start);
+            advance(end);
+            int i = start;
+            boolean negative = end > start && line.charAt(start) == '-';
+            if (negative) {
+                i++;
+            }
+            if (i == end || end - i > 18) {
+                return Long.parseLong(line.subSequence(start, end).toString());
+            }
+            long value = 0;
+            for (; i < end; i++) {
+                int digit = line.charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new NumberFormatException("For input string: \"" + line.subSequence(start, end) + "\"");
+                }
+                value = value * 10 + digit;
+            }
+            return negative ? -value : value;
+        }
+
+        <E extends Enum<E>> E nextEnum(E[] values) {
+            int start = position;
+            int end = end(start);
+            advance(end);
+            for (E value : values) {
+                if (matches(value.name(), start, end)) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("No enum constant " + values.getClass().getComponentType().getName()
+                    + "." + line.subSequence(start, end));
+        }
+
+        String nextText() {
+            if (position >= line.length() || line.charAt(position) != QUOTE) {
+                int start = position;
+                int end = end(start);
+                advance(end);
+                return line.subSequence(start, end).toString();
+            }
+            StringBuilder text = new StringBuilder();
+            int i = position + 1;
+            while (true) {
+                if (i >= line.length()) {
+                    throw new IllegalArgumentException("unterminated quoted field: " + line);
+                }
+                char c = line.charAt(i++);
+                if (c == QUOTE) {
+                    if (i < line.length() && line.charAt(i) == QUOTE) {
+                        text.append(QUOTE);
+                        i++;
+                        continue;
+                    }
+                    break;
+                }
+                if (c == ESCAPE && i < line.length()) {
+                    char escaped = line.charAt(i++);
+                    text.append(escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+                    continue;
+                }
+                text.append(c);
+            }
+            if (i < line.length() && line.charAt(i) != DELIMITER) {
+                throw new IllegalArgumentException("unexpected character after quoted field: " + line);
+            }
+            advance(i);
+            return text.toString();
+        }
+
+        long nextEpochSecond() {
+            int start = position;
+            int end = end(start);
+            advance(end);
+            int length = end - start;
+            if ((length == 16 || length == 19) && isTime(start, length)) {
+                int year = digits(start, 4);
+                int month = digits(start + 5, 2);
+                int day = digits(start + 8, 2);
+                int hour = digits(start + 11, 2);
+                int minute = digits(start + 14, 2);
+                int second = length == 19 ? digits(start + 17, 2) : 0;
+                if (month >= 1 && month <= 12 && day >= 1 && day <= lengthOfMonth(year, month)
+                        && hour < 24 && minute < 60 && second < 60) {
+                    return daysFromCivil(year, month, day) * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second;
+                }
+            }
+            return AbstractTimeTask.toEpochSecond(LocalDateTime.parse(line.subSequence(start, end)));
+        }
+
+        long nextDurationSeconds() {
+            int start = position;
+            int end = end(start);
+            advance(end);
+            if (end - start > 2 && line.charAt(start) == 'P' && line.charAt(start + 1) == 'T') {
+                long seconds = 0;
+                int i = start + 2;
+                int unit = 0;
+                while (i < end) {
+                    boolean negative = line.charAt(i) == '-';
+                    int digitsStart = negative ? i + 1 : i;
+                    int j = digitsStart;
+                    long value = 0;
+                    while (j < end && j - digitsStart < 12 && Character.isDigit(line.charAt(j))) {
+                        value = value * 10 + (line.charAt(j++) - '0');
+                    }
+                    int next = j == digitsStart || j >= end ? -1 : "HMS".indexOf(line.charAt(j));
+                    if (next < unit) {
+                        seconds = Long.MIN_VALUE;
+                        break;
+                    }
+                    seconds += (negative ? -value : value) * (next == 0 ? 3600 : next == 1 ? 60 : 1);
+                    unit = next + 1;
+                    i = j + 1;
+                }
+                if (seconds != Long.MIN_VALUE) {
+                    return seconds;
+                }
+            }
+            return Duration.parse(line.subSequence(start, end)).getSeconds();
+        }
+
+        private int end(int start) {
+            int end = start;
+            while (end < line.length() && line.charAt(end) != DELIMITER) {
+                end++;
+            }
+            return end;
+        }
+
+        private void advance(int end) {
+            if (exhausted) {
+                throw new IllegalArgumentException("missing field in record: " + line);
+            }
+            if (end >= line.length()) {
+                exhausted = true;
+            }
+            position = end + 1;
+        }
+
+        private boolean matches(String name, int start, int end) {
+            if (name.length() != end - start) {
+                return false;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                if (name.charAt(i) != line.charAt(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isTime(int start, int length) {
+            for (int i = 0; i < length; i++) {
+                char c = line.charAt(start + i);
+                boolean valid = switch (i) {
+                    case 4, 7 -> c == '-';
+                    case 10 -> c == 'T';
+                    case 13, 16 -> c == ':';
+                    default -> c >= '0' && c <= '9';
+                };
+                if (!valid) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int digits(int start, int width) {
+            int value = 0;
+            for (int i = start; i < start + width; i++) {
+                value = value * 10 + (line.charAt(i) - '0');
+            }
+            return value;
+        }
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        if (month == 2 && year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) {
+            return 29;
+        }
+        return DAYS_IN_MONTH[month - 1];
+    }
+
+    private static long daysFromCivil(long year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = Math.floorDiv(year, 400);
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+}
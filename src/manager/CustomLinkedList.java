@@ -31,6 +31,14 @@ public class CustomLinkedList<T> {
         return newNode;
     }
 
+    public boolean isFull() {
+        return size >= capacity;
+    }
+
+    public T getEldest() {
+        return root.left.value;
+    }
+
     public List<T> getList() {
         List<T> ans = new ArrayList<>();
         Node<T> ptr = root.right;
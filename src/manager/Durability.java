@@ -0,0 +1,5 @@
+package manager;
+
+public enum Durability {
+    WRITE, FSYNC, GROUP, ASYNC
+}
@@ -0,0 +1,33 @@
+package manager;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+@Builder(toBuilder = true)
+public class FileBackedOptions {
+    @Builder.Default
+    private final PersistenceMode mode = PersistenceMode.SNAPSHOT;
+    @Builder.Default
+    private final SnapshotFormat snapshotFormat = SnapshotFormat.BINARY;
+    @Builder.Default
+    private final Compression compression = Compression.NONE;
+    @Builder.Default
+    private final Durability durability = Durability.WRITE;
+    @Builder.Default
+    private final Duration groupCommitWindow = Duration.ZERO;
+    @Builder.Default
+    private final long compactionLogSize = 16L << 20;
+    private final long compactionRecords;
+    @Builder.Default
+    private final Duration historyFlushDelay = Duration.ofSeconds(1);
+    private final Duration compactionInterval;
+    private final int loadParallelism;
+    private final Duration writeBehindDelay;
+
+    public static FileBackedOptions defaults() {
+        return builder().build();
+    }
+}
@@ -6,139 +6,510 @@ import manager.functional.FiveFunction;
 import task.*;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
-public class FileBackedTasksManager extends InMemoryTaskManager {
+public class FileBackedTasksManager extends InMemoryTaskManager implements Closeable {
+    private static final long MAX_RETRY_DELAY = TimeUnit.MINUTES.toNanos(1);
 
     protected final Path data;
+    private final FileBackedOptions options;
+    private final Journal journal;
+    private final SegmentStore segments;
+    private final List<String> pending = new ArrayList<>();
+    private final Object persistLock = new Object();
+    private final Thread shutdownHook;
+    private ScheduledExecutorService background;
+    private ScheduledFuture<?> historyFlush;
+    private boolean historyDirty;
+    private ScheduledFuture<?> persistence;
+    private boolean dirty;
+    private ManagerSaveException persistFailure;
+    private long retryDelay;
+    private volatile Runnable detach;
+    private CompletableFuture<Void> compaction = CompletableFuture.completedFuture(null);
+    private CompletableFuture<Void> lastCommit = CompletableFuture.completedFuture(null);
 
     public FileBackedTasksManager(Path data) {
+        this(data, FileBackedOptions.defaults());
+    }
+
+    public FileBackedTasksManager(Path data, FileBackedOptions options) {
         super();
         this.data = data;
+        this.options = options;
+        this.journal = journalOf(data, options);
+        this.segments = options.getMode() == PersistenceMode.SEGMENTED ? new SegmentStore(data) : null;
+        this.shutdownHook = shutdownHookOf(this, options);
+    }
+
+    public FileBackedTasksManager(
+            Path data,
+            HistoryManager history,
+            LongHashMap<Task> tasks,
+            LongHashMap<Epic> epics,
+            LongHashMap<Subtask> subtasks,
+            IntervalTree<AbstractTimeTask> orderedTasks
+    ) {
+        this(data, FileBackedOptions.defaults(), history, tasks, epics, subtasks, orderedTasks);
     }
 
     public FileBackedTasksManager(
             Path data,
+            FileBackedOptions options,
+            HistoryManager history,
+            LongHashMap<Task> tasks,
+            LongHashMap<Epic> epics,
+            LongHashMap<Subtask> subtasks,
+            IntervalTree<AbstractTimeTask> orderedTasks
+    ) {
+        this(data, options, segmentStoreOf(data, options, tasks, epics, subtasks),
+                history, tasks, epics, subtasks, orderedTasks);
+    }
+
+    private FileBackedTasksManager(
+            Path data,
+            FileBackedOptions options,
+            SegmentStore segments,
             HistoryManager history,
-            HashMap<Long, Task> tasks,
-            HashMap<Long, Epic> epics,
-            HashMap<Long, Subtask> subtasks,
-            TreeSet<AbstractTimeTask> orderedTasks
+            LongHashMap<Task> tasks,
+            LongHashMap<Epic> epics,
+            LongHashMap<Subtask> subtasks,
+            IntervalTree<AbstractTimeTask> orderedTasks
     ) {
         super(history, tasks, epics, subtasks, orderedTasks);
         this.data = data;
+        this.options = options;
+        this.journal = journalOf(data, options);
+        this.segments = segments;
+        this.shutdownHook = shutdownHookOf(this, options);
+    }
+
+    private static SegmentStore segmentStoreOf(
+            Path data,
+            FileBackedOptions options,
+            LongHashMap<Task> tasks,
+            LongHashMap<Epic> epics,
+            LongHashMap<Subtask> subtasks
+    ) {
+        if (options.getMode() != PersistenceMode.SEGMENTED) {
+            return null;
+        }
+        SegmentStore segments = new SegmentStore(data);
+        tasks.values().forEach(segments::changed);
+        epics.values().forEach(segments::changed);
+        subtasks.values().forEach(segments::changed);
+        return segments;
     }
 
     protected static <T extends TaskManager> T loadFromReader(
             FiveFunction<
                  HistoryManager,
-                 HashMap<Long, Task>,
-                 HashMap<Long, Epic>,
-                 HashMap<Long, Subtask>,
-                 TreeSet<AbstractTimeTask>,
+                 LongHashMap<Task>,
+                 LongHashMap<Epic>,
+                 LongHashMap<Subtask>,
+                 IntervalTree<AbstractTimeTask>,
                  T> function,
             BufferedReader reader) throws IOException {
-        HashMap<Long, Task> tasks = new HashMap<>();
-        HashMap<Long, Epic> epics = new HashMap<>();
-        HashMap<Long, Subtask> subtasks = new HashMap<>();
-        HistoryManager history = Managers.getDefaultHistory();
-        String line = reader.readLine();
-        while (line != null && !line.isEmpty()) {
-            switch (TaskType.valueOf(line.split(CSVFormatter.delimiter)[1])) {
-                case TASK -> {
-                    Task task = CSVFormatter.parseTask(line);
-                    tasks.put(task.getId(), task);
-                }
-                case EPIC -> {
-                    Epic epic = CSVFormatter.parseEpic(line);
-                    epics.put(epic.getId(), epic);
-                }
-                case SUBTASK -> {
-                    Subtask subtask = CSVFormatter.parseSubtask(line, epics::get);
-                    subtasks.put(subtask.getId(), subtask);
-                }
-            }
-            line = reader.readLine();
-        }
-        line = reader.readLine();
-        if (line != null) {
-            List<Long> historyId = CSVFormatter.parseHistory(line);
-            for (int i = historyId.size() - 1; i >= 0; i--) {
-                long id = historyId.get(i);
-                AbstractTask abstractTask = tasks.get(id);
-                if (abstractTask != null) {
-                    history.add(abstractTask);
-                    continue;
-                }
-                abstractTask = epics.get(id);
-                if (abstractTask != null) {
-                    history.add(abstractTask);
-                    continue;
-                }
-                history.add(subtasks.get(id));
-            }
-        }
-        TreeSet<AbstractTimeTask> orderedTasks = new TreeSet<>(Comparator.comparing(AbstractTimeTask::getStartTime));
-        orderedTasks.addAll(tasks.values());
-        orderedTasks.addAll(subtasks.values());
-        return function.apply(history, tasks, epics, subtasks, orderedTasks);
+        return Snapshot.read(reader).build(function);
     }
 
     public static FileBackedTasksManager loadFromFile(Path data) {
-        try (BufferedReader reader = Files.newBufferedReader(data)) {
-            return loadFromReader(
-                    (h, ts, es, sts, ot) -> new FileBackedTasksManager(data, h, ts, es, sts, ot),
-                    reader);
+        return loadFromFile(data, FileBackedOptions.defaults());
+    }
+
+    public static FileBackedTasksManager loadFromFile(Path data, FileBackedOptions options) {
+        try {
+            SegmentStore segments = options.getMode() == PersistenceMode.SEGMENTED ? new SegmentStore(data) : null;
+            Snapshot snapshot;
+            if (segments != null) {
+                snapshot = segments.load();
+            } else if (options.getMode() == PersistenceMode.SNAPSHOT || Files.exists(data)) {
+                snapshot = Snapshot.load(data, options.getLoadParallelism());
+            } else {
+                snapshot = new Snapshot();
+            }
+            if (options.getMode() == PersistenceMode.JOURNAL) {
+                Journal.recover(Journal.compactingPathOf(data), snapshot);
+                Journal.recover(Journal.pathOf(data), snapshot);
+            }
+            Path historyData = historyPathOf(data);
+            if (Files.exists(historyData)) {
+                snapshot.setHistory(readHistory(historyData));
+            }
+            FileBackedTasksManager manager = snapshot.build((h, ts, es, sts, ot) ->
+                    new FileBackedTasksManager(data, options, segments, h, ts, es, sts, ot));
+            manager.detach = snapshot.getDetach();
+            return manager;
         } catch (IOException exception) {
             throw new ManagerLoadException(exception);
         }
     }
 
     protected void save() {
+        if (journal != null) {
+            appendJournal();
+            return;
+        }
+        if (options.getWriteBehindDelay() != null) {
+            markDirty();
+            return;
+        }
+        capture().run();
+    }
+
+    private Runnable capture() {
+        if (segments != null) {
+            SegmentStore.Batch batch = segments.prepare(this::find);
+            return () -> writeSegments(batch);
+        }
+        Snapshot snapshot = Snapshot.of(getTasksList(), getEpicsList(), getSubtasksList());
+        return () -> writeSnapshot(snapshot);
+    }
+
+    private void writeSegments(SegmentStore.Batch batch) {
+        try {
+            commitSegments(batch);
+        } catch (IOException | SecurityException exception) {
+            segments.failed(batch);
+            throw new ManagerSaveException(exception);
+        }
+    }
+
+    void commitSegments(SegmentStore.Batch batch) throws IOException {
+        segments.commit(batch, options);
+    }
+
+    void segmentsCommitted() {
+        if (segments != null) {
+            segments.committed();
+        }
+    }
+
+    private void writeSnapshot(Snapshot snapshot) {
+        Path temporary = data.resolveSibling(data.getFileName() + ".tmp");
         try  {
-            try (BufferedWriter writer = Files.newBufferedWriter(data)) {
-                for (Task task : getTasksList()) {
-                    writer.write(CSVFormatter.toString(task));
-                    writer.newLine();
+            snapshot.save(temporary, options.getSnapshotFormat(), options.getCompression());
+            if (options.getDurability() == Durability.FSYNC) {
+                try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                    channel.force(false);
                 }
-                for (Epic epic : getEpicsList()) {
-                    writer.write(CSVFormatter.toString(epic));
-                    writer.newLine();
+            }
+            detachText();
+            Files.move(temporary, data, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | SecurityException exception) {
+            throw new ManagerSaveException(exception);
+        }
+    }
+
+    private void detachText() {
+        Runnable text = detach;
+        if (text != null) {
+            text.run();
+            detach = null;
+        }
+    }
+
+    private void markDirty() {
+        dirty = true;
+        if (persistence == null) {
+            persistence = background().schedule(this::persistInBackground,
+                    options.getWriteBehindDelay().toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void persistInBackground() {
+        synchronized (this) {
+            persistence = null;
+        }
+        try {
+            persist();
+        } catch (ManagerSaveException exception) {
+            synchronized (this) {
+                persistFailure = exception;
+                retryDelay = Math.min(MAX_RETRY_DELAY,
+                        Math.max(2 * retryDelay, options.getWriteBehindDelay().toNanos()));
+                if (persistence == null && !background.isShutdown()) {
+                    persistence = background.schedule(this::persistInBackground, retryDelay, TimeUnit.NANOSECONDS);
                 }
-                for (Subtask subtask : getSubtasksList()) {
-                    writer.write(CSVFormatter.toString(subtask));
-                    writer.newLine();
+            }
+        }
+    }
+
+    private void persist() {
+        synchronized (persistLock) {
+            Runnable write;
+            synchronized (this) {
+                if (!dirty) {
+                    return;
                 }
-                if (!history.getHistory().isEmpty()) {
-                    writer.newLine();
-                    writer.write(CSVFormatter.toString(history));
+                dirty = false;
+                write = capture();
+            }
+            try {
+                write.run();
+            } catch (ManagerSaveException exception) {
+                synchronized (this) {
+                    dirty = true;
                 }
+                throw exception;
+            }
+            synchronized (this) {
+                persistFailure = null;
+                retryDelay = 0;
             }
+        }
+    }
+
+    private void appendJournal() {
+        if (pending.isEmpty()) {
+            lastCommit = CompletableFuture.completedFuture(null);
+            return;
+        }
+        try {
+            lastCommit = journal.write(pending);
         } catch (IOException | SecurityException exception) {
             throw new ManagerSaveException(exception);
+        } finally {
+            pending.clear();
+        }
+        if (compactionDue()) {
+            compact();
         }
     }
 
-    private <T> T saveWrapper(Supplier<T> method) {
+    private boolean compactionDue() {
+        if (!compaction.isDone()) {
+            return false;
+        }
+        if (options.getCompactionLogSize() > 0 && journal.size() >= options.getCompactionLogSize()) {
+            return true;
+        }
+        if (options.getCompactionRecords() > 0 && journal.records() >= options.getCompactionRecords()) {
+            return true;
+        }
+        return options.getCompactionInterval() != null
+                && System.nanoTime() - journal.startedAt() >= options.getCompactionInterval().toNanos();
+    }
+
+    public synchronized CompletableFuture<Void> compact() {
+        if (journal == null || !compaction.isDone()) {
+            return compaction;
+        }
+        Path log = Journal.compactingPathOf(data);
+        try {
+            if (!Files.exists(log)) {
+                journal.rotate(log);
+            }
+        } catch (IOException | SecurityException exception) {
+            throw new ManagerSaveException(exception);
+        }
+        compaction = CompletableFuture.runAsync(() -> {
+            try {
+                detachText();
+                Journal.compact(data, log, options.getSnapshotFormat(), options.getCompression());
+            } catch (IOException exception) {
+                throw new ManagerSaveException(exception);
+            }
+        }, background());
+        return compaction;
+    }
+
+    private ScheduledExecutorService background() {
+        if (background == null) {
+            background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "file-backed-" + data.getFileName());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return background;
+    }
+
+    static Path historyPathOf(Path data) {
+        return data.resolveSibling(data.getFileName() + ".history");
+    }
+
+    private static List<Long> readHistory(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String line = reader.readLine();
+            return line == null || line.isEmpty() ? List.of() : CSVFormatter.parseHistory(line);
+        }
+    }
+
+    private void historyChanged() {
+        historyDirty = true;
+        if (options.getHistoryFlushDelay().isZero()) {
+            flushHistory();
+        } else if (historyFlush == null || historyFlush.isDone()) {
+            historyFlush = background().schedule(
+                    this::flushHistory, options.getHistoryFlushDelay().toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized void flushHistory() {
+        if (historyDirty) {
+            historyDirty = false;
+            saveHistory();
+        }
+    }
+
+    protected void saveHistory() {
+        Path path = historyPathOf(data);
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.writeString(temporary, CSVFormatter.toString(history));
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | SecurityException exception) {
+            historyDirty = true;
+            throw new ManagerSaveException(exception);
+        }
+    }
+
+    public synchronized ManagerSaveException getPersistenceFailure() {
+        return persistFailure;
+    }
+
+    public void flush() {
+        persist();
+        synchronized (this) {
+            if (historyFlush != null) {
+                historyFlush.cancel(false);
+            }
+            flushHistory();
+        }
+    }
+
+    private static Journal journalOf(Path data, FileBackedOptions options) {
+        if (options.getMode() == PersistenceMode.JOURNAL && options.getWriteBehindDelay() != null) {
+            throw new IllegalArgumentException("write-behind requires the snapshot mode, use ASYNC durability instead");
+        }
+        if (options.getMode() == PersistenceMode.JOURNAL) {
+            return new Journal(Journal.pathOf(data), options.getDurability(), options.getGroupCommitWindow());
+        }
+        if (options.getDurability() == Durability.GROUP || options.getDurability() == Durability.ASYNC) {
+            throw new IllegalArgumentException(options.getDurability() + " durability requires the journal mode");
+        }
+        return null;
+    }
+
+    private static Thread shutdownHookOf(FileBackedTasksManager manager, FileBackedOptions options) {
+        if (options.getWriteBehindDelay() == null) {
+            return null;
+        }
+        Thread hook = new Thread(manager::flush, "file-backed-shutdown-" + manager.data.getFileName());
+        Runtime.getRuntime().addShutdownHook(hook);
+        return hook;
+    }
+
+    @Override
+    protected void onChange(AbstractTask task) {
+        if (journal != null) {
+            pending.add(CSVFormatter.toString(task));
+        }
+        if (segments != null) {
+            segments.changed(task);
+        }
+    }
+
+    @Override
+    protected void onRemove(AbstractTask task) {
+        if (journal != null) {
+            pending.add(Journal.delete(task.getId()));
+        }
+        if (segments != null) {
+            segments.removed(task);
+        }
+        historyChanged();
+    }
+
+    @Override
+    protected void onClear(TaskType type) {
+        if (journal != null) {
+            pending.add(Journal.clear(type));
+        }
+        if (segments != null) {
+            segments.cleared(type);
+        }
+        historyChanged();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        synchronized (this) {
+            if (journal != null) {
+                journal.close();
+            }
+            if (background != null) {
+                if (persistence != null) {
+                    persistence.cancel(false);
+                }
+                compaction.exceptionally(exception -> null).join();
+                background.shutdown();
+            }
+        }
+        if (shutdownHook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException ignored) {
+            }
+        }
+    }
+
+    private synchronized <T> T readWrapper(Supplier<T> method) {
         T t = method.get();
-        save();
+        if (t != null) {
+            historyChanged();
+        }
+        return t;
+    }
+
+    private <T> T saveWrapper(Supplier<T> method) {
+        T t;
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            t = method.get();
+            save();
+            commit = lastCommit;
+        }
+        try {
+            commit.get();
+        } catch (ExecutionException exception) {
+            throw new ManagerSaveException(exception.getCause() instanceof IOException cause ? cause
+                    : new IOException(exception.getCause()));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException(exception);
+        }
         return t;
     }
 
     @Override
     public void clearTasks() {
-        super.clearTasks();
-        save();
+        saveWrapper(() -> {
+            super.clearTasks();
+            return null;
+        });
     }
 
     @Override
     public Task getTaskById(Long id) {
-        return saveWrapper(() -> super.getTaskById(id));
+        return readWrapper(() -> super.getTaskById(id));
     }
 
     @Override
@@ -158,13 +529,15 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
 
     @Override
     public void clearSubtasks() {
-        super.clearSubtasks();
-        save();
+        saveWrapper(() -> {
+            super.clearSubtasks();
+            return null;
+        });
     }
 
     @Override
     public Subtask getSubtaskById(Long id) {
-        return saveWrapper(() -> super.getSubtaskById(id));
+        return readWrapper(() -> super.getSubtaskById(id));
     }
 
     @Override
@@ -184,13 +557,15 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
 
     @Override
     public void clearEpics() {
-        super.clearEpics();
-        save();
+        saveWrapper(() -> {
+            super.clearEpics();
+            return null;
+        });
     }
 
     @Override
     public Epic getEpicById(Long id) {
-        return saveWrapper(() -> super.getEpicById(id));
+        return readWrapper(() -> super.getEpicById(id));
     }
 
     @Override
@@ -207,4 +582,13 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
     public Epic removeEpicById(Long id) {
         return saveWrapper(() -> super.removeEpicById(id));
     }
+
+    @Override
+    public Iterable<AbstractTimeTask> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return () -> {
+            synchronized (this) {
+                return new LockedIterator<>(this, super.getPrioritizedTasks(from, to).iterator(), task -> task);
+            }
+        };
+    }
 }
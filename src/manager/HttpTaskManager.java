@@ -1,6 +1,7 @@
 package manager;
 
 import manager.exception.ManagerLoadException;
+import manager.exception.ManagerSaveException;
 import server.KVTaskClient;
 import task.AbstractTimeTask;
 import task.Epic;
@@ -11,16 +12,13 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
 import java.net.URI;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.TreeSet;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 public class HttpTaskManager extends FileBackedTasksManager {
     private final KVTaskClient client;
     private final String key;
+    private final KVSegments remote;
     private static final Path defaultPath = Path.of("tmp");
 
     public HttpTaskManager(URI uri) throws IOException, InterruptedException {
@@ -28,9 +26,14 @@ public class HttpTaskManager extends FileBackedTasksManager {
     }
 
     public HttpTaskManager(URI uri, String key) throws IOException, InterruptedException {
-        super(defaultPath);
+        this(uri, key, Compression.NONE);
+    }
+
+    public HttpTaskManager(URI uri, String key, Compression compression) throws IOException, InterruptedException {
+        super(defaultPath, optionsOf(compression));
         this.client = new KVTaskClient(uri);
         this.key = key;
+        this.remote = new KVSegments(client, key, compression);
     }
 
     public HttpTaskManager(
@@ -38,40 +41,100 @@ public class HttpTaskManager extends FileBackedTasksManager {
             String key,
             Path data,
             HistoryManager history,
-            HashMap<Long, Task> tasks,
-            HashMap<Long, Epic> epics,
-            HashMap<Long, Subtask> subtasks,
-            TreeSet<AbstractTimeTask> orderedTasks
+            LongHashMap<Task> tasks,
+            LongHashMap<Epic> epics,
+            LongHashMap<Subtask> subtasks,
+            IntervalTree<AbstractTimeTask> orderedTasks
+    ) {
+        this(clientOf(uri), key, Compression.NONE, data, history, tasks, epics, subtasks, orderedTasks);
+    }
+
+    private HttpTaskManager(
+            KVTaskClient client,
+            String key,
+            Compression compression,
+            Path data,
+            HistoryManager history,
+            LongHashMap<Task> tasks,
+            LongHashMap<Epic> epics,
+            LongHashMap<Subtask> subtasks,
+            IntervalTree<AbstractTimeTask> orderedTasks
+    ) {
+        this(new KVSegments(client, key, compression), client, key, compression, data, history, tasks, epics,
+                subtasks, orderedTasks);
+    }
+
+    private HttpTaskManager(
+            KVSegments remote,
+            KVTaskClient client,
+            String key,
+            Compression compression,
+            Path data,
+            HistoryManager history,
+            LongHashMap<Task> tasks,
+            LongHashMap<Epic> epics,
+            LongHashMap<Subtask> subtasks,
+            IntervalTree<AbstractTimeTask> orderedTasks
     ) {
-        super(data, history, tasks, epics, subtasks, orderedTasks);
+        super(data, optionsOf(compression), history, tasks, epics, subtasks, orderedTasks);
+        this.client = client;
+        this.key = key;
+        this.remote = remote;
+    }
+
+    private static KVTaskClient clientOf(URI uri) {
         try {
-            this.client = new KVTaskClient(uri);
-            this.key = key;
+            return new KVTaskClient(uri);
         } catch (IOException | InterruptedException exception) {
             throw new ManagerLoadException(exception);
         }
     }
 
+    private static FileBackedOptions optionsOf(Compression compression) {
+        return FileBackedOptions.builder()
+                .mode(PersistenceMode.SEGMENTED)
+                .snapshotFormat(SnapshotFormat.CSV)
+                .compression(compression)
+                .build();
+    }
+
     @Override
-    protected void save() {
-        super.save();
-        try (BufferedReader reader = Files.newBufferedReader(data)) {
-            client.put(key, reader.lines().collect(Collectors.joining(System.lineSeparator())));
-        } catch (IOException | InterruptedException exception) {
-            throw new RuntimeException(exception);
+    void commitSegments(SegmentStore.Batch batch) throws IOException {
+        remote.commit(batch, CSVFormatter.toString(history));
+    }
+
+    @Override
+    protected void saveHistory() {
+        try {
+            remote.commitHistory(CSVFormatter.toString(history));
+        } catch (IOException exception) {
+            throw new ManagerSaveException(exception);
         }
     }
 
     public static HttpTaskManager loadFromServer(URI uri, String key) throws IOException, InterruptedException {
-        try (BufferedReader reader = new BufferedReader(
-                new StringReader(new KVTaskClient(uri).load(key)))
-        ) {
-            return loadFromReader(
-                    (h, ts, es, sts, ot) -> new HttpTaskManager(uri, key, defaultPath, h, ts, es, sts, ot),
-                    reader
-            );
+        KVTaskClient client = new KVTaskClient(uri);
+        String state = client.load(key);
+        if (state == null) {
+            state = "";
+        }
+        Compression compression = KVSegments.compressionOf(state);
+        try {
+            String text = KVSegments.decode(state);
+            if (!KVSegments.isManifest(text)) {
+                return loadFromReader(
+                        (h, ts, es, sts, ot) -> new HttpTaskManager(client, key, compression, defaultPath, h, ts, es,
+                                sts, ot),
+                        new BufferedReader(new StringReader(text))
+                );
+            }
+            KVSegments remote = new KVSegments(client, key, compression);
+            HttpTaskManager manager = remote.load(text).build((h, ts, es, sts, ot) ->
+                    new HttpTaskManager(remote, client, key, compression, defaultPath, h, ts, es, sts, ot));
+            manager.segmentsCommitted();
+            return manager;
         } catch (IOException | SecurityException exception) {
-            throw new RuntimeException(exception);
+            throw new ManagerLoadException(exception);
         }
     }
 
@@ -2,17 +2,15 @@ package manager;
 
 import task.AbstractTask;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class InMemoryHistoryManager implements HistoryManager {
     private final CustomLinkedList<AbstractTask> history;
-    private final Map<Long, CustomLinkedList.Node<AbstractTask>> id2node;
+    private final LongHashMap<CustomLinkedList.Node<AbstractTask>> id2node;
 
     public InMemoryHistoryManager() {
         history = new CustomLinkedList<>(10);
-        id2node = new HashMap<>();
+        id2node = new LongHashMap<>();
     }
 
     @Override
@@ -21,6 +19,9 @@ public class InMemoryHistoryManager implements HistoryManager {
             return;
         }
         remove(task.getId());
+        if (history.isFull()) {
+            remove(history.getEldest().getId());
+        }
         CustomLinkedList.Node<AbstractTask> node = history.linkLast(task);
         id2node.put(task.getId(), node);
     }
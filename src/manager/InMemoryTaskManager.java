@@ -2,30 +2,32 @@ package manager;
 
 import task.*;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
 public class InMemoryTaskManager implements TaskManager {
     private final IdGenerator generator;
     protected final HistoryManager history;
 
-    private final HashMap<Long, Task> tasks;
-    private final HashMap<Long, Epic> epics;
-    private final HashMap<Long, Subtask> subtasks;
-    private final TreeSet<AbstractTimeTask> orderedTasks;
+    private final LongHashMap<Task> tasks;
+    private final LongHashMap<Epic> epics;
+    private final LongHashMap<Subtask> subtasks;
+    private final IntervalTree<AbstractTimeTask> orderedTasks;
 
     public InMemoryTaskManager() {
-        this(Managers.getDefaultHistory(), new HashMap<>(), new HashMap<>(), new HashMap<>(),
-                new TreeSet<>(Comparator.comparing(AbstractTimeTask::getStartTime)));
+        this(Managers.getDefaultHistory(), new LongHashMap<>(), new LongHashMap<>(), new LongHashMap<>(),
+                Managers.getDefaultTimeIndex());
     }
 
     InMemoryTaskManager(
             HistoryManager history,
-            HashMap<Long, Task> tasks,
-            HashMap<Long, Epic> epics,
-            HashMap<Long, Subtask> subtasks,
-            TreeSet<AbstractTimeTask> orderedTasks
+            LongHashMap<Task> tasks,
+            LongHashMap<Epic> epics,
+            LongHashMap<Subtask> subtasks,
+            IntervalTree<AbstractTimeTask> orderedTasks
     ) {
-        this.generator = Managers.getDefaultIdGenerator();
+        this.generator = Managers.getDefaultIdGenerator(
+                1 + Math.max(maxId(tasks), Math.max(maxId(epics), maxId(subtasks))));
         this.history = history;
         this.tasks = tasks;
         this.epics = epics;
@@ -40,13 +42,15 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void clearTasks() {
-        tasks.forEach((i, task) -> orderedTasks.remove(task));
+        orderedTasks.removeAll(tasks.values());
+        tasks.forEachKey(history::remove);
         tasks.clear();
+        onClear(TaskType.TASK);
     }
 
     @Override
     public Task getTaskById(Long id) {
-        Task task = tasks.get(id);
+        Task task = get(tasks, id);
         addToHistoryIfNotNull(task);
         return task;
     }
@@ -56,26 +60,27 @@ public class InMemoryTaskManager implements TaskManager {
         if (intersections(task)) {
             return null;
         }
-        orderedTasks.add(task);
         task.setId(generator.generateId());
+        orderedTasks.add(task);
         tasks.put(task.getId(), task);
+        onChange(task);
         return task;
     }
 
     @Override
     public Task updateTask(Task task) {
-        Task currentTask = tasks.get(task.getId());
+        Task currentTask = get(tasks, task.getId());
         if (currentTask == null) {
             return null;
         }
-        orderedTasks.remove(currentTask);
-        if (intersections(task)) {
-            orderedTasks.add(currentTask);
+        if (intersections(task, currentTask)) {
             return null;
         }
-        Task t = tasks.put(task.getId(), task);
-        orderedTasks.add(t);
-        return t;
+        orderedTasks.remove(currentTask);
+        orderedTasks.add(task);
+        Task previous = tasks.put(task.getId(), task);
+        onChange(task);
+        return previous;
     }
 
     @Override
@@ -86,6 +91,7 @@ public class InMemoryTaskManager implements TaskManager {
             return null;
         }
         orderedTasks.remove(removed);
+        onRemove(removed);
         return removed;
     }
 
@@ -97,16 +103,18 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void clearSubtasks() {
-        subtasks.forEach((i, subtask) -> orderedTasks.remove(subtask));
+        orderedTasks.removeAll(subtasks.values());
+        subtasks.forEachKey(history::remove);
         subtasks.clear();
         for (Epic epic : epics.values()) {
             epic.clear();
         }
+        onClear(TaskType.SUBTASK);
     }
 
     @Override
     public Subtask getSubtaskById(Long id) {
-        Subtask subtask = subtasks.get(id);
+        Subtask subtask = get(subtasks, id);
         addToHistoryIfNotNull(subtask);
         return subtask;
     }
@@ -120,24 +128,25 @@ public class InMemoryTaskManager implements TaskManager {
         orderedTasks.add(subtask);
         subtasks.put(subtask.getId(), subtask);
         updateStatus(subtask.getParentEpic());
+        onChange(subtask);
         return subtask;
     }
 
     @Override
     public Subtask updateSubtask(Subtask subtask) {
-        Subtask currentSubtask = subtasks.get(subtask.getId());
+        Subtask currentSubtask = get(subtasks, subtask.getId());
         if (currentSubtask == null) {
             return null;
         }
-        orderedTasks.remove(currentSubtask);
-        if (intersections(subtask)) {
-            orderedTasks.add(currentSubtask);
+        if (intersections(subtask, currentSubtask)) {
             return null;
         }
         updateStatus(subtask.getParentEpic());
-        Subtask s = subtasks.put(subtask.getId(), subtask);
-        orderedTasks.add(s);
-        return s;
+        orderedTasks.remove(currentSubtask);
+        orderedTasks.add(subtask);
+        Subtask previous = subtasks.put(subtask.getId(), subtask);
+        onChange(subtask);
+        return previous;
     }
 
     @Override
@@ -148,8 +157,9 @@ public class InMemoryTaskManager implements TaskManager {
             return null;
         }
         orderedTasks.remove(subtask);
-        subtask.getParentEpic().getSubtasks().remove(subtask);
+        subtask.getParentEpic().removeSubtask(subtask);
         updateStatus(subtask.getParentEpic());
+        onRemove(subtask);
         return subtask;
     }
 
@@ -161,14 +171,17 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void clearEpics() {
+        epics.forEachKey(history::remove);
         epics.clear();
-        subtasks.forEach((i, subtask) -> orderedTasks.remove(subtask));
+        orderedTasks.removeAll(subtasks.values());
+        subtasks.forEachKey(history::remove);
         subtasks.clear();
+        onClear(TaskType.EPIC);
     }
 
     @Override
     public Epic getEpicById(Long id) {
-        Epic epic = epics.get(id);
+        Epic epic = get(epics, id);
         if (epic == null) {
             return null;
         }
@@ -182,17 +195,20 @@ public class InMemoryTaskManager implements TaskManager {
         epic.setId(generator.generateId());
         updateStatus(epic);
         epics.put(epic.getId(), epic);
+        onChange(epic);
         return epic;
     }
 
     @Override
     public Epic updateEpic(Epic epic) {
-        Epic currentEpic = epics.get(epic.getId());
+        Epic currentEpic = get(epics, epic.getId());
         if (currentEpic == null) {
             return null;
         }
         updateStatus(epic);
-        return epics.put(epic.getId(), epic);
+        Epic previous = epics.put(epic.getId(), epic);
+        onChange(epic);
+        return previous;
     }
 
     @Override
@@ -202,16 +218,21 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic == null) {
             return null;
         }
-        List<Subtask> subtasks = epic.getSubtasks();
-        while (!subtasks.isEmpty()) {
-            removeSubtaskById(subtasks.get(subtasks.size() - 1).getId());
+        orderedTasks.removeAll(epic.getSubtasks());
+        for (Subtask subtask : epic.getSubtasks()) {
+            if (subtask.getId() != null && subtasks.remove(subtask.getId()) != null) {
+                history.remove(subtask.getId());
+                onRemove(subtask);
+            }
         }
+        epic.clear();
+        onRemove(epic);
         return epic;
     }
 
     @Override
     public List<Subtask> getSubtasksByEpicId(Long id) {
-        Epic epic = epics.get(id);
+        Epic epic = get(epics, id);
         if (epic == null) {
             return null;
         }
@@ -223,24 +244,49 @@ public class InMemoryTaskManager implements TaskManager {
         return history.getHistory();
     }
 
+    @Override
     public List<AbstractTimeTask> getPrioritizedTasks() {
-        return new ArrayList<>(orderedTasks);
+        List<AbstractTimeTask> prioritizedTasks = new ArrayList<>(orderedTasks.size());
+        orderedTasks.forEach(prioritizedTasks::add);
+        return prioritizedTasks;
     }
 
-    private void updateStatus(Epic epic) {
-        if (epic.getSubtasks().isEmpty()) {
-            epic.setStatus(Status.NEW);
-            return;
-        }
-        if (epic.getSubtasks().stream().allMatch(subtask -> subtask.getStatus().equals(Status.NEW))) {
-            epic.setStatus(Status.NEW);
-            return;
+    @Override
+    public Iterable<AbstractTimeTask> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return orderedTasks.range(AbstractTimeTask.toEpochSecond(from), AbstractTimeTask.toEpochSecond(to));
+    }
+
+    protected AbstractTask find(long id) {
+        AbstractTask task = tasks.get(id);
+        if (task == null) {
+            task = epics.get(id);
         }
-        if (epic.getSubtasks().stream().allMatch(subtask -> subtask.getStatus().equals(Status.DONE))) {
-            epic.setStatus(Status.DONE);
-            return;
+        return task == null ? subtasks.get(id) : task;
+    }
+
+    protected void onChange(AbstractTask task) {
+    }
+
+    protected void onRemove(AbstractTask task) {
+    }
+
+    protected void onClear(TaskType type) {
+    }
+
+    private void updateStatus(Epic epic) {
+        epic.setStatus(epic.getSubtasksStatus());
+    }
+
+    private static long maxId(LongHashMap<? extends AbstractTask> map) {
+        long maxId = 0;
+        for (AbstractTask task : map.values()) {
+            maxId = Math.max(maxId, task.getId());
         }
-        epic.setStatus(Status.IN_PROGRESS);
+        return maxId;
+    }
+
+    private static <T> T get(LongHashMap<T> map, Long id) {
+        return id == null ? null : map.get(id);
     }
 
     private void addToHistoryIfNotNull(AbstractTask task) {
@@ -250,11 +296,10 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     private boolean intersections(AbstractTimeTask task) {
-        for (AbstractTimeTask ptr : orderedTasks) {
-            if (task.getStartTime().isBefore(ptr.getEndTime()) && ptr.getStartTime().isBefore(task.getEndTime())) {
-                return true;
-            }
-        }
-        return false;
+        return orderedTasks.overlaps(task);
+    }
+
+    private boolean intersections(AbstractTimeTask task, AbstractTimeTask current) {
+        return orderedTasks.overlaps(task, current);
     }
 }
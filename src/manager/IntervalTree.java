@@ -0,0 +1,339 @@
+package manager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongFunction;
+
+public class IntervalTree<T> implements Iterable<T> {
+    private final ToLongFunction<T> key;
+    private final ToLongFunction<T> start;
+    private final ToLongFunction<T> end;
+    private final Map<T, Node<T>> value2node;
+    private Node<T> root;
+    private long sequence;
+    private int modCount;
+
+    public IntervalTree(ToLongFunction<T> key, ToLongFunction<T> start, ToLongFunction<T> end) {
+        this.key = key;
+        this.start = start;
+        this.end = end;
+        this.value2node = new IdentityHashMap<>();
+    }
+
+    public int size() {
+        return value2node.size();
+    }
+
+    public boolean isEmpty() {
+        return value2node.isEmpty();
+    }
+
+    public void add(T value) {
+        remove(value);
+        Node<T> node = new Node<>(value, start.applyAsLong(value), end.applyAsLong(value),
+                key.applyAsLong(value), sequence++);
+        root = insert(root, node);
+        value2node.put(value, node);
+        modCount++;
+    }
+
+    public void addAll(Collection<? extends T> values) {
+        if (!isEmpty()) {
+            values.forEach(this::add);
+            return;
+        }
+        List<Node<T>> nodes = new ArrayList<>(values.size());
+        boolean replaced = false;
+        for (T value : values) {
+            Node<T> node = new Node<>(value, start.applyAsLong(value), end.applyAsLong(value),
+                    key.applyAsLong(value), sequence++);
+            replaced |= value2node.put(value, node) != null;
+            nodes.add(node);
+        }
+        if (replaced) {
+            nodes.removeIf(node -> value2node.get(node.value) != node);
+        }
+        nodes.sort(IntervalTree::compare);
+        root = build(nodes, 0, nodes.size());
+        modCount++;
+    }
+
+    public boolean remove(T value) {
+        Node<T> node = value2node.remove(value);
+        if (node == null) {
+            return false;
+        }
+        root = delete(root, node);
+        modCount++;
+        return true;
+    }
+
+    public void removeAll(Collection<? extends T> values) {
+        int size = size();
+        if ((long) values.size() * (Integer.SIZE - Integer.numberOfLeadingZeros(size)) < size) {
+            values.forEach(this::remove);
+            return;
+        }
+        values.forEach(value2node::remove);
+        List<Node<T>> nodes = new ArrayList<>(value2node.size());
+        collect(root, nodes);
+        root = build(nodes, 0, nodes.size());
+        modCount++;
+    }
+
+    public void clear() {
+        root = null;
+        value2node.clear();
+        modCount++;
+    }
+
+    public boolean overlaps(T value) {
+        return overlaps(value, null);
+    }
+
+    public boolean overlaps(T value, T except) {
+        return overlaps(root, start.applyAsLong(value), end.applyAsLong(value), except);
+    }
+
+    public Iterable<T> range(long from, long to) {
+        return () -> new InOrderIterator(from, to);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new InOrderIterator(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    private boolean overlaps(Node<T> node, long from, long to, T except) {
+        if (node == null || node.maxEnd <= from) {
+            return false;
+        }
+        if (overlaps(node.left, from, to, except)) {
+            return true;
+        }
+        if (node.start >= to) {
+            return false;
+        }
+        if (from < node.end && node.value != except) {
+            return true;
+        }
+        return overlaps(node.right, from, to, except);
+    }
+
+    private void collect(Node<T> node, List<Node<T>> nodes) {
+        if (node == null) {
+            return;
+        }
+        collect(node.left, nodes);
+        if (value2node.get(node.value) == node) {
+            nodes.add(node);
+        }
+        collect(node.right, nodes);
+    }
+
+    private static <T> Node<T> build(List<Node<T>> nodes, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node<T> node = nodes.get(middle);
+        node.left = build(nodes, from, middle);
+        node.right = build(nodes, middle + 1, to);
+        update(node);
+        return node;
+    }
+
+    private static <T> int compare(Node<T> a, Node<T> b) {
+        int result = Long.compare(a.start, b.start);
+        if (result != 0) {
+            return result;
+        }
+        result = Long.compare(a.key, b.key);
+        if (result != 0) {
+            return result;
+        }
+        return Long.compare(a.sequence, b.sequence);
+    }
+
+    private static <T> Node<T> insert(Node<T> node, Node<T> inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (compare(inserted, node) < 0) {
+            node.left = insert(node.left, inserted);
+        } else {
+            node.right = insert(node.right, inserted);
+        }
+        return balance(node);
+    }
+
+    private static <T> Node<T> delete(Node<T> node, Node<T> deleted) {
+        if (node == null) {
+            return null;
+        }
+        if (node != deleted) {
+            if (compare(deleted, node) < 0) {
+                node.left = delete(node.left, deleted);
+            } else {
+                node.right = delete(node.right, deleted);
+            }
+            return balance(node);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node<T> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        successor.right = deleteMin(node.right);
+        successor.left = node.left;
+        return balance(successor);
+    }
+
+    private static <T> Node<T> deleteMin(Node<T> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private static <T> Node<T> balance(Node<T> node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static <T> Node<T> rotateLeft(Node<T> node) {
+        Node<T> right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static <T> Node<T> rotateRight(Node<T> node) {
+        Node<T> left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static <T> void update(Node<T> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxEnd = Math.max(node.end, Math.max(maxEnd(node.left), maxEnd(node.right)));
+    }
+
+    private static <T> int height(Node<T> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static <T> long maxEnd(Node<T> node) {
+        return node == null ? Long.MIN_VALUE : node.maxEnd;
+    }
+
+    private static class Node<T> {
+        private final T value;
+        private final long start;
+        private final long end;
+        private final long key;
+        private final long sequence;
+        private long maxEnd;
+        private int height;
+        private Node<T> left;
+        private Node<T> right;
+
+        private Node(T value, long start, long end, long key, long sequence) {
+            this.value = value;
+            this.start = start;
+            this.end = end;
+            this.key = key;
+            this.sequence = sequence;
+            this.maxEnd = end;
+            this.height = 1;
+        }
+    }
+
+    private class InOrderIterator implements Iterator<T> {
+        private final Deque<Node<T>> stack = new ArrayDeque<>();
+        private final long from;
+        private final long to;
+        private final int expectedModCount;
+        private Node<T> next;
+
+        private InOrderIterator(long from, long to) {
+            this.from = from;
+            this.to = to;
+            this.expectedModCount = modCount;
+            descend(root);
+            next = advance();
+        }
+
+        private void descend(Node<T> node) {
+            while (node != null && node.maxEnd >= from) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+
+        private Node<T> advance() {
+            while (!stack.isEmpty()) {
+                Node<T> node = stack.pop();
+                if (node.start >= to) {
+                    stack.clear();
+                    return null;
+                }
+                descend(node.right);
+                if (node.end > from || node.start >= from) {
+                    return node;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            T value = next.value;
+            next = advance();
+            return value;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package manager;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+class Journal implements Closeable {
+    static final String DELETE = "DELETE";
+    static final String CLEAR = "CLEAR";
+    static final String HISTORY = "HISTORY";
+    static final String COMMIT = "COMMIT";
+
+    private static final CompletableFuture<Void> COMMITTED = CompletableFuture.completedFuture(null);
+
+    private final Path path;
+    private final Durability durability;
+    private final long groupCommitWindow;
+    private final BlockingQueue<Batch> queue = new LinkedBlockingQueue<>();
+    private FileChannel channel;
+    private BufferedWriter writer;
+    private Thread committer;
+    private volatile IOException failure;
+    private long committed;
+    private long size = -1;
+    private long records;
+    private long startedAt;
+
+    Journal(Path path) {
+        this(path, Durability.WRITE, Duration.ZERO);
+    }
+
+    Journal(Path path, Durability durability, Duration groupCommitWindow) {
+        this.path = path;
+        this.durability = durability;
+        this.groupCommitWindow = groupCommitWindow.toNanos();
+        this.startedAt = System.nanoTime();
+    }
+
+    static Path pathOf(Path data) {
+        return data.resolveSibling(data.getFileName() + ".journal");
+    }
+
+    static Path compactingPathOf(Path data) {
+        return data.resolveSibling(data.getFileName() + ".journal.compacting");
+    }
+
+    long size() {
+        return Math.max(size, 0);
+    }
+
+    long records() {
+        return records;
+    }
+
+    long startedAt() {
+        return startedAt;
+    }
+
+    static String delete(long id) {
+        return DELETE + CSVFormatter.delimiter + id;
+    }
+
+    static String clear(TaskType type) {
+        return CLEAR + CSVFormatter.delimiter + type;
+    }
+
+    CompletableFuture<Void> write(List<String> records) throws IOException {
+        if (failure != null) {
+            throw new IOException(failure);
+        }
+        if (size < 0) {
+            size = Files.exists(path) ? Files.size(path) : 0;
+        }
+        for (String record : records) {
+            size += record.length() + 1;
+        }
+        size += COMMIT.length() + 1;
+        this.records += records.size();
+        if (durability == Durability.WRITE || durability == Durability.FSYNC) {
+            try {
+                append(records);
+                commit();
+            } catch (IOException exception) {
+                failure = exception;
+                abort();
+                throw exception;
+            }
+            return COMMITTED;
+        }
+        if (committer == null) {
+            committer = new Thread(this::commitLoop, "journal-" + path.getFileName());
+            committer.setDaemon(true);
+            committer.start();
+        }
+        Batch batch = new Batch(List.copyOf(records));
+        queue.add(batch);
+        return durability == Durability.GROUP ? batch.done : COMMITTED;
+    }
+
+    void rotate(Path target) throws IOException {
+        drain();
+        closeWriter();
+        if (Files.exists(path)) {
+            Files.move(path, target, StandardCopyOption.ATOMIC_MOVE);
+        }
+        size = 0;
+        records = 0;
+        startedAt = System.nanoTime();
+    }
+
+    private void append(List<String> records) throws IOException {
+        if (writer == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+            committed = channel.size();
+        }
+        for (String record : records) {
+            writer.write(record);
+            writer.write('\n');
+        }
+        writer.write(COMMIT);
+        writer.write('\n');
+    }
+
+    private void commit() throws IOException {
+        writer.flush();
+        if (durability != Durability.WRITE) {
+            channel.force(false);
+        }
+        committed = channel.size();
+    }
+
+    private void abort() {
+        writer = null;
+        if (channel == null) {
+            return;
+        }
+        try (FileChannel failed = channel) {
+            failed.truncate(committed);
+        } catch (IOException exception) {
+            failure.addSuppressed(exception);
+        }
+        channel = null;
+    }
+
+    private void commitLoop() {
+        List<Batch> group = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                group.add(queue.take());
+                long deadline = System.nanoTime() + groupCommitWindow;
+                for (long remaining = groupCommitWindow; remaining > 0; remaining = deadline - System.nanoTime()) {
+                    Batch batch = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (batch == null) {
+                        break;
+                    }
+                    group.add(batch);
+                }
+                queue.drainTo(group);
+            } catch (InterruptedException exception) {
+                return;
+            }
+            running = !group.contains(Batch.STOP);
+            try {
+                boolean written = false;
+                for (Batch batch : group) {
+                    if (batch.records != null) {
+                        append(batch.records);
+                        written = true;
+                    }
+                }
+                if (written) {
+                    commit();
+                }
+                group.forEach(batch -> batch.done.complete(null));
+            } catch (IOException exception) {
+                failure = exception;
+                abort();
+                group.forEach(batch -> batch.done.completeExceptionally(exception));
+            }
+            group.clear();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (committer == null) {
+            return;
+        }
+        Batch barrier = new Batch(null);
+        queue.add(barrier);
+        barrier.done.join();
+        if (failure != null) {
+            throw new IOException(failure);
+        }
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+            channel = null;
+        }
+    }
+
+    static void compact(Path data, Path log, SnapshotFormat format, Compression compression) throws IOException {
+        Snapshot snapshot = Files.exists(data) ? Snapshot.load(data) : new Snapshot();
+        replay(log, snapshot);
+        Path temporary = data.resolveSibling(data.getFileName() + ".tmp");
+        snapshot.save(temporary, format, compression);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        snapshot.detachText();
+        Files.move(temporary, data, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(log);
+    }
+
+    static void recover(Path path, Snapshot snapshot) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        long committed = replay(path, snapshot);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            if (channel.size() > committed) {
+                channel.truncate(committed);
+            }
+        }
+    }
+
+    private static long replay(Path path, Snapshot snapshot) throws IOException {
+        long committed = 0;
+        long position = 0;
+        List<String> transaction = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String line = reader.readLine();
+            while (line != null) {
+                position += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                if (COMMIT.equals(line)) {
+                    transaction.forEach(record -> apply(record, snapshot));
+                    transaction.clear();
+                    committed = position;
+                } else {
+                    transaction.add(line);
+                }
+                line = reader.readLine();
+            }
+        }
+        return committed;
+    }
+
+    private static void apply(String record, Snapshot snapshot) {
+        int delimiter = record.indexOf(CSVFormatter.delimiter);
+        String head = delimiter < 0 ? record : record.substring(0, delimiter);
+        String tail = delimiter < 0 ? "" : record.substring(delimiter + 1);
+        switch (head) {
+            case DELETE -> snapshot.remove(Long.parseLong(tail));
+            case CLEAR -> snapshot.clear(TaskType.valueOf(tail));
+            case HISTORY -> snapshot.setHistory(tail.isEmpty() ? List.of() : CSVFormatter.parseHistory(tail));
+            default -> snapshot.put(Row.parse(record));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            if (committer != null) {
+                queue.add(Batch.STOP);
+                try {
+                    committer.join();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                committer = null;
+            }
+            closeWriter();
+        }
+    }
+
+    private static class Batch {
+        private static final Batch STOP = new Batch(null);
+
+        private final List<String> records;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Batch(List<String> records) {
+            this.records = records;
+        }
+    }
+}
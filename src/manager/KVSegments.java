@@ -0,0 +1,252 @@
+package manager;
+
+import server.KVTaskClient;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+class KVSegments {
+    static final String MAGIC = "TTKV";
+    static final int VERSION = 1;
+    private static final long IDS_PER_PAGE = 1024;
+    private static final String SEPARATOR = ".";
+    private static final String INDEX = "index-";
+    private static final String LINE = System.lineSeparator();
+
+    private final KVTaskClient client;
+    private final String key;
+    private final Compression compression;
+    private Map<Long, Map<String, Long>> pages = new TreeMap<>();
+    private Map<Long, Long> indexes = new TreeMap<>();
+    private final Map<String, Long> placement = new HashMap<>();
+    private long generation;
+    private String history = "";
+
+    KVSegments(KVTaskClient client, String key, Compression compression) {
+        this.client = client;
+        this.key = key;
+        this.compression = compression;
+    }
+
+    static boolean isManifest(String state) {
+        return state.startsWith(MAGIC + CsvCodec.DELIMITER);
+    }
+
+    private static long pageOf(String segment) {
+        long number = Long.parseLong(segment.substring(segment.indexOf('-') + 1));
+        return segment.startsWith(SegmentStore.TASKS) ? number * SegmentStore.TASKS_PER_SEGMENT / IDS_PER_PAGE
+                : number / IDS_PER_PAGE;
+    }
+
+    private String keyOf(String name, long generation) {
+        return key + SEPARATOR + name + SEPARATOR + generation;
+    }
+
+    private String indexKeyOf(long page, long generation) {
+        return keyOf(INDEX + page, generation);
+    }
+
+    synchronized Snapshot load(String manifest) throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader(manifest));
+        CsvCodec.Fields header = new CsvCodec.Fields(reader.readLine());
+        header.nextText();
+        long version = header.nextLong();
+        if (version != VERSION) {
+            throw new IOException("unsupported manifest version " + version);
+        }
+        generation = header.nextLong();
+        String line = reader.readLine();
+        while (line != null && !line.isEmpty()) {
+            CsvCodec.Fields fields = new CsvCodec.Fields(line);
+            indexes.put(fields.nextLong(), fields.nextLong());
+            line = reader.readLine();
+        }
+        line = reader.readLine();
+        history = line == null ? "" : line;
+        List<String> indexKeys = new ArrayList<>();
+        indexes.forEach((page, indexGeneration) -> indexKeys.add(indexKeyOf(page, indexGeneration)));
+        Map<String, String> values = join(client.loadAllAsync(indexKeys));
+        List<String> segmentKeys = new ArrayList<>();
+        for (Map.Entry<Long, Long> index : indexes.entrySet()) {
+            long page = index.getKey();
+            Map<String, Long> members = new TreeMap<>();
+            for (String member : decode(values.getOrDefault(indexKeyOf(page, index.getValue()), "")).lines()
+                    .toList()) {
+                CsvCodec.Fields fields = new CsvCodec.Fields(member);
+                String segment = fields.nextText();
+                long segmentGeneration = fields.nextLong();
+                members.put(segment, segmentGeneration);
+                placement.put(segment, page);
+                segmentKeys.add(keyOf(segment, segmentGeneration));
+            }
+            pages.put(page, members);
+        }
+        List<Row> rows = new ArrayList<>();
+        for (String value : join(client.loadAllAsync(segmentKeys)).values()) {
+            Snapshot segment = Snapshot.read(new BufferedReader(new StringReader(decode(value))));
+            segment.tables().forEach(rows::addAll);
+        }
+        rows.sort(Comparator.comparingLong(row -> row.id));
+        Snapshot snapshot = new Snapshot();
+        rows.forEach(snapshot::put);
+        snapshot.setHistory(history.isEmpty() ? List.of() : CSVFormatter.parseHistory(history));
+        return snapshot;
+    }
+
+    synchronized void commit(SegmentStore.Batch batch, String history) throws IOException {
+        if (batch.segments().isEmpty()) {
+            return;
+        }
+        long next = ++generation;
+        Map<String, String> uploads = new LinkedHashMap<>();
+        Map<Long, Map<String, Long>> changed = new TreeMap<>();
+        Map<String, Long> placed = new HashMap<>();
+        List<String> obsolete = new ArrayList<>();
+        for (Map.Entry<String, Snapshot> entry : batch.segments().entrySet()) {
+            String segment = entry.getKey();
+            long page = placement.getOrDefault(segment, pageOf(segment));
+            Map<String, Long> members = changed.computeIfAbsent(page,
+                    p -> new TreeMap<>(pages.getOrDefault(p, Map.of())));
+            Long previous;
+            if (entry.getValue() == null) {
+                previous = members.remove(segment);
+                placed.put(segment, null);
+            } else {
+                uploads.put(keyOf(segment, next), encode(textOf(entry.getValue())));
+                previous = members.put(segment, next);
+                placed.put(segment, page);
+            }
+            if (previous != null) {
+                obsolete.add(keyOf(segment, previous));
+            }
+        }
+        Map<Long, Map<String, Long>> nextPages = new TreeMap<>(pages);
+        Map<Long, Long> nextIndexes = new TreeMap<>(indexes);
+        for (Map.Entry<Long, Map<String, Long>> entry : changed.entrySet()) {
+            long page = entry.getKey();
+            Map<String, Long> members = entry.getValue();
+            Long previous;
+            if (members.isEmpty()) {
+                nextPages.remove(page);
+                previous = nextIndexes.remove(page);
+            } else {
+                StringBuilder index = new StringBuilder();
+                members.forEach((segment, segmentGeneration) -> index.append(segment).append(CsvCodec.DELIMITER)
+                        .append(segmentGeneration).append(LINE));
+                uploads.put(indexKeyOf(page, next), encode(index.toString()));
+                nextPages.put(page, members);
+                previous = nextIndexes.put(page, next);
+            }
+            if (previous != null) {
+                obsolete.add(indexKeyOf(page, previous));
+            }
+        }
+        try {
+            join(client.putAllAsync(uploads));
+        } catch (IOException exception) {
+            delete(uploads.keySet());
+            throw exception;
+        }
+        publish(next, nextIndexes, history);
+        pages = nextPages;
+        indexes = nextIndexes;
+        this.history = history;
+        placed.forEach((segment, page) -> {
+            if (page == null) {
+                placement.remove(segment);
+            } else {
+                placement.put(segment, page);
+            }
+        });
+        delete(obsolete);
+    }
+
+    synchronized void commitHistory(String history) throws IOException {
+        publish(generation, indexes, history);
+        this.history = history;
+    }
+
+    private void publish(long generation, Map<Long, Long> indexes, String history) throws IOException {
+        StringBuilder manifest = new StringBuilder(MAGIC).append(CsvCodec.DELIMITER).append(VERSION)
+                .append(CsvCodec.DELIMITER).append(generation);
+        indexes.forEach((page, indexGeneration) -> manifest.append(LINE).append(page).append(CsvCodec.DELIMITER)
+                .append(indexGeneration));
+        if (!history.isEmpty()) {
+            manifest.append(LINE).append(LINE).append(history);
+        }
+        join(client.putAsync(key, encode(manifest.toString())));
+    }
+
+    private void delete(Collection<String> keys) {
+        try {
+            join(client.deleteAllAsync(keys));
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static String textOf(Snapshot snapshot) throws IOException {
+        StringWriter text = new StringWriter();
+        try (BufferedWriter writer = new BufferedWriter(text)) {
+            snapshot.write(writer);
+        }
+        return text.toString();
+    }
+
+    private String encode(String text) throws IOException {
+        if (compression == Compression.NONE) {
+            return text;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = compression.compress(Base64.getEncoder().wrap(bytes))) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toString(StandardCharsets.US_ASCII);
+    }
+
+    static String decode(String value) throws IOException {
+        Compression compression = compressionOf(value);
+        if (compression == Compression.NONE) {
+            return value;
+        }
+        try (InputStream in = compression.decompress(Base64.getDecoder().wrap(
+                new ByteArrayInputStream(value.getBytes(StandardCharsets.US_ASCII))))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    static Compression compressionOf(String value) {
+        try {
+            return value.length() < 4 ? Compression.NONE
+                    : Compression.detect(Base64.getDecoder().decode(value.substring(0, 4)));
+        } catch (IllegalArgumentException exception) {
+            return Compression.NONE;
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException exception) {
+            throw exception.getCause() instanceof IOException cause ? cause : new IOException(exception.getCause());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package manager;
+
+import task.Epic;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.function.Consumer;
+
+class LiveEpics {
+    private final LongHashMap<LiveEpic> epics = new LongHashMap<>();
+    private final ReferenceQueue<Epic> released = new ReferenceQueue<>();
+
+    void track(Epic epic) {
+        for (Reference<? extends Epic> reference = released.poll(); reference != null;
+             reference = released.poll()) {
+            LiveEpic live = (LiveEpic) reference;
+            if (epics.get(live.id) == live) {
+                epics.remove(live.id);
+            }
+        }
+        epics.put(epic.getId(), new LiveEpic(epic, released));
+    }
+
+    Epic get(long id) {
+        LiveEpic live = epics.get(id);
+        return live == null ? null : live.get();
+    }
+
+    void forEach(Consumer<Epic> action) {
+        for (LiveEpic live : epics.values()) {
+            Epic epic = live.get();
+            if (epic != null) {
+                action.accept(epic);
+            }
+        }
+    }
+
+    void remove(long id) {
+        epics.remove(id);
+    }
+
+    void clear() {
+        epics.clear();
+    }
+
+    private static class LiveEpic extends WeakReference<Epic> {
+        private final long id;
+
+        private LiveEpic(Epic epic, ReferenceQueue<Epic> queue) {
+            super(epic, queue);
+            this.id = epic.getId();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package manager;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+class LockedIterator<S, T> implements Iterator<T> {
+    private final Object lock;
+    private final Iterator<S> source;
+    private final Function<S, T> mapper;
+    private T next;
+
+    LockedIterator(Object lock, Iterator<S> source, Function<S, T> mapper) {
+        this.lock = lock;
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        synchronized (lock) {
+            while (next == null && source.hasNext()) {
+                next = mapper.apply(source.next());
+            }
+            return next != null;
+        }
+    }
+
+    @Override
+    public T next() {
+        synchronized (lock) {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T value = next;
+            next = null;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package manager;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+public class LongHashMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int[] index;
+    private int used;
+    private int size;
+    private int modCount;
+
+    public LongHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongHashMap(int expectedSize) {
+        int capacity = Math.max(DEFAULT_CAPACITY, expectedSize);
+        keys = new long[capacity];
+        values = new Object[capacity];
+        index = new int[tableSize(capacity)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    public V get(long key) {
+        int slot = find(key);
+        return slot < 0 ? null : value(index[slot] - 1);
+    }
+
+    public V put(long key, V value) {
+        Objects.requireNonNull(value);
+        int slot = find(key);
+        if (slot >= 0) {
+            int position = index[slot] - 1;
+            V previous = value(position);
+            values[position] = value;
+            return previous;
+        }
+        if (used == keys.length) {
+            resize();
+        }
+        int position = used++;
+        keys[position] = key;
+        values[position] = value;
+        index[emptySlot(key)] = position + 1;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    public V remove(long key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        int position = index[slot] - 1;
+        V previous = value(position);
+        values[position] = null;
+        deleteSlot(slot);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0, used, null);
+        Arrays.fill(index, 0);
+        used = 0;
+        size = 0;
+        modCount++;
+    }
+
+    public void forEachKey(LongConsumer action) {
+        for (int position = 0; position < used; position++) {
+            if (values[position] != null) {
+                action.accept(keys[position]);
+            }
+        }
+    }
+
+    public Collection<V> values() {
+        return new Values();
+    }
+
+    private int find(long key) {
+        int mask = index.length - 1;
+        int slot = hash(key) & mask;
+        while (index[slot] != 0) {
+            if (keys[index[slot] - 1] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int emptySlot(long key) {
+        int mask = index.length - 1;
+        int slot = hash(key) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void deleteSlot(int slot) {
+        int mask = index.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (index[next] != 0) {
+            int home = hash(keys[index[next] - 1]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                index[gap] = index[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        index[gap] = 0;
+    }
+
+    private void resize() {
+        int capacity = size > keys.length / 2 ? keys.length * 2 : keys.length;
+        long[] newKeys = new long[capacity];
+        Object[] newValues = new Object[capacity];
+        int position = 0;
+        for (int i = 0; i < used; i++) {
+            if (values[i] != null) {
+                newKeys[position] = keys[i];
+                newValues[position] = values[i];
+                position++;
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+        used = position;
+        index = new int[tableSize(capacity)];
+        for (int i = 0; i < used; i++) {
+            index[emptySlot(keys[i])] = i + 1;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int position) {
+        return (V) values[position];
+    }
+
+    private static int tableSize(int capacity) {
+        return Integer.highestOneBit(capacity - 1) << 2;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private class Values extends AbstractCollection<V> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<>() {
+                private final int expectedModCount = modCount;
+                private int position = skipRemoved(0);
+
+                private int skipRemoved(int position) {
+                    while (position < used && values[position] == null) {
+                        position++;
+                    }
+                    return position;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return position < used;
+                }
+
+                @Override
+                public V next() {
+                    if (modCount != expectedModCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    if (position >= used) {
+                        throw new NoSuchElementException();
+                    }
+                    V value = value(position);
+                    position = skipRemoved(position + 1);
+                    return value;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package manager;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+@Builder(toBuilder = true)
+public class LsmOptions {
+    @Builder.Default
+    private final long memtableSize = 4L << 20;
+    @Builder.Default
+    private final int blockSize = 4 << 10;
+    @Builder.Default
+    private final int bloomBitsPerKey = 10;
+    @Builder.Default
+    private final int mergeThreshold = 4;
+    @Builder.Default
+    private final Durability durability = Durability.WRITE;
+    @Builder.Default
+    private final Duration historyFlushDelay = Duration.ofSeconds(1);
+
+    public static LsmOptions defaults() {
+        return builder().build();
+    }
+}
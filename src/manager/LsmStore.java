@@ -0,0 +1,608 @@
+package manager;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiPredicate;
+import java.util.zip.CRC32;
+
+class LsmStore implements Closeable {
+    static final byte[] TOMBSTONE = new byte[0];
+    static final String MANIFEST = "MANIFEST";
+    static final String MAGIC = "TTLM";
+    static final int VERSION = 1;
+    static final String LOG_EXTENSION = ".wal";
+
+    private static final int ENTRY_OVERHEAD = 80;
+    private static final int MAX_FROZEN = 2;
+    private static final int SIZE_RATIO = 2;
+
+    private final Path directory;
+    private final LsmOptions options;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Condition flushed = lock.writeLock().newCondition();
+    private final AtomicLong nextFile = new AtomicLong(1);
+    private final Deque<Frozen> frozen = new ArrayDeque<>();
+    private final AtomicBoolean mergeScheduled = new AtomicBoolean();
+    private final ExecutorService flusher;
+    private final ExecutorService merger;
+    private TreeMap<byte[], byte[]> memtable = newMemtable();
+    private long memtableBytes;
+    private List<SSTable> tables = new ArrayList<>();
+    private FileChannel log;
+    private Path logPath;
+    private volatile IOException failure;
+
+    LsmStore(Path directory, LsmOptions options) throws IOException {
+        if (options.getDurability() == Durability.GROUP || options.getDurability() == Durability.ASYNC) {
+            throw new IllegalArgumentException(options.getDurability() + " durability requires the journal mode");
+        }
+        this.directory = directory;
+        this.options = options;
+        Files.createDirectories(directory);
+        List<Path> logs = new ArrayList<>();
+        try {
+            Set<String> referenced = readManifest();
+            try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory)) {
+                for (Path path : paths) {
+                    String name = path.getFileName().toString();
+                    if (name.equals(MANIFEST + ".tmp")) {
+                        Files.deleteIfExists(path);
+                        continue;
+                    }
+                    long logNumber = numberOf(name, LOG_EXTENSION);
+                    long tableNumber = numberOf(name, SSTable.EXTENSION);
+                    if (logNumber >= 0) {
+                        logs.add(path);
+                    } else if (tableNumber >= 0 && !referenced.contains(name)) {
+                        Files.deleteIfExists(path);
+                    }
+                    nextFile.accumulateAndGet(Math.max(logNumber, tableNumber) + 1, Math::max);
+                }
+            }
+            logs.sort((a, b) -> Long.compare(numberOf(a), numberOf(b)));
+            for (Path path : logs) {
+                replay(path, memtable);
+            }
+            if (!memtable.isEmpty()) {
+                SSTable table = SSTable.write(nextPath(SSTable.EXTENSION), memtable.entrySet().iterator(),
+                        memtable.size(), options);
+                tables.add(0, table);
+                writeManifest();
+                memtable = newMemtable();
+            }
+            for (Path path : logs) {
+                Files.delete(path);
+            }
+            openLog();
+        } catch (IOException | RuntimeException exception) {
+            for (SSTable table : tables) {
+                table.close();
+            }
+            throw exception instanceof IOException io ? io : new IOException(exception);
+        }
+        this.flusher = executorOf("lsm-flush-" + directory.getFileName());
+        this.merger = executorOf("lsm-merge-" + directory.getFileName());
+    }
+
+    private static ExecutorService executorOf(String name) {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static TreeMap<byte[], byte[]> newMemtable() {
+        return new TreeMap<>(Arrays::compareUnsigned);
+    }
+
+    private static long numberOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.indexOf('.')));
+    }
+
+    private static long numberOf(String name, String extension) {
+        int length = name.length() - extension.length();
+        if (length <= 0 || length > 18 || !name.endsWith(extension)) {
+            return -1;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) < '0' || name.charAt(i) > '9') {
+                return -1;
+            }
+        }
+        return Long.parseLong(name.substring(0, length));
+    }
+
+    private Path nextPath(String extension) {
+        return directory.resolve(nextFile.getAndIncrement() + extension);
+    }
+
+    private Set<String> readManifest() throws IOException {
+        Set<String> referenced = new HashSet<>();
+        Path manifest = directory.resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            return referenced;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(manifest)) {
+            CsvCodec.Fields header = new CsvCodec.Fields(reader.readLine());
+            if (!MAGIC.equals(header.nextText())) {
+                throw new IOException("not a table manifest " + manifest);
+            }
+            long version = header.nextLong();
+            if (version != VERSION) {
+                throw new IOException("unsupported manifest version " + version);
+            }
+            nextFile.set(header.nextLong());
+            String line = reader.readLine();
+            while (line != null && !line.isEmpty()) {
+                referenced.add(line);
+                tables.add(SSTable.open(directory.resolve(line)));
+                line = reader.readLine();
+            }
+        }
+        return referenced;
+    }
+
+    private void writeManifest() throws IOException {
+        Path manifest = directory.resolve(MANIFEST);
+        Path temporary = directory.resolve(MANIFEST + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary)) {
+            writer.write(MAGIC + CsvCodec.DELIMITER + VERSION + CsvCodec.DELIMITER + nextFile.get());
+            writer.newLine();
+            for (SSTable table : tables) {
+                writer.write(table.path().getFileName().toString());
+                writer.newLine();
+            }
+        }
+        if (options.getDurability() == Durability.FSYNC) {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                channel.force(false);
+            }
+        }
+        Files.move(temporary, manifest, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void replay(Path path, NavigableMap<byte[], byte[]> memtable) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= 2 * Integer.BYTES) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                return;
+            }
+            crc.reset();
+            crc.update(buffer.array(), buffer.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                return;
+            }
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[buffer.getInt()];
+                buffer.get(key);
+                int size = buffer.getInt();
+                byte[] value = TOMBSTONE;
+                if (size >= 0) {
+                    value = new byte[size];
+                    buffer.get(value);
+                }
+                memtable.put(key, value);
+            }
+        }
+    }
+
+    private void openLog() throws IOException {
+        logPath = nextPath(LOG_EXTENSION);
+        log = FileChannel.open(logPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private void appendLog(Batch batch) throws IOException {
+        int length = Integer.BYTES;
+        for (int i = 0; i < batch.keys.size(); i++) {
+            byte[] value = batch.values.get(i);
+            length += 2 * Integer.BYTES + batch.keys.get(i).length + (value == TOMBSTONE ? 0 : value.length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Integer.BYTES + length);
+        buffer.putInt(length).putInt(0).putInt(batch.keys.size());
+        for (int i = 0; i < batch.keys.size(); i++) {
+            byte[] key = batch.keys.get(i);
+            byte[] value = batch.values.get(i);
+            buffer.putInt(key.length).put(key);
+            if (value == TOMBSTONE) {
+                buffer.putInt(-1);
+            } else {
+                buffer.putInt(value.length).put(value);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 2 * Integer.BYTES, length);
+        buffer.putInt(Integer.BYTES, (int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            log.write(buffer);
+        }
+        if (options.getDurability() == Durability.FSYNC) {
+            log.force(false);
+        }
+    }
+
+    void write(Batch batch) throws IOException {
+        if (batch.keys.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            while (frozen.size() >= MAX_FROZEN && failure == null) {
+                flushed.awaitUninterruptibly();
+            }
+            if (failure != null) {
+                throw new IOException(failure);
+            }
+            try {
+                appendLog(batch);
+            } catch (IOException exception) {
+                failure = exception;
+                throw exception;
+            }
+            for (int i = 0; i < batch.keys.size(); i++) {
+                byte[] key = batch.keys.get(i);
+                byte[] value = batch.values.get(i);
+                memtable.put(key, value);
+                memtableBytes += ENTRY_OVERHEAD + key.length + value.length;
+            }
+            if (memtableBytes >= options.getMemtableSize()) {
+                freeze();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void freeze() throws IOException {
+        log.close();
+        frozen.addFirst(new Frozen(memtable, logPath));
+        memtable = newMemtable();
+        memtableBytes = 0;
+        openLog();
+        flusher.execute(this::flushFrozen);
+    }
+
+    private void flushFrozen() {
+        Frozen oldest;
+        lock.readLock().lock();
+        try {
+            oldest = frozen.peekLast();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (oldest == null || failure != null) {
+            return;
+        }
+        try {
+            SSTable table = SSTable.write(nextPath(SSTable.EXTENSION), oldest.memtable.entrySet().iterator(),
+                    oldest.memtable.size(), options);
+            lock.writeLock().lock();
+            try {
+                tables.add(0, table);
+                writeManifest();
+                frozen.removeLast();
+                flushed.signalAll();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            Files.deleteIfExists(oldest.log);
+            if (tableCount() >= options.getMergeThreshold() && mergeScheduled.compareAndSet(false, true)) {
+                merger.execute(this::mergeInBackground);
+            }
+        } catch (IOException exception) {
+            failed(exception);
+        } catch (UncheckedIOException exception) {
+            failed(exception.getCause());
+        }
+    }
+
+    private void failed(IOException exception) {
+        lock.writeLock().lock();
+        try {
+            failure = exception;
+            flushed.signalAll();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void mergeInBackground() {
+        mergeScheduled.set(false);
+        try {
+            mergeTables(false);
+        } catch (IOException | UncheckedIOException ignored) {
+        }
+    }
+
+    private List<SSTable> tiered() {
+        long accumulated = 0;
+        int count = 0;
+        for (SSTable table : tables) {
+            if (count > 0 && table.size() > SIZE_RATIO * accumulated) {
+                break;
+            }
+            accumulated += table.size();
+            count++;
+        }
+        return count >= options.getMergeThreshold() ? List.copyOf(tables.subList(0, count)) : List.of();
+    }
+
+    private void mergeTables(boolean full) throws IOException {
+        List<SSTable> inputs;
+        boolean oldest;
+        lock.readLock().lock();
+        try {
+            inputs = full ? List.copyOf(tables) : tiered();
+            oldest = !inputs.isEmpty() && inputs.get(inputs.size() - 1) == tables.get(tables.size() - 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (inputs.size() < 2) {
+            return;
+        }
+        List<Iterator<Map.Entry<byte[], byte[]>>> sources = new ArrayList<>(inputs.size());
+        long expected = 0;
+        for (SSTable table : inputs) {
+            sources.add(table.iterator(null));
+            expected += table.entries();
+        }
+        SSTable merged = SSTable.write(nextPath(SSTable.EXTENSION), new MergingIterator(sources, oldest),
+                expected, options);
+        lock.writeLock().lock();
+        try {
+            int from = 0;
+            while (tables.get(from) != inputs.get(0)) {
+                from++;
+            }
+            List<SSTable> next = new ArrayList<>(tables.subList(0, from));
+            if (merged.entries() > 0) {
+                next.add(merged);
+            }
+            next.addAll(tables.subList(from + inputs.size(), tables.size()));
+            tables = next;
+            writeManifest();
+            for (SSTable table : inputs) {
+                table.delete();
+            }
+            if (merged.entries() == 0) {
+                merged.delete();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    byte[] get(byte[] key) throws IOException {
+        lock.readLock().lock();
+        try {
+            byte[] value = memtable.get(key);
+            for (Iterator<Frozen> iterator = frozen.iterator(); value == null && iterator.hasNext(); ) {
+                value = iterator.next().memtable.get(key);
+            }
+            for (Iterator<SSTable> iterator = tables.iterator(); value == null && iterator.hasNext(); ) {
+                value = iterator.next().get(key);
+            }
+            return value == TOMBSTONE ? null : value;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void scan(byte[] from, byte[] to, BiPredicate<byte[], byte[]> visitor) throws IOException {
+        if (Arrays.compareUnsigned(from, to) >= 0) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            List<Iterator<Map.Entry<byte[], byte[]>>> sources = new ArrayList<>(2 + frozen.size() + tables.size());
+            sources.add(memtable.subMap(from, true, to, false).entrySet().iterator());
+            for (Frozen table : frozen) {
+                sources.add(table.memtable.subMap(from, true, to, false).entrySet().iterator());
+            }
+            for (SSTable table : tables) {
+                sources.add(table.iterator(from));
+            }
+            MergingIterator iterator = new MergingIterator(sources, true);
+            while (iterator.hasNext()) {
+                Map.Entry<byte[], byte[]> entry = iterator.next();
+                if (Arrays.compareUnsigned(entry.getKey(), to) >= 0
+                        || !visitor.test(entry.getKey(), entry.getValue())) {
+                    return;
+                }
+            }
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    CompletableFuture<Void> flush() {
+        lock.writeLock().lock();
+        try {
+            if (!memtable.isEmpty()) {
+                freeze();
+            }
+        } catch (IOException exception) {
+            return CompletableFuture.failedFuture(exception);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return CompletableFuture.runAsync(this::checkFailure, flusher);
+    }
+
+    CompletableFuture<Void> merge() {
+        return CompletableFuture.runAsync(() -> {
+            checkFailure();
+            try {
+                mergeTables(true);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }, merger);
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+    }
+
+    int tableCount() {
+        lock.readLock().lock();
+        try {
+            return tables.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (ExecutorService executor : List.of(flusher, merger)) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            log.close();
+            for (SSTable table : tables) {
+                table.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static class Batch {
+        private final List<byte[]> keys = new ArrayList<>();
+        private final List<byte[]> values = new ArrayList<>();
+
+        Batch put(byte[] key, byte[] value) {
+            keys.add(key);
+            values.add(value);
+            return this;
+        }
+
+        Batch delete(byte[] key) {
+            return put(key, TOMBSTONE);
+        }
+    }
+
+    private static class Frozen {
+        private final TreeMap<byte[], byte[]> memtable;
+        private final Path log;
+
+        private Frozen(TreeMap<byte[], byte[]> memtable, Path log) {
+            this.memtable = memtable;
+            this.log = log;
+        }
+    }
+
+    private static class MergingIterator implements Iterator<Map.Entry<byte[], byte[]>> {
+        private final PriorityQueue<Head> heads = new PriorityQueue<>((a, b) -> {
+            int compared = Arrays.compareUnsigned(a.entry.getKey(), b.entry.getKey());
+            return compared != 0 ? compared : Integer.compare(a.source, b.source);
+        });
+        private final boolean dropTombstones;
+        private Map.Entry<byte[], byte[]> next;
+
+        private MergingIterator(List<Iterator<Map.Entry<byte[], byte[]>>> sources, boolean dropTombstones) {
+            this.dropTombstones = dropTombstones;
+            for (int i = 0; i < sources.size(); i++) {
+                Iterator<Map.Entry<byte[], byte[]>> source = sources.get(i);
+                if (source.hasNext()) {
+                    heads.add(new Head(source.next(), source, i));
+                }
+            }
+            next = advance();
+        }
+
+        private Map.Entry<byte[], byte[]> advance() {
+            while (!heads.isEmpty()) {
+                Head head = heads.poll();
+                Map.Entry<byte[], byte[]> entry = head.entry;
+                skip(head);
+                while (!heads.isEmpty() && Arrays.equals(heads.peek().entry.getKey(), entry.getKey())) {
+                    skip(heads.poll());
+                }
+                if (!dropTombstones || entry.getValue() != TOMBSTONE) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        private void skip(Head head) {
+            if (head.iterator.hasNext()) {
+                head.entry = head.iterator.next();
+                heads.add(head);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<byte[], byte[]> next() {
+            Map.Entry<byte[], byte[]> entry = next;
+            next = advance();
+            return entry;
+        }
+    }
+
+    private static class Head {
+        private Map.Entry<byte[], byte[]> entry;
+        private final Iterator<Map.Entry<byte[], byte[]>> iterator;
+        private final int source;
+
+        private Head(Map.Entry<byte[], byte[]> entry, Iterator<Map.Entry<byte[], byte[]>> iterator, int source) {
+            this.entry = entry;
+            this.iterator = iterator;
+            this.source = source;
+        }
+    }
+}
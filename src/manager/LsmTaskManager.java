@@ -0,0 +1,748 @@
+package manager;
+
+import manager.exception.ManagerLoadException;
+import manager.exception.ManagerSaveException;
+import task.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+
+public class LsmTaskManager implements TaskManager, Closeable {
+    private static final byte TASKS = 1;
+    private static final byte EPICS = 2;
+    private static final byte SUBTASKS = 3;
+    private static final byte TIMELINE = 4;
+    private static final byte MEMBERS = 5;
+    private static final byte META = 6;
+    private static final byte DURATIONS = 7;
+    private static final byte[] NEXT_ID = {META, 1};
+    private static final byte[] HISTORY = {META, 3};
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private final LsmStore store;
+    private final LsmOptions options;
+    private final HistoryManager history;
+    private final IdGenerator generator;
+    private final LiveEpics liveEpics = new LiveEpics();
+    private final TreeMap<Long, Long> durations = new TreeMap<>();
+    private final Map<Long, Long> pendingDurations = new HashMap<>();
+    private ScheduledExecutorService background;
+    private ScheduledFuture<?> historyFlush;
+    private boolean historyDirty;
+
+    public LsmTaskManager(Path directory) {
+        this(directory, LsmOptions.defaults());
+    }
+
+    public LsmTaskManager(Path directory, LsmOptions options) {
+        try {
+            this.store = new LsmStore(directory, options);
+            this.options = options;
+        } catch (IOException exception) {
+            throw new ManagerLoadException(exception);
+        }
+        try {
+            byte[] nextId = store.get(NEXT_ID);
+            this.generator = Managers.getDefaultIdGenerator(nextId == null ? 1 : ByteBuffer.wrap(nextId).getLong());
+            loadDurations();
+            this.history = Managers.getDefaultHistory();
+            byte[] ids = store.get(HISTORY);
+            List<Long> order = ids == null || ids.length == 0
+                    ? List.of() : CSVFormatter.parseHistory(new String(ids, StandardCharsets.UTF_8));
+            for (int i = order.size() - 1; i >= 0; i--) {
+                history.add(find(order.get(i)));
+            }
+        } catch (IOException | RuntimeException exception) {
+            try {
+                store.close();
+            } catch (IOException suppressed) {
+                exception.addSuppressed(suppressed);
+            }
+            throw new ManagerLoadException(exception);
+        }
+    }
+
+    @Override
+    public synchronized List<Task> getTasksList() {
+        List<Task> tasks = new ArrayList<>();
+        scan(space(TASKS), space(TASKS + 1),
+                (key, value) -> tasks.add(decode(first(key), TaskType.TASK, value).toTask()));
+        return tasks;
+    }
+
+    @Override
+    public synchronized void clearTasks() {
+        LsmStore.Batch batch = batch();
+        scan(space(TASKS), space(TASKS + 1), (key, value) -> {
+            Row row = decode(first(key), TaskType.TASK, value);
+            deleteTimed(batch.delete(key), row);
+            history.remove(row.id);
+            return true;
+        });
+        write(putHistory(batch));
+    }
+
+    @Override
+    public synchronized Task getTaskById(Long id) {
+        Row row = row(TaskType.TASK, id);
+        if (row == null) {
+            return null;
+        }
+        Task task = row.toTask();
+        history.add(task);
+        historyChanged();
+        return task;
+    }
+
+    @Override
+    public synchronized Task addNewTask(Task task) {
+        if (overlaps(task, null)) {
+            return null;
+        }
+        task.setId(generator.generateId());
+        LsmStore.Batch batch = batch();
+        putTimed(batch, task);
+        write(putNextId(batch, task.getId()));
+        return task;
+    }
+
+    @Override
+    public synchronized Task updateTask(Task task) {
+        Row current = row(TaskType.TASK, task.getId());
+        if (current == null || overlaps(task, task.getId())) {
+            return null;
+        }
+        LsmStore.Batch batch = batch();
+        deleteTimed(batch, current);
+        putTimed(batch, task);
+        write(batch);
+        return current.toTask();
+    }
+
+    @Override
+    public synchronized Task removeTaskById(Long id) {
+        history.remove(id);
+        Row row = row(TaskType.TASK, id);
+        if (row == null) {
+            return null;
+        }
+        LsmStore.Batch batch = batch();
+        deleteTimed(batch.delete(key(TASKS, id)), row);
+        write(putHistory(batch));
+        return row.toTask();
+    }
+
+
+    @Override
+    public synchronized List<Subtask> getSubtasksList() {
+        List<Long> ids = new ArrayList<>();
+        scan(space(SUBTASKS), space(SUBTASKS + 1), (key, value) -> ids.add(first(key)));
+        LongHashMap<Subtask> materialized = new LongHashMap<>();
+        List<Subtask> subtasks = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            subtasks.add(subtask(id, materialized));
+        }
+        return subtasks;
+    }
+
+    @Override
+    public synchronized void clearSubtasks() {
+        LsmStore.Batch batch = batch();
+        scan(space(SUBTASKS), space(SUBTASKS + 1), (key, value) -> {
+            Row row = decode(first(key), TaskType.SUBTASK, value);
+            deleteTimed(batch.delete(key), row);
+            history.remove(row.id);
+            return true;
+        });
+        scan(space(MEMBERS), space(MEMBERS + 1), (key, value) -> {
+            batch.delete(key);
+            return true;
+        });
+        scan(space(EPICS), space(EPICS + 1), (key, value) -> {
+            putEpic(batch, decode(first(key), TaskType.EPIC, value), new int[STATUSES.length]);
+            return true;
+        });
+        write(putHistory(batch));
+        liveEpics.forEach(Epic::clear);
+    }
+
+    @Override
+    public synchronized Subtask getSubtaskById(Long id) {
+        if (id == null || get(key(SUBTASKS, id)) == null) {
+            return null;
+        }
+        Subtask subtask = subtask(id, new LongHashMap<>());
+        history.add(subtask);
+        historyChanged();
+        return subtask;
+    }
+
+    @Override
+    public synchronized Subtask addNewSubtask(Subtask subtask) {
+        if (overlaps(subtask, null)) {
+            return null;
+        }
+        Epic parent = subtask.getParentEpic();
+        EpicRow epic = epicRow(parent.getId());
+        if (epic == null) {
+            return null;
+        }
+        subtask.setId(generator.generateId());
+        LsmStore.Batch batch = batch();
+        putTimed(batch, subtask);
+        batch.put(key(MEMBERS, epic.row.id, subtask.getId()), status(subtask.getStatus()));
+        epic.counts[subtask.getStatus().ordinal()]++;
+        putEpic(batch, epic.row, epic.counts);
+        parent.setStatus(epicStatus(epic.counts));
+        write(putNextId(batch, subtask.getId()));
+        return subtask;
+    }
+
+    @Override
+    public synchronized Subtask updateSubtask(Subtask subtask) {
+        Row current = row(TaskType.SUBTASK, subtask.getId());
+        if (current == null || overlaps(subtask, subtask.getId())) {
+            return null;
+        }
+        Epic parent = subtask.getParentEpic();
+        EpicRow epic = epicRow(parent.getId());
+        if (epic == null) {
+            return null;
+        }
+        Subtask previous = subtask(current.id, new LongHashMap<>());
+        LsmStore.Batch batch = batch();
+        deleteTimed(batch, current);
+        putTimed(batch, subtask);
+        if (current.epic != epic.row.id) {
+            batch.delete(key(MEMBERS, current.epic, current.id));
+            EpicRow previousEpic = epicRow(current.epic);
+            if (previousEpic != null) {
+                previousEpic.counts[current.status.ordinal()]--;
+                putEpic(batch, previousEpic.row, previousEpic.counts);
+            }
+        } else {
+            epic.counts[current.status.ordinal()]--;
+        }
+        batch.put(key(MEMBERS, epic.row.id, current.id), status(subtask.getStatus()));
+        epic.counts[subtask.getStatus().ordinal()]++;
+        putEpic(batch, epic.row, epic.counts);
+        parent.setStatus(epicStatus(epic.counts));
+        write(batch);
+        return previous;
+    }
+
+    @Override
+    public synchronized Subtask removeSubtaskById(Long id) {
+        history.remove(id);
+        Row row = row(TaskType.SUBTASK, id);
+        if (row == null) {
+            return null;
+        }
+        Subtask subtask = subtask(id, new LongHashMap<>());
+        LsmStore.Batch batch = batch();
+        deleteTimed(batch.delete(key(SUBTASKS, id)).delete(key(MEMBERS, row.epic, id)), row);
+        EpicRow epic = epicRow(row.epic);
+        epic.counts[row.status.ordinal()]--;
+        putEpic(batch, epic.row, epic.counts);
+        Status status = epicStatus(epic.counts);
+        write(putHistory(batch));
+        subtask.getParentEpic().removeSubtask(subtask);
+        subtask.getParentEpic().setStatus(status);
+        Epic live = liveEpics.get(row.epic);
+        if (live != null) {
+            live.getSubtasks().stream().filter(s -> id.equals(s.getId())).findFirst()
+                    .ifPresent(live::removeSubtask);
+            live.setStatus(status);
+        }
+        return subtask;
+    }
+
+
+    @Override
+    public synchronized List<Epic> getEpicsList() {
+        List<Row> rows = new ArrayList<>();
+        scan(space(EPICS), space(EPICS + 1), (key, value) -> rows.add(decode(first(key), TaskType.EPIC, value)));
+        List<Epic> epics = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            epics.add(epic(row, null));
+        }
+        return epics;
+    }
+
+    @Override
+    public synchronized void clearEpics() {
+        LsmStore.Batch batch = batch();
+        scan(space(EPICS), space(EPICS + 1), (key, value) -> {
+            batch.delete(key);
+            history.remove(first(key));
+            return true;
+        });
+        scan(space(SUBTASKS), space(SUBTASKS + 1), (key, value) -> {
+            Row row = decode(first(key), TaskType.SUBTASK, value);
+            deleteTimed(batch.delete(key), row);
+            history.remove(row.id);
+            return true;
+        });
+        scan(space(MEMBERS), space(MEMBERS + 1), (key, value) -> {
+            batch.delete(key);
+            return true;
+        });
+        write(putHistory(batch));
+        liveEpics.clear();
+    }
+
+    @Override
+    public synchronized Epic getEpicById(Long id) {
+        Row row = row(TaskType.EPIC, id);
+        if (row == null) {
+            return null;
+        }
+        Epic epic = epic(row, null);
+        epic.getSubtasks().forEach(history::add);
+        history.add(epic);
+        historyChanged();
+        return epic;
+    }
+
+    @Override
+    public synchronized Epic addNewEpic(Epic epic) {
+        epic.setId(generator.generateId());
+        epic.setStatus(Status.NEW);
+        LsmStore.Batch batch = batch();
+        putEpic(batch, Row.of(epic), new int[STATUSES.length]);
+        write(putNextId(batch, epic.getId()));
+        liveEpics.track(epic);
+        return epic;
+    }
+
+    @Override
+    public synchronized Epic updateEpic(Epic epic) {
+        EpicRow current = epicRow(epic.getId());
+        if (current == null) {
+            return null;
+        }
+        Epic previous = epic(current.row, null);
+        epic.setStatus(current.row.status);
+        LsmStore.Batch batch = batch();
+        putEpic(batch, Row.of(epic), current.counts);
+        write(batch);
+        liveEpics.track(epic);
+        return previous;
+    }
+
+    @Override
+    public synchronized Epic removeEpicById(Long id) {
+        history.remove(id);
+        Row row = row(TaskType.EPIC, id);
+        if (row == null) {
+            return null;
+        }
+        Epic epic = epic(row, null);
+        LsmStore.Batch batch = batch();
+        for (Subtask subtask : epic.getSubtasks()) {
+            deleteTimed(batch.delete(key(SUBTASKS, subtask.getId())).delete(key(MEMBERS, id, subtask.getId())),
+                    Row.of(subtask));
+            history.remove(subtask.getId());
+        }
+        batch.delete(key(EPICS, id));
+        write(putHistory(batch));
+        epic.clear();
+        Epic live = liveEpics.get(id);
+        if (live != null) {
+            live.clear();
+        }
+        liveEpics.remove(id);
+        return epic;
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasksByEpicId(Long id) {
+        Row row = row(TaskType.EPIC, id);
+        return row == null ? null : epic(row, null).getSubtasks();
+    }
+
+    @Override
+    public synchronized List<AbstractTask> getHistory() {
+        List<AbstractTask> tasks = history.getHistory();
+        LongHashMap<Subtask> materialized = new LongHashMap<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            AbstractTask task = tasks.get(i);
+            tasks.set(i, switch (task.getType()) {
+                case TASK -> row(TaskType.TASK, task.getId()).toTask();
+                case EPIC -> epic(row(TaskType.EPIC, task.getId()), materialized);
+                case SUBTASK -> subtask(task.getId(), materialized);
+            });
+        }
+        return tasks;
+    }
+
+    @Override
+    public synchronized List<AbstractTimeTask> getPrioritizedTasks() {
+        return prioritized(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    @Override
+    public Iterable<AbstractTimeTask> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        long start = AbstractTimeTask.toEpochSecond(from);
+        long end = AbstractTimeTask.toEpochSecond(to);
+        return () -> {
+            synchronized (this) {
+                LongHashMap<Subtask> materialized = new LongHashMap<>();
+                return new LockedIterator<>(this, window(start, end).iterator(),
+                        entry -> current(entry, start, end, materialized));
+            }
+        };
+    }
+
+    public void flush() {
+        flushHistory();
+        try {
+            store.flush().join();
+        } catch (CompletionException exception) {
+            throw new ManagerSaveException(exception.getCause() instanceof IOException cause ? cause
+                    : new IOException(exception.getCause()));
+        }
+    }
+
+    public CompletableFuture<Void> compact() {
+        return store.merge();
+    }
+
+    int tableCount() {
+        return store.tableCount();
+    }
+
+    synchronized long maxDuration() {
+        return durations.isEmpty() ? 0 : durations.lastKey();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (historyFlush != null) {
+                historyFlush.cancel(false);
+            }
+            try {
+                flushHistory();
+            } finally {
+                if (background != null) {
+                    background.shutdown();
+                }
+            }
+        }
+        store.close();
+    }
+
+    private void loadDurations() {
+        scan(space(DURATIONS), space(DURATIONS + 1), (key, value) -> {
+            durations.put(first(key), ByteBuffer.wrap(value).getLong());
+            return true;
+        });
+    }
+
+    private void historyChanged() {
+        historyDirty = true;
+        if (options.getHistoryFlushDelay().isZero()) {
+            flushHistory();
+        } else if (historyFlush == null || historyFlush.isDone()) {
+            historyFlush = background().schedule(
+                    this::flushHistory, options.getHistoryFlushDelay().toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized void flushHistory() {
+        if (historyDirty) {
+            historyDirty = false;
+            try {
+                write(putHistory(batch()));
+            } catch (ManagerSaveException exception) {
+                historyDirty = true;
+                throw exception;
+            }
+        }
+    }
+
+    private ScheduledExecutorService background() {
+        if (background == null) {
+            background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "lsm-history");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return background;
+    }
+
+    private List<AbstractTimeTask> prioritized(long from, long to) {
+        List<long[]> entries = window(from, to);
+        LongHashMap<Subtask> materialized = new LongHashMap<>();
+        List<AbstractTimeTask> tasks = new ArrayList<>(entries.size());
+        for (long[] entry : entries) {
+            tasks.add(TYPES[(int) entry[1]] == TaskType.TASK
+                    ? row(TaskType.TASK, entry[0]).toTask()
+                    : subtask(entry[0], materialized));
+        }
+        return tasks;
+    }
+
+    private AbstractTimeTask current(long[] entry, long from, long to, LongHashMap<Subtask> materialized) {
+        TaskType type = TYPES[(int) entry[1]];
+        Row row = row(type, entry[0]);
+        if (row == null || row.startTime >= to || (row.startTime + row.duration <= from && row.startTime < from)) {
+            return null;
+        }
+        return type == TaskType.TASK ? row.toTask() : subtask(entry[0], materialized);
+    }
+
+    private List<long[]> window(long from, long to) {
+        List<long[]> entries = new ArrayList<>();
+        scan(key(TIMELINE, saturatedSubtract(from, maxDuration()), Long.MIN_VALUE), key(TIMELINE, to, Long.MIN_VALUE),
+                (key, value) -> {
+                    long start = first(key);
+                    long end = ByteBuffer.wrap(value).getLong(1);
+                    if (end > from || start >= from) {
+                        entries.add(new long[]{second(key), value[0]});
+                    }
+                    return true;
+                });
+        return entries;
+    }
+
+    private boolean overlaps(AbstractTimeTask task, Long except) {
+        long start = task.getStartEpochSecond();
+        long end = task.getEndEpochSecond();
+        boolean[] found = new boolean[1];
+        scan(key(TIMELINE, saturatedSubtract(start, maxDuration()), Long.MIN_VALUE), key(TIMELINE, end, Long.MIN_VALUE),
+                (key, value) -> {
+                    if (start < ByteBuffer.wrap(value).getLong(1) && (except == null || second(key) != except)) {
+                        found[0] = true;
+                        return false;
+                    }
+                    return true;
+                });
+        return found[0];
+    }
+
+    private Epic epic(Row row, LongHashMap<Subtask> materialized) {
+        Epic epic = row.toEpic();
+        List<Long> ids = new ArrayList<>();
+        scan(key(MEMBERS, row.id), key(MEMBERS, row.id + 1), (key, value) -> ids.add(second(key)));
+        for (long id : ids) {
+            Subtask subtask = row(TaskType.SUBTASK, id).toSubtask(epic);
+            if (materialized != null) {
+                materialized.put(id, subtask);
+            }
+        }
+        return epic;
+    }
+
+    private Subtask subtask(long id, LongHashMap<Subtask> materialized) {
+        Subtask subtask = materialized.get(id);
+        if (subtask == null) {
+            epic(row(TaskType.EPIC, row(TaskType.SUBTASK, id).epic), materialized);
+            subtask = materialized.get(id);
+        }
+        return subtask;
+    }
+
+    private AbstractTask find(long id) {
+        Row row = row(TaskType.TASK, id);
+        if (row != null) {
+            return row.toTask();
+        }
+        row = row(TaskType.EPIC, id);
+        if (row != null) {
+            return epic(row, null);
+        }
+        return get(key(SUBTASKS, id)) == null ? null : subtask(id, new LongHashMap<>());
+    }
+
+    private EpicRow epicRow(Long id) {
+        if (id == null) {
+            return null;
+        }
+        byte[] value = get(key(EPICS, id));
+        if (value == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        Row row = Row.readBinary(id, TaskType.EPIC, buffer);
+        int[] counts = new int[STATUSES.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buffer.getInt();
+        }
+        return new EpicRow(row, counts);
+    }
+
+    private void putEpic(LsmStore.Batch batch, Row epic, int[] counts) {
+        Row row = new Row(epic.id, TaskType.EPIC, epic.name(), epicStatus(counts), epic.description(), 0, 0, 0);
+        ByteBuffer buffer = row.writeBinary(ByteBuffer.allocate(row.binarySize() + counts.length * Integer.BYTES));
+        for (int count : counts) {
+            buffer.putInt(count);
+        }
+        batch.put(key(EPICS, epic.id), buffer.array());
+    }
+
+    private static Status epicStatus(int[] counts) {
+        int size = 0;
+        for (int count : counts) {
+            size += count;
+        }
+        if (size == counts[Status.NEW.ordinal()]) {
+            return Status.NEW;
+        }
+        return size == counts[Status.DONE.ordinal()] ? Status.DONE : Status.IN_PROGRESS;
+    }
+
+    private void putTimed(LsmStore.Batch batch, AbstractTimeTask task) {
+        Row row = Row.of(task);
+        batch.put(key(row.type == TaskType.TASK ? TASKS : SUBTASKS, row.id), encode(row));
+        batch.put(key(TIMELINE, row.startTime, row.id), ByteBuffer.allocate(1 + Long.BYTES)
+                .put((byte) row.type.ordinal()).putLong(row.startTime + row.duration).array());
+        countDuration(row.duration, 1);
+    }
+
+    private void deleteTimed(LsmStore.Batch batch, Row row) {
+        batch.delete(key(TIMELINE, row.startTime, row.id));
+        countDuration(row.duration, -1);
+    }
+
+    private void countDuration(long duration, long delta) {
+        pendingDurations.merge(duration, delta, Long::sum);
+    }
+
+    private LsmStore.Batch batch() {
+        pendingDurations.clear();
+        return new LsmStore.Batch();
+    }
+
+    private static LsmStore.Batch putNextId(LsmStore.Batch batch, long id) {
+        return batch.put(NEXT_ID, ByteBuffer.allocate(Long.BYTES).putLong(id + 1).array());
+    }
+
+    private LsmStore.Batch putHistory(LsmStore.Batch batch) {
+        return batch.put(HISTORY, CSVFormatter.toString(history).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Row row(TaskType type, Long id) {
+        if (id == null) {
+            return null;
+        }
+        byte space = switch (type) {
+            case TASK -> TASKS;
+            case EPIC -> EPICS;
+            case SUBTASK -> SUBTASKS;
+        };
+        byte[] value = get(key(space, id));
+        return value == null ? null : decode(id, type, value);
+    }
+
+    private byte[] get(byte[] key) {
+        try {
+            return store.get(key);
+        } catch (IOException exception) {
+            throw new ManagerLoadException(exception);
+        }
+    }
+
+    private void scan(byte[] from, byte[] to, BiPredicate<byte[], byte[]> visitor) {
+        try {
+            store.scan(from, to, visitor);
+        } catch (IOException exception) {
+            throw new ManagerLoadException(exception);
+        }
+    }
+
+    private void write(LsmStore.Batch batch) {
+        Map<Long, Long> counts = new HashMap<>();
+        pendingDurations.forEach((duration, delta) -> {
+            if (delta != 0) {
+                long count = durations.getOrDefault(duration, 0L) + delta;
+                counts.put(duration, count);
+                if (count > 0) {
+                    batch.put(key(DURATIONS, duration), ByteBuffer.allocate(Long.BYTES).putLong(count).array());
+                } else {
+                    batch.delete(key(DURATIONS, duration));
+                }
+            }
+        });
+        pendingDurations.clear();
+        try {
+            store.write(batch);
+        } catch (IOException exception) {
+            throw new ManagerSaveException(exception);
+        }
+        counts.forEach((duration, count) -> {
+            if (count > 0) {
+                durations.put(duration, count);
+            } else {
+                durations.remove(duration);
+            }
+        });
+    }
+
+    private static byte[] space(int space) {
+        return new byte[]{(byte) space};
+    }
+
+    private static byte[] key(byte space, long first) {
+        return ByteBuffer.allocate(1 + Long.BYTES).put(space).putLong(first ^ Long.MIN_VALUE).array();
+    }
+
+    private static byte[] key(byte space, long first, long second) {
+        return ByteBuffer.allocate(1 + 2 * Long.BYTES).put(space)
+                .putLong(first ^ Long.MIN_VALUE).putLong(second ^ Long.MIN_VALUE).array();
+    }
+
+    private static long first(byte[] key) {
+        return ByteBuffer.wrap(key).getLong(1) ^ Long.MIN_VALUE;
+    }
+
+    private static long second(byte[] key) {
+        return ByteBuffer.wrap(key).getLong(1 + Long.BYTES) ^ Long.MIN_VALUE;
+    }
+
+    private static long saturatedSubtract(long value, long delta) {
+        long result = value - delta;
+        return ((value ^ delta) & (value ^ result)) < 0 ? Long.MIN_VALUE : result;
+    }
+
+    private static byte[] status(Status status) {
+        return new byte[]{(byte) status.ordinal()};
+    }
+
+    private static byte[] encode(Row row) {
+        return row.writeBinary(ByteBuffer.allocate(row.binarySize())).array();
+    }
+
+    private static Row decode(long id, TaskType type, byte[] value) {
+        return Row.readBinary(id, type, ByteBuffer.wrap(value));
+    }
+
+    private static class EpicRow {
+        private final Row row;
+        private final int[] counts;
+
+        private EpicRow(Row row, int[] counts) {
+            this.row = row;
+            this.counts = counts;
+        }
+    }
+}
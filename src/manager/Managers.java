@@ -1,5 +1,8 @@
 package manager;
 
+import task.AbstractTask;
+import task.AbstractTimeTask;
+
 import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Path;
@@ -17,7 +20,27 @@ public class Managers {
         return new SequentialIdGenerator();
     }
 
+    public static IdGenerator getDefaultIdGenerator(long firstId) {
+        return new SequentialIdGenerator(firstId);
+    }
+
+    public static IntervalTree<AbstractTimeTask> getDefaultTimeIndex() {
+        return new IntervalTree<>(
+                AbstractTask::getId,
+                AbstractTimeTask::getStartEpochSecond,
+                AbstractTimeTask::getEndEpochSecond
+        );
+    }
+
     public static TaskManager getFiled(Path path) {
         return new FileBackedTasksManager(path);
     }
+
+    public static TaskManager getLsm(Path directory) {
+        return new LsmTaskManager(directory);
+    }
+
+    public static TaskManager getPaged(Path path) {
+        return new PagedTaskManager(path);
+    }
 }
@@ -0,0 +1,102 @@
+package manager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class PageCache {
+    static final int ENTRY_OVERHEAD = 80;
+
+    private final long capacity;
+    private final LongHashMap<Entry> index = new LongHashMap<>();
+    private final List<Entry> clock = new ArrayList<>();
+    private int hand;
+    private long size;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    PageCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+    byte[] get(long id) {
+        Entry entry = index.get(id);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        entry.referenced = true;
+        return entry.value;
+    }
+
+    void put(long id, byte[] value) {
+        remove(id);
+        long weight = weight(value);
+        if (weight > capacity) {
+            return;
+        }
+        while (size + weight > capacity) {
+            evict();
+        }
+        Entry entry = new Entry(id, value, clock.size());
+        clock.add(entry);
+        index.put(id, entry);
+        size += weight;
+    }
+
+    void remove(long id) {
+        Entry entry = index.remove(id);
+        if (entry != null) {
+            unlink(entry);
+        }
+    }
+
+    CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, index.size(), size, capacity);
+    }
+
+    private void evict() {
+        while (true) {
+            if (hand >= clock.size()) {
+                hand = 0;
+            }
+            Entry entry = clock.get(hand);
+            if (entry.referenced) {
+                entry.referenced = false;
+                hand++;
+            } else {
+                index.remove(entry.id);
+                unlink(entry);
+                evictions++;
+                return;
+            }
+        }
+    }
+
+    private void unlink(Entry entry) {
+        Entry last = clock.remove(clock.size() - 1);
+        if (last != entry) {
+            last.position = entry.position;
+            clock.set(entry.position, last);
+        }
+        size -= weight(entry.value);
+    }
+
+    private static long weight(byte[] value) {
+        return value.length + ENTRY_OVERHEAD;
+    }
+
+    private static class Entry {
+        private final long id;
+        private final byte[] value;
+        private int position;
+        private boolean referenced;
+
+        private Entry(long id, byte[] value, int position) {
+            this.id = id;
+            this.value = value;
+            this.position = position;
+        }
+    }
+}
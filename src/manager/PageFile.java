@@ -0,0 +1,178 @@
+package manager;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+class PageFile implements Closeable {
+    static final byte DELETE = 3;
+    static final byte HISTORY = 4;
+    static final int RECORD_HEADER = 1 + Long.BYTES + Integer.BYTES;
+    private static final int FRAME_HEADER = 2 * Integer.BYTES;
+
+    private final Path path;
+    private final Durability durability;
+    private FileChannel channel;
+    private long size;
+
+    PageFile(Path path, Durability durability) throws IOException {
+        if (durability == Durability.GROUP || durability == Durability.ASYNC) {
+            throw new IllegalArgumentException(durability + " durability requires the journal mode");
+        }
+        this.path = path;
+        this.durability = durability;
+        this.channel = open(path);
+        this.size = channel.size();
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    long size() {
+        return size;
+    }
+
+    void replay(Visitor visitor) throws IOException {
+        long end = 0;
+        InputStream stream = new BufferedInputStream(Channels.newInputStream(channel.position(0)), 1 << 16);
+        DataInputStream in = new DataInputStream(stream);
+        CRC32 crc = new CRC32();
+        try {
+            while (end + FRAME_HEADER <= size) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length < 0 || length > size - end - FRAME_HEADER) {
+                    break;
+                }
+                byte[] frame = new byte[length];
+                in.readFully(frame);
+                crc.reset();
+                crc.update(frame);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(frame);
+                while (buffer.hasRemaining()) {
+                    byte kind = buffer.get();
+                    long id = buffer.getLong();
+                    byte[] payload = new byte[buffer.getInt()];
+                    long location = end + FRAME_HEADER + buffer.position();
+                    buffer.get(payload);
+                    visitor.accept(kind, id, location, payload);
+                }
+                end += FRAME_HEADER + length;
+            }
+        } catch (EOFException ignored) {
+        }
+        if (end < size) {
+            channel.truncate(end);
+            size = end;
+        }
+    }
+
+    void append(Batch batch, Visitor visitor) throws IOException {
+        if (batch.kinds.isEmpty()) {
+            return;
+        }
+        int length = 0;
+        for (byte[] payload : batch.payloads) {
+            length += RECORD_HEADER + payload.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(FRAME_HEADER + length);
+        buffer.putInt(length).putInt(0);
+        for (int i = 0; i < batch.kinds.size(); i++) {
+            byte[] payload = batch.payloads.get(i);
+            buffer.put(batch.kinds.get(i)).putLong(batch.ids.get(i)).putInt(payload.length).put(payload);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), FRAME_HEADER, length);
+        buffer.putInt(Integer.BYTES, (int) crc.getValue());
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, size + buffer.position());
+            }
+            if (durability == Durability.FSYNC) {
+                channel.force(false);
+            }
+        } catch (IOException exception) {
+            try {
+                channel.truncate(size);
+            } catch (IOException suppressed) {
+                exception.addSuppressed(suppressed);
+            }
+            throw exception;
+        }
+        long location = size + FRAME_HEADER;
+        size += FRAME_HEADER + length;
+        for (int i = 0; i < batch.kinds.size(); i++) {
+            byte[] payload = batch.payloads.get(i);
+            visitor.accept(batch.kinds.get(i), batch.ids.get(i), location + RECORD_HEADER, payload);
+            location += RECORD_HEADER + payload.length;
+        }
+    }
+
+    byte[] read(long location, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, location + buffer.position()) < 0) {
+                throw new EOFException("record at " + location + " is truncated");
+            }
+        }
+        return buffer.array();
+    }
+
+    void replaceWith(PageFile compacted) throws IOException {
+        compacted.close();
+        channel.close();
+        Files.move(compacted.path, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        channel = open(path);
+        size = channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    interface Visitor {
+        void accept(byte kind, long id, long location, byte[] payload);
+    }
+
+    static class Batch {
+        private final List<Byte> kinds = new ArrayList<>();
+        private final List<Long> ids = new ArrayList<>();
+        private final List<byte[]> payloads = new ArrayList<>();
+        private int length;
+
+        Batch put(byte kind, long id, byte[] payload) {
+            kinds.add(kind);
+            ids.add(id);
+            payloads.add(payload);
+            length += RECORD_HEADER + payload.length;
+            return this;
+        }
+
+        Batch delete(long id) {
+            return put(DELETE, id, new byte[0]);
+        }
+
+        int length() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package manager;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+@Builder(toBuilder = true)
+public class PagedOptions {
+    @Builder.Default
+    private final long cacheSize = 16L << 20;
+    @Builder.Default
+    private final long compactionSize = 1L << 20;
+    @Builder.Default
+    private final Durability durability = Durability.WRITE;
+    @Builder.Default
+    private final Duration historyFlushDelay = Duration.ofSeconds(1);
+
+    public static PagedOptions defaults() {
+        return builder().build();
+    }
+}
@@ -0,0 +1,740 @@
+package manager;
+
+import manager.exception.ManagerLoadException;
+import manager.exception.ManagerSaveException;
+import task.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class PagedTaskManager implements TaskManager, Closeable {
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+    private static final int COMPACTION_BATCH = 1 << 20;
+
+    private final Path data;
+    private final PagedOptions options;
+    private final PageFile file;
+    private final PageCache cache;
+    private final HistoryManager history;
+    private final IdGenerator generator;
+    private final LongHashMap<Slot> tasks = new LongHashMap<>();
+    private final LongHashMap<Slot> epics = new LongHashMap<>();
+    private final LongHashMap<Slot> subtasks = new LongHashMap<>();
+    private final LongHashMap<LongHashMap<Slot>> members = new LongHashMap<>();
+    private final IntervalTree<Slot> timeline = new IntervalTree<>(slot -> slot.id, slot -> slot.start, slot -> slot.end);
+    private final LiveEpics liveEpics = new LiveEpics();
+    private Slot historySlot;
+    private long garbage;
+    private long lastId;
+    private ScheduledExecutorService background;
+    private ScheduledFuture<?> historyFlush;
+    private boolean historyDirty;
+
+    public PagedTaskManager(Path data) {
+        this(data, PagedOptions.defaults());
+    }
+
+    public PagedTaskManager(Path data, PagedOptions options) {
+        this.data = data;
+        this.options = options;
+        this.cache = new PageCache(options.getCacheSize());
+        try {
+            this.file = new PageFile(data, options.getDurability());
+        } catch (IOException exception) {
+            throw new ManagerLoadException(exception);
+        }
+        try {
+            file.replay(this::index);
+            this.generator = Managers.getDefaultIdGenerator(lastId + 1);
+            this.history = Managers.getDefaultHistory();
+            if (historySlot != null) {
+                ByteBuffer ids = ByteBuffer.wrap(file.read(historySlot.location, historySlot.length));
+                for (int i = ids.capacity() / Long.BYTES - 1; i >= 0; i--) {
+                    history.add(find(ids.getLong(i * Long.BYTES)));
+                }
+            }
+        } catch (IOException | RuntimeException exception) {
+            try {
+                file.close();
+            } catch (IOException suppressed) {
+                exception.addSuppressed(suppressed);
+            }
+            throw new ManagerLoadException(exception);
+        }
+    }
+
+    @Override
+    public synchronized List<Task> getTasksList() {
+        List<Task> list = new ArrayList<>(tasks.size());
+        for (Slot slot : tasks.values()) {
+            list.add(row(TaskType.TASK, slot).toTask());
+        }
+        return list;
+    }
+
+    @Override
+    public synchronized void clearTasks() {
+        PageFile.Batch batch = new PageFile.Batch();
+        tasks.forEachKey(id -> {
+            batch.delete(id);
+            history.remove(id);
+        });
+        write(putHistory(batch));
+    }
+
+    @Override
+    public synchronized Task getTaskById(Long id) {
+        Slot slot = slot(tasks, id);
+        if (slot == null) {
+            return null;
+        }
+        Task task = row(TaskType.TASK, slot).toTask();
+        history.add(task);
+        historyChanged();
+        return task;
+    }
+
+    @Override
+    public synchronized Task addNewTask(Task task) {
+        if (overlaps(task, null)) {
+            return null;
+        }
+        task.setId(generator.generateId());
+        write(put(new PageFile.Batch(), Row.of(task)));
+        return task;
+    }
+
+    @Override
+    public synchronized Task updateTask(Task task) {
+        Slot current = slot(tasks, task.getId());
+        if (current == null || overlaps(task, current)) {
+            return null;
+        }
+        Task previous = row(TaskType.TASK, current).toTask();
+        write(put(new PageFile.Batch(), Row.of(task)));
+        return previous;
+    }
+
+    @Override
+    public synchronized Task removeTaskById(Long id) {
+        history.remove(id);
+        Slot slot = slot(tasks, id);
+        if (slot == null) {
+            return null;
+        }
+        Task task = row(TaskType.TASK, slot).toTask();
+        write(putHistory(new PageFile.Batch().delete(id)));
+        return task;
+    }
+
+
+    @Override
+    public synchronized List<Subtask> getSubtasksList() {
+        LongHashMap<Subtask> materialized = new LongHashMap<>();
+        List<Subtask> list = new ArrayList<>(subtasks.size());
+        subtasks.forEachKey(id -> list.add(subtask(id, materialized)));
+        return list;
+    }
+
+    @Override
+    public synchronized void clearSubtasks() {
+        PageFile.Batch batch = new PageFile.Batch();
+        subtasks.forEachKey(id -> {
+            batch.delete(id);
+            history.remove(id);
+        });
+        for (Slot slot : epics.values()) {
+            EpicRecord epic = epic(slot);
+            if (!epic.isEmpty() || epic.row.status != Status.NEW) {
+                put(batch, epic.counted(null, null, new int[STATUSES.length]));
+            }
+        }
+        write(putHistory(batch));
+        liveEpics.forEach(Epic::clear);
+    }
+
+    @Override
+    public synchronized Subtask getSubtaskById(Long id) {
+        if (slot(subtasks, id) == null) {
+            return null;
+        }
+        Subtask subtask = subtask(id, new LongHashMap<>());
+        history.add(subtask);
+        historyChanged();
+        return subtask;
+    }
+
+    @Override
+    public synchronized Subtask addNewSubtask(Subtask subtask) {
+        if (overlaps(subtask, null)) {
+            return null;
+        }
+        Epic parent = subtask.getParentEpic();
+        EpicRecord epic = epic(parent.getId());
+        if (epic == null) {
+            return null;
+        }
+        subtask.setId(generator.generateId());
+        EpicRecord updated = epic.counted(null, subtask.getStatus(), epic.counts.clone());
+        write(put(put(new PageFile.Batch(), Row.of(subtask)), updated));
+        parent.setStatus(updated.row.status);
+        return subtask;
+    }
+
+    @Override
+    public synchronized Subtask updateSubtask(Subtask subtask) {
+        Slot current = slot(subtasks, subtask.getId());
+        if (current == null || overlaps(subtask, current)) {
+            return null;
+        }
+        Epic parent = subtask.getParentEpic();
+        EpicRecord epic = epic(parent.getId());
+        if (epic == null) {
+            return null;
+        }
+        Row row = row(TaskType.SUBTASK, current);
+        Subtask previous = subtask(current.id, new LongHashMap<>());
+        PageFile.Batch batch = put(new PageFile.Batch(), Row.of(subtask));
+        EpicRecord updated;
+        if (row.epic != epic.row.id) {
+            EpicRecord previousEpic = epic(row.epic);
+            if (previousEpic != null) {
+                put(batch, previousEpic.counted(row.status, null, previousEpic.counts.clone()));
+            }
+            updated = epic.counted(null, subtask.getStatus(), epic.counts.clone());
+        } else {
+            updated = epic.counted(row.status, subtask.getStatus(), epic.counts.clone());
+        }
+        write(put(batch, updated));
+        parent.setStatus(updated.row.status);
+        return previous;
+    }
+
+    @Override
+    public synchronized Subtask removeSubtaskById(Long id) {
+        history.remove(id);
+        Slot slot = slot(subtasks, id);
+        if (slot == null) {
+            return null;
+        }
+        Row row = row(TaskType.SUBTASK, slot);
+        Subtask subtask = subtask(id, new LongHashMap<>());
+        EpicRecord current = epic(row.epic);
+        EpicRecord epic = current.counted(row.status, null, current.counts.clone());
+        write(putHistory(put(new PageFile.Batch().delete(id), epic)));
+        subtask.getParentEpic().removeSubtask(subtask);
+        subtask.getParentEpic().setStatus(epic.row.status);
+        Epic live = liveEpics.get(row.epic);
+        if (live != null) {
+            live.getSubtasks().stream().filter(s -> id.equals(s.getId())).findFirst()
+                    .ifPresent(live::removeSubtask);
+            live.setStatus(epic.row.status);
+        }
+        return subtask;
+    }
+
+
+    @Override
+    public synchronized List<Epic> getEpicsList() {
+        List<Epic> list = new ArrayList<>(epics.size());
+        for (Slot slot : epics.values()) {
+            list.add(epic(epic(slot), null));
+        }
+        return list;
+    }
+
+    @Override
+    public synchronized void clearEpics() {
+        PageFile.Batch batch = new PageFile.Batch();
+        epics.forEachKey(id -> {
+            batch.delete(id);
+            history.remove(id);
+        });
+        subtasks.forEachKey(id -> {
+            batch.delete(id);
+            history.remove(id);
+        });
+        write(putHistory(batch));
+        liveEpics.clear();
+    }
+
+    @Override
+    public synchronized Epic getEpicById(Long id) {
+        EpicRecord record = epic(id);
+        if (record == null) {
+            return null;
+        }
+        Epic epic = epic(record, null);
+        epic.getSubtasks().forEach(history::add);
+        history.add(epic);
+        historyChanged();
+        return epic;
+    }
+
+    @Override
+    public synchronized Epic addNewEpic(Epic epic) {
+        epic.setId(generator.generateId());
+        epic.setStatus(Status.NEW);
+        write(put(new PageFile.Batch(), new EpicRecord(Row.of(epic), new int[STATUSES.length])));
+        liveEpics.track(epic);
+        return epic;
+    }
+
+    @Override
+    public synchronized Epic updateEpic(Epic epic) {
+        EpicRecord current = epic(epic.getId());
+        if (current == null) {
+            return null;
+        }
+        Epic previous = epic(current, null);
+        epic.setStatus(current.row.status);
+        write(put(new PageFile.Batch(), new EpicRecord(Row.of(epic), current.counts)));
+        liveEpics.track(epic);
+        return previous;
+    }
+
+    @Override
+    public synchronized Epic removeEpicById(Long id) {
+        history.remove(id);
+        EpicRecord record = epic(id);
+        if (record == null) {
+            return null;
+        }
+        Epic epic = epic(record, null);
+        PageFile.Batch batch = new PageFile.Batch();
+        for (long subtask : memberIds(id)) {
+            batch.delete(subtask);
+            history.remove(subtask);
+        }
+        write(putHistory(batch.delete(id)));
+        epic.clear();
+        Epic live = liveEpics.get(id);
+        if (live != null) {
+            live.clear();
+        }
+        liveEpics.remove(id);
+        return epic;
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasksByEpicId(Long id) {
+        EpicRecord record = epic(id);
+        return record == null ? null : epic(record, null).getSubtasks();
+    }
+
+    @Override
+    public synchronized List<AbstractTask> getHistory() {
+        List<AbstractTask> list = history.getHistory();
+        LongHashMap<Subtask> materialized = new LongHashMap<>();
+        for (int i = 0; i < list.size(); i++) {
+            AbstractTask task = list.get(i);
+            list.set(i, switch (task.getType()) {
+                case TASK -> row(TaskType.TASK, tasks.get(task.getId())).toTask();
+                case EPIC -> epic(epic(task.getId()), materialized);
+                case SUBTASK -> subtask(task.getId(), materialized);
+            });
+        }
+        return list;
+    }
+
+    @Override
+    public synchronized List<AbstractTimeTask> getPrioritizedTasks() {
+        return materialize(timeline);
+    }
+
+    @Override
+    public Iterable<AbstractTimeTask> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        Iterable<Slot> window = timeline.range(AbstractTimeTask.toEpochSecond(from), AbstractTimeTask.toEpochSecond(to));
+        return () -> {
+            synchronized (this) {
+                LongHashMap<Subtask> materialized = new LongHashMap<>();
+                return new LockedIterator<>(this, window.iterator(), slot -> materialize(slot, materialized));
+            }
+        };
+    }
+
+    public synchronized CacheStats cacheStats() {
+        return cache.stats();
+    }
+
+    public synchronized void compact() {
+        Path temporary = data.resolveSibling(data.getFileName() + ".tmp");
+        List<Slot> moved = new ArrayList<>(tasks.size() + epics.size() + subtasks.size() + 1);
+        long[] locations = new long[tasks.size() + epics.size() + subtasks.size() + 1];
+        int[] count = new int[1];
+        PageFile.Visitor relocate = (kind, id, location, payload) -> locations[count[0]++] = location;
+        try {
+            Files.deleteIfExists(temporary);
+            PageFile compacted = new PageFile(temporary, options.getDurability());
+            try {
+                PageFile.Batch batch = new PageFile.Batch();
+                for (TaskType type : TYPES) {
+                    for (Slot slot : slots(type).values()) {
+                        batch.put((byte) type.ordinal(), slot.id, file.read(slot.location, slot.length));
+                        moved.add(slot);
+                        if (batch.length() >= COMPACTION_BATCH) {
+                            compacted.append(batch, relocate);
+                            batch = new PageFile.Batch();
+                        }
+                    }
+                }
+                if (historySlot != null) {
+                    batch.put(PageFile.HISTORY, 0, file.read(historySlot.location, historySlot.length));
+                    moved.add(historySlot);
+                }
+                compacted.append(batch, relocate);
+            } catch (IOException exception) {
+                compacted.close();
+                Files.deleteIfExists(temporary);
+                throw exception;
+            }
+            file.replaceWith(compacted);
+        } catch (IOException exception) {
+            throw new ManagerSaveException(exception);
+        }
+        for (int i = 0; i < moved.size(); i++) {
+            moved.get(i).location = locations[i];
+        }
+        garbage = 0;
+    }
+
+    public synchronized void flush() {
+        if (historyFlush != null) {
+            historyFlush.cancel(false);
+        }
+        flushHistory();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            if (background != null) {
+                background.shutdown();
+            }
+            file.close();
+        }
+    }
+
+    private void historyChanged() {
+        historyDirty = true;
+        if (options.getHistoryFlushDelay().isZero()) {
+            flushHistory();
+        } else if (historyFlush == null || historyFlush.isDone()) {
+            historyFlush = background().schedule(
+                    this::flushHistory, options.getHistoryFlushDelay().toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized void flushHistory() {
+        if (historyDirty) {
+            historyDirty = false;
+            try {
+                write(putHistory(new PageFile.Batch()));
+            } catch (ManagerSaveException exception) {
+                historyDirty = true;
+                throw exception;
+            }
+        }
+    }
+
+    private ScheduledExecutorService background() {
+        if (background == null) {
+            background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "paged-history-" + data.getFileName());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return background;
+    }
+
+    private void index(byte kind, long id, long location, byte[] payload) {
+        lastId = Math.max(lastId, id);
+        if (kind == PageFile.DELETE) {
+            garbage += PageFile.RECORD_HEADER;
+            unindex(id);
+        } else if (kind == PageFile.HISTORY) {
+            if (historySlot != null) {
+                garbage += PageFile.RECORD_HEADER + historySlot.length;
+            }
+            historySlot = new Slot(id, 0, 0, 0, location, payload.length);
+        } else {
+            TaskType type = TYPES[kind];
+            Slot slot;
+            if (type == TaskType.EPIC) {
+                slot = new Slot(id, 0, 0, 0, location, payload.length);
+            } else {
+                ByteBuffer buffer = ByteBuffer.wrap(payload);
+                long start = buffer.getLong(1 + Long.BYTES);
+                slot = new Slot(id, buffer.getLong(1), start, start + buffer.getLong(1 + 2 * Long.BYTES),
+                        location, payload.length);
+                timeline.add(slot);
+            }
+            Slot previous = slots(type).put(id, slot);
+            if (previous != null) {
+                garbage += PageFile.RECORD_HEADER + previous.length;
+                if (type != TaskType.EPIC) {
+                    timeline.remove(previous);
+                }
+                if (type == TaskType.SUBTASK) {
+                    leave(previous);
+                }
+            }
+            if (type == TaskType.SUBTASK) {
+                LongHashMap<Slot> epicMembers = members.get(slot.epic);
+                if (epicMembers == null) {
+                    epicMembers = new LongHashMap<>();
+                    members.put(slot.epic, epicMembers);
+                }
+                epicMembers.put(id, slot);
+            }
+        }
+    }
+
+    private void unindex(long id) {
+        for (TaskType type : TYPES) {
+            Slot slot = slots(type).remove(id);
+            if (slot != null) {
+                garbage += PageFile.RECORD_HEADER + slot.length;
+                timeline.remove(slot);
+                if (type == TaskType.SUBTASK) {
+                    leave(slot);
+                }
+            }
+        }
+        cache.remove(id);
+    }
+
+    private void leave(Slot subtask) {
+        LongHashMap<Slot> epicMembers = members.get(subtask.epic);
+        if (epicMembers != null && epicMembers.remove(subtask.id) != null && epicMembers.isEmpty()) {
+            members.remove(subtask.epic);
+        }
+    }
+
+    private long[] memberIds(long epic) {
+        LongHashMap<Slot> epicMembers = members.get(epic);
+        if (epicMembers == null) {
+            return new long[0];
+        }
+        long[] ids = new long[epicMembers.size()];
+        int[] count = new int[1];
+        epicMembers.forEachKey(id -> ids[count[0]++] = id);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private void stored(byte kind, long id, long location, byte[] payload) {
+        index(kind, id, location, payload);
+        if (kind != PageFile.DELETE && kind != PageFile.HISTORY) {
+            cache.put(id, payload);
+        }
+    }
+
+    private void write(PageFile.Batch batch) {
+        try {
+            file.append(batch, this::stored);
+        } catch (IOException exception) {
+            throw new ManagerSaveException(exception);
+        }
+        if (file.size() >= options.getCompactionSize() && 2 * garbage >= file.size()) {
+            compact();
+        }
+    }
+
+    private PageFile.Batch put(PageFile.Batch batch, Row row) {
+        return batch.put((byte) row.type.ordinal(), row.id,
+                row.writeBinary(ByteBuffer.allocate(row.binarySize())).array());
+    }
+
+    private PageFile.Batch put(PageFile.Batch batch, EpicRecord epic) {
+        return batch.put((byte) TaskType.EPIC.ordinal(), epic.row.id, epic.encode());
+    }
+
+    private PageFile.Batch putHistory(PageFile.Batch batch) {
+        List<AbstractTask> list = history.getHistory();
+        ByteBuffer ids = ByteBuffer.allocate(list.size() * Long.BYTES);
+        list.forEach(task -> ids.putLong(task.getId()));
+        return batch.put(PageFile.HISTORY, 0, ids.array());
+    }
+
+    private LongHashMap<Slot> slots(TaskType type) {
+        return switch (type) {
+            case TASK -> tasks;
+            case EPIC -> epics;
+            case SUBTASK -> subtasks;
+        };
+    }
+
+    private static Slot slot(LongHashMap<Slot> slots, Long id) {
+        return id == null ? null : slots.get(id);
+    }
+
+    private byte[] payload(Slot slot) {
+        byte[] payload = cache.get(slot.id);
+        if (payload == null) {
+            try {
+                payload = file.read(slot.location, slot.length);
+            } catch (IOException exception) {
+                throw new ManagerLoadException(exception);
+            }
+            cache.put(slot.id, payload);
+        }
+        return payload;
+    }
+
+    private Row row(TaskType type, Slot slot) {
+        return Row.readBinary(slot.id, type, ByteBuffer.wrap(payload(slot)));
+    }
+
+    private EpicRecord epic(Slot slot) {
+        return EpicRecord.read(slot.id, ByteBuffer.wrap(payload(slot)));
+    }
+
+    private EpicRecord epic(Long id) {
+        Slot slot = slot(epics, id);
+        return slot == null ? null : epic(slot);
+    }
+
+    private Epic epic(EpicRecord record, LongHashMap<Subtask> materialized) {
+        Epic epic = record.row.toEpic();
+        for (long id : memberIds(record.row.id)) {
+            Subtask subtask = row(TaskType.SUBTASK, subtasks.get(id)).toSubtask(epic);
+            if (materialized != null) {
+                materialized.put(id, subtask);
+            }
+        }
+        return epic;
+    }
+
+    private Subtask subtask(long id, LongHashMap<Subtask> materialized) {
+        Subtask subtask = materialized.get(id);
+        if (subtask == null) {
+            epic(epic(row(TaskType.SUBTASK, subtasks.get(id)).epic), materialized);
+            subtask = materialized.get(id);
+        }
+        return subtask;
+    }
+
+    private AbstractTask find(long id) {
+        Slot slot = tasks.get(id);
+        if (slot != null) {
+            return row(TaskType.TASK, slot).toTask();
+        }
+        slot = epics.get(id);
+        if (slot != null) {
+            return epic(epic(slot), null);
+        }
+        return subtasks.containsKey(id) ? subtask(id, new LongHashMap<>()) : null;
+    }
+
+    private boolean overlaps(AbstractTimeTask task, Slot except) {
+        return timeline.overlaps(new Slot(0, 0, task.getStartEpochSecond(), task.getEndEpochSecond(), 0, 0), except);
+    }
+
+    private List<AbstractTimeTask> materialize(Iterable<Slot> slots) {
+        LongHashMap<Subtask> materialized = new LongHashMap<>();
+        List<AbstractTimeTask> list = new ArrayList<>();
+        for (Slot slot : slots) {
+            list.add(materialize(slot, materialized));
+        }
+        return list;
+    }
+
+    private AbstractTimeTask materialize(Slot slot, LongHashMap<Subtask> materialized) {
+        return tasks.get(slot.id) == slot ? row(TaskType.TASK, slot).toTask() : subtask(slot.id, materialized);
+    }
+
+    private static class Slot {
+        private final long id;
+        private final long epic;
+        private final long start;
+        private final long end;
+        private final int length;
+        private long location;
+
+        private Slot(long id, long epic, long start, long end, long location, int length) {
+            this.id = id;
+            this.epic = epic;
+            this.start = start;
+            this.end = end;
+            this.location = location;
+            this.length = length;
+        }
+    }
+
+    private static class EpicRecord {
+        private final Row row;
+        private final int[] counts;
+
+        private EpicRecord(Row row, int[] counts) {
+            this.row = row;
+            this.counts = counts;
+        }
+
+        private static EpicRecord read(long id, ByteBuffer buffer) {
+            Row row = Row.readBinary(id, TaskType.EPIC, buffer);
+            int[] counts = new int[STATUSES.length];
+            if (buffer.remaining() != counts.length * Integer.BYTES) {
+                throw new ManagerLoadException(new IOException("epic " + id + " has " + buffer.remaining()
+                        + " bytes of status counts, expected " + counts.length * Integer.BYTES));
+            }
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buffer.getInt();
+            }
+            return new EpicRecord(row, counts);
+        }
+
+        private byte[] encode() {
+            ByteBuffer buffer = row.writeBinary(ByteBuffer.allocate(row.binarySize() + counts.length * Integer.BYTES));
+            for (int count : counts) {
+                buffer.putInt(count);
+            }
+            return buffer.array();
+        }
+
+        private boolean isEmpty() {
+            for (int count : counts) {
+                if (count != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private EpicRecord counted(Status removed, Status added, int[] counts) {
+            if (removed != null) {
+                counts[removed.ordinal()]--;
+            }
+            if (added != null) {
+                counts[added.ordinal()]++;
+            }
+            int size = 0;
+            for (int count : counts) {
+                size += count;
+            }
+            Status status = Status.IN_PROGRESS;
+            if (size == counts[Status.NEW.ordinal()]) {
+                status = Status.NEW;
+            } else if (size == counts[Status.DONE.ordinal()]) {
+                status = Status.DONE;
+            }
+            return new EpicRecord(new Row(row.id, TaskType.EPIC, row.name(), status, row.description(), 0, 0, 0),
+                    counts);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package manager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+class ParallelCsvReader {
+    static final int MIN_SIZE = 2 << 20;
+    private static final int MIN_CHUNK = 256 << 10;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private ParallelCsvReader() {
+    }
+
+    static Snapshot read(ByteBuffer buffer, int parallelism) {
+        return read(buffer, parallelism, MIN_CHUNK);
+    }
+
+    static Snapshot read(ByteBuffer buffer, int parallelism, int minChunk) {
+        int end = buffer.limit();
+        while (end > 0 && isLineBreak(buffer.get(end - 1))) {
+            end--;
+        }
+        int lastLine = lineStart(buffer, end);
+        int dataEnd = end;
+        String historyLine = null;
+        if (lastLine > 0 && isEmptyLine(buffer, lastLine - 1)) {
+            historyLine = decode(buffer, lastLine, end, new byte[end - lastLine]);
+            dataEnd = lastLine - 1;
+        }
+
+        ForkJoinPool pool = parallelism > 0 ? new ForkJoinPool(parallelism) : ForkJoinPool.commonPool();
+        int chunkCount = Math.max(1, Math.min(pool.getParallelism() * CHUNKS_PER_THREAD, dataEnd / minChunk));
+        int[] bounds = new int[chunkCount + 1];
+        for (int i = 1; i < chunkCount; i++) {
+            bounds[i] = Math.max(bounds[i - 1], nextLineStart(buffer, (int) ((long) dataEnd * i / chunkCount), dataEnd));
+        }
+        bounds[chunkCount] = dataEnd;
+        List<List<Row>> chunks = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            chunks.add(null);
+        }
+        try {
+            pool.invoke(new ParseTask(buffer, bounds, chunks, 0, chunkCount));
+        } finally {
+            if (pool != ForkJoinPool.commonPool()) {
+                pool.shutdown();
+            }
+        }
+
+        Snapshot snapshot = new Snapshot();
+        for (List<Row> rows : chunks) {
+            rows.forEach(snapshot::put);
+        }
+        if (historyLine != null) {
+            snapshot.setHistory(CSVFormatter.parseHistory(historyLine));
+        }
+        return snapshot;
+    }
+
+    private static List<Row> parse(ByteBuffer buffer, int from, int to) {
+        List<Row> rows = new ArrayList<>();
+        byte[] scratch = new byte[256];
+        int start = from;
+        while (start < to) {
+            int end = start;
+            while (end < to && buffer.get(end) != '\n') {
+                end++;
+            }
+            int next = end + 1;
+            if (end > start && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+            if (end > start) {
+                if (scratch.length < end - start) {
+                    scratch = new byte[Math.max(end - start, 2 * scratch.length)];
+                }
+                rows.add(Row.parse(decode(buffer, start, end, scratch)));
+            }
+            start = next;
+        }
+        return rows;
+    }
+
+    private static String decode(ByteBuffer buffer, int from, int to, byte[] scratch) {
+        buffer.get(from, scratch, 0, to - from);
+        return new String(scratch, 0, to - from, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isLineBreak(byte b) {
+        return b == '\n' || b == '\r';
+    }
+
+    private static int lineStart(ByteBuffer buffer, int position) {
+        while (position > 0 && buffer.get(position - 1) != '\n') {
+            position--;
+        }
+        return position;
+    }
+
+    private static int nextLineStart(ByteBuffer buffer, int position, int limit) {
+        while (position < limit && buffer.get(position - 1) != '\n') {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isEmptyLine(ByteBuffer buffer, int lineBreak) {
+        int end = lineBreak > 0 && buffer.get(lineBreak - 1) == '\r' ? lineBreak - 1 : lineBreak;
+        return end == 0 || buffer.get(end - 1) == '\n';
+    }
+
+    @SuppressWarnings("serial")
+    private static class ParseTask extends RecursiveAction {
+        private final ByteBuffer buffer;
+        private final int[] bounds;
+        private final List<List<Row>> chunks;
+        private final int from;
+        private final int to;
+
+        private ParseTask(ByteBuffer buffer, int[] bounds, List<List<Row>> chunks, int from, int to) {
+            this.buffer = buffer;
+            this.bounds = bounds;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                chunks.set(from, parse(buffer, bounds[from], bounds[from + 1]));
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ParseTask(buffer, bounds, chunks, from, middle),
+                    new ParseTask(buffer, bounds, chunks, middle, to));
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package manager;
+
+public enum PersistenceMode {
+    SNAPSHOT, JOURNAL, SEGMENTED
+}
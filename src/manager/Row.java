@@ -0,0 +1,179 @@
+package manager;
+
+import task.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+class Row {
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    final long id;
+    final TaskType type;
+    final Status status;
+    final long epic;
+    final long startTime;
+    final long duration;
+    private final String name;
+    private final String description;
+    private final DeferredText text;
+    private final int record;
+
+    Row(long id, TaskType type, String name, Status status, String description,
+        long epic, long startTime, long duration) {
+        this(id, type, name, status, description, epic, startTime, duration, null, 0);
+    }
+
+    Row(long id, TaskType type, Status status, long epic, long startTime, long duration,
+        DeferredText text, int record) {
+        this(id, type, null, status, null, epic, startTime, duration, text, record);
+    }
+
+    private Row(long id, TaskType type, String name, Status status, String description,
+                long epic, long startTime, long duration, DeferredText text, int record) {
+        this.id = id;
+        this.type = type;
+        this.name = name;
+        this.status = status;
+        this.description = description;
+        this.epic = epic;
+        this.startTime = startTime;
+        this.duration = duration;
+        this.text = text;
+        this.record = record;
+    }
+
+    String name() {
+        return text == null ? name : text.name(record);
+    }
+
+    String description() {
+        return text == null ? description : text.description(record);
+    }
+
+    static Row of(AbstractTask task) {
+        return switch (task.getType()) {
+            case TASK -> {
+                Task t = (Task) task;
+                yield new Row(t.getId(), TaskType.TASK, t.getName(), t.getStatus(), t.getDescription(),
+                        0, t.getStartEpochSecond(), t.getDurationSeconds());
+            }
+            case EPIC -> new Row(task.getId(), TaskType.EPIC, task.getName(), task.getStatus(),
+                    task.getDescription(), 0, 0, 0);
+            case SUBTASK -> {
+                Subtask s = (Subtask) task;
+                yield new Row(s.getId(), TaskType.SUBTASK, s.getName(), s.getStatus(), s.getDescription(),
+                        s.getParentEpic().getId(), s.getStartEpochSecond(), s.getDurationSeconds());
+            }
+        };
+    }
+
+    static Row parse(CharSequence line) {
+        CsvCodec.Fields fields = new CsvCodec.Fields(line);
+        long id = fields.nextLong();
+        TaskType type = fields.nextEnum(TYPES);
+        String name = fields.nextText();
+        Status status = fields.nextEnum(STATUSES);
+        String description = fields.nextText();
+        return switch (type) {
+            case TASK -> new Row(id, type, name, status, description, 0,
+                    fields.nextEpochSecond(), fields.nextDurationSeconds());
+            case EPIC -> new Row(id, type, name, status, description, 0, 0, 0);
+            case SUBTASK -> new Row(id, type, name, status, description, fields.nextLong(),
+                    fields.nextEpochSecond(), fields.nextDurationSeconds());
+        };
+    }
+
+    void write(Appendable out) throws IOException {
+        CsvCodec.writeRecord(out, id, type, name(), status, description(), epic, startTime, duration);
+    }
+
+    String toCsv() {
+        StringBuilder builder = new StringBuilder();
+        try {
+            write(builder);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return builder.toString();
+    }
+
+    int binarySize() {
+        return 1 + 3 * Long.BYTES + 2 * Integer.BYTES + textSize(name()) + textSize(description());
+    }
+
+    ByteBuffer writeBinary(ByteBuffer buffer) {
+        buffer.put((byte) status.ordinal()).putLong(epic).putLong(startTime).putLong(duration);
+        putText(buffer, name());
+        putText(buffer, description());
+        return buffer;
+    }
+
+    static Row readBinary(long id, TaskType type, ByteBuffer buffer) {
+        Status status = STATUSES[buffer.get()];
+        long epic = buffer.getLong();
+        long startTime = buffer.getLong();
+        long duration = buffer.getLong();
+        String name = text(buffer);
+        String description = text(buffer);
+        return new Row(id, type, name, status, description, epic, startTime, duration);
+    }
+
+    private static int textSize(String text) {
+        return text == null ? 0 : text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void putText(ByteBuffer buffer, String text) {
+        if (text == null) {
+            buffer.putInt(-1);
+        } else {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static String text(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    Task toTask() {
+        Task task = new Task(name, description, AbstractTimeTask.ofEpochSecond(startTime),
+                Duration.ofSeconds(duration));
+        task.setId(id);
+        task.setStatus(status);
+        deferText(task);
+        return task;
+    }
+
+    Epic toEpic() {
+        Epic epic = new Epic(name(), description());
+        epic.setId(id);
+        epic.setStatus(status);
+        return epic;
+    }
+
+    Subtask toSubtask(Epic parent) {
+        Subtask subtask = new Subtask(name, description, parent, AbstractTimeTask.ofEpochSecond(startTime),
+                Duration.ofSeconds(duration));
+        subtask.setId(id);
+        subtask.setStatus(status);
+        deferText(subtask);
+        return subtask;
+    }
+
+    private void deferText(AbstractTask task) {
+        if (text != null) {
+            task.deferText(text, record);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package manager;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+class SSTable implements Closeable {
+    static final String EXTENSION = ".sst";
+
+    private static final int MAGIC = 0x54544c53;
+    private static final int FOOTER_SIZE = 3 * Long.BYTES + Integer.BYTES;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final byte[][] firstKeys;
+    private final long[] offsets;
+    private final long indexOffset;
+    private final long entries;
+    private final long size;
+    private final BloomFilter bloom;
+
+    private SSTable(Path path, FileChannel channel, byte[][] firstKeys, long[] offsets, long indexOffset,
+                    long entries, long size, BloomFilter bloom) {
+        this.path = path;
+        this.size = size;
+        this.channel = channel;
+        this.firstKeys = firstKeys;
+        this.offsets = offsets;
+        this.indexOffset = indexOffset;
+        this.entries = entries;
+        this.bloom = bloom;
+    }
+
+    static SSTable write(Path path, Iterator<Map.Entry<byte[], byte[]>> source, long expectedEntries,
+                         LsmOptions options) throws IOException {
+        BloomFilter bloom = new BloomFilter((int) Math.min(expectedEntries, Integer.MAX_VALUE),
+                options.getBloomBitsPerKey());
+        ByteBuffer index = ByteBuffer.allocate(1 << 12);
+        int blocks = 0;
+        long entries = 0;
+        long offset = 0;
+        long blockStart = -1;
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            while (source.hasNext()) {
+                Map.Entry<byte[], byte[]> entry = source.next();
+                byte[] key = entry.getKey();
+                byte[] value = entry.getValue();
+                if (blockStart < 0 || offset - blockStart >= options.getBlockSize()) {
+                    blockStart = offset;
+                    index = ensure(index, 2 * Integer.BYTES + key.length + Long.BYTES);
+                    index.putInt(key.length).put(key).putLong(offset);
+                    blocks++;
+                }
+                bloom.add(key);
+                out.writeInt(key.length);
+                out.write(key);
+                if (value == LsmStore.TOMBSTONE) {
+                    out.writeInt(-1);
+                    offset += 2 * Integer.BYTES + key.length;
+                } else {
+                    out.writeInt(value.length);
+                    out.write(value);
+                    offset += 2 * Integer.BYTES + key.length + value.length;
+                }
+                entries++;
+            }
+            long indexOffset = offset;
+            out.writeInt(blocks);
+            out.write(index.array(), 0, index.position());
+            long bloomOffset = indexOffset + Integer.BYTES + index.position();
+            bloom.write(out);
+            out.writeLong(indexOffset);
+            out.writeLong(bloomOffset);
+            out.writeLong(entries);
+            out.writeInt(MAGIC);
+        }
+        if (options.getDurability() == Durability.FSYNC) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.force(false);
+            }
+        }
+        return open(path);
+    }
+
+    private static ByteBuffer ensure(ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        return grown.put(buffer.flip());
+    }
+
+    static SSTable open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < FOOTER_SIZE) {
+                throw new IOException("corrupted table " + path);
+            }
+            ByteBuffer footer = read(channel, size - FOOTER_SIZE, FOOTER_SIZE);
+            long indexOffset = footer.getLong();
+            long bloomOffset = footer.getLong();
+            long entries = footer.getLong();
+            if (footer.getInt() != MAGIC || indexOffset < 0 || bloomOffset < indexOffset
+                    || bloomOffset > size - FOOTER_SIZE) {
+                throw new IOException("corrupted table " + path);
+            }
+            ByteBuffer meta = read(channel, indexOffset, (int) (size - FOOTER_SIZE - indexOffset));
+            int blocks = meta.getInt();
+            byte[][] firstKeys = new byte[blocks][];
+            long[] offsets = new long[blocks];
+            for (int i = 0; i < blocks; i++) {
+                firstKeys[i] = new byte[meta.getInt()];
+                meta.get(firstKeys[i]);
+                offsets[i] = meta.getLong();
+            }
+            BloomFilter bloom = BloomFilter.read(meta);
+            return new SSTable(path, channel, firstKeys, offsets, indexOffset, entries, size, bloom);
+        } catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception instanceof IOException io ? io : new IOException("corrupted table " + path, exception);
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("unexpected end of table");
+            }
+        }
+        return buffer.flip();
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long entries() {
+        return entries;
+    }
+
+    long size() {
+        return size;
+    }
+
+    byte[] get(byte[] key) throws IOException {
+        if (!bloom.mightContain(key)) {
+            return null;
+        }
+        int block = blockOf(key);
+        if (block < 0) {
+            return null;
+        }
+        ByteBuffer buffer = readBlock(block);
+        while (buffer.hasRemaining()) {
+            byte[] current = new byte[buffer.getInt()];
+            buffer.get(current);
+            int length = buffer.getInt();
+            int compared = Arrays.compareUnsigned(current, key);
+            if (compared == 0) {
+                if (length < 0) {
+                    return LsmStore.TOMBSTONE;
+                }
+                byte[] value = new byte[length];
+                buffer.get(value);
+                return value;
+            }
+            if (compared > 0) {
+                return null;
+            }
+            buffer.position(buffer.position() + Math.max(length, 0));
+        }
+        return null;
+    }
+
+    Iterator<Map.Entry<byte[], byte[]>> iterator(byte[] from) {
+        return new TableIterator(from);
+    }
+
+    private int blockOf(byte[] key) {
+        int low = 0;
+        int high = firstKeys.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (Arrays.compareUnsigned(firstKeys[middle], key) <= 0) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    private ByteBuffer readBlock(int block) throws IOException {
+        long end = block + 1 < offsets.length ? offsets[block + 1] : indexOffset;
+        return read(channel, offsets[block], (int) (end - offsets[block]));
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private class TableIterator implements Iterator<Map.Entry<byte[], byte[]>> {
+        private final byte[] from;
+        private int block;
+        private ByteBuffer buffer;
+        private Map.Entry<byte[], byte[]> next;
+
+        private TableIterator(byte[] from) {
+            this.from = from;
+            this.block = from == null ? 0 : Math.max(blockOf(from), 0);
+            this.next = advance();
+        }
+
+        private Map.Entry<byte[], byte[]> advance() {
+            try {
+                while (true) {
+                    if (buffer == null || !buffer.hasRemaining()) {
+                        if (block >= offsets.length) {
+                            return null;
+                        }
+                        buffer = readBlock(block++);
+                        continue;
+                    }
+                    byte[] key = new byte[buffer.getInt()];
+                    buffer.get(key);
+                    int length = buffer.getInt();
+                    if (from != null && Arrays.compareUnsigned(key, from) < 0) {
+                        buffer.position(buffer.position() + Math.max(length, 0));
+                        continue;
+                    }
+                    byte[] value = LsmStore.TOMBSTONE;
+                    if (length >= 0) {
+                        value = new byte[length];
+                        buffer.get(value);
+                    }
+                    return new AbstractMap.SimpleImmutableEntry<>(key, value);
+                }
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<byte[], byte[]> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<byte[], byte[]> entry = next;
+            next = advance();
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package manager;
+
+import task.AbstractTask;
+import task.Subtask;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.LongFunction;
+
+class SegmentStore {
+    static final String MAGIC = "TTSM";
+    static final int VERSION = 1;
+    static final int TASKS_PER_SEGMENT = 16;
+    static final String TASKS = "tasks-";
+    static final String EPIC = "epic-";
+
+    private final Path manifest;
+    private final Path directory;
+    private final LongHashMap<String> placement = new LongHashMap<>();
+    private final Map<String, LongHashMap<Boolean>> members = new HashMap<>();
+    private final Set<String> dirty = new LinkedHashSet<>();
+    private Map<String, String> files = new TreeMap<>();
+    private long generation;
+
+    SegmentStore(Path data) {
+        this.manifest = data;
+        this.directory = directoryOf(data);
+    }
+
+    static Path directoryOf(Path data) {
+        return data.resolveSibling(data.getFileName() + ".segments");
+    }
+
+    static String keyOf(AbstractTask task) {
+        return switch (task.getType()) {
+            case TASK -> TASKS + task.getId() / TASKS_PER_SEGMENT;
+            case EPIC -> EPIC + task.getId();
+            case SUBTASK -> EPIC + ((Subtask) task).getParentEpic().getId();
+        };
+    }
+
+    private static String keyOf(Row row) {
+        return switch (row.type) {
+            case TASK -> TASKS + row.id / TASKS_PER_SEGMENT;
+            case EPIC -> EPIC + row.id;
+            case SUBTASK -> EPIC + row.epic;
+        };
+    }
+
+    private static boolean isManifest(Path path) throws IOException {
+        byte[] magic = MAGIC.getBytes(StandardCharsets.US_ASCII);
+        try (InputStream in = Files.newInputStream(path)) {
+            return Arrays.equals(in.readNBytes(magic.length), magic);
+        }
+    }
+
+    Snapshot load() throws IOException {
+        if (!Files.exists(manifest)) {
+            return new Snapshot();
+        }
+        if (!isManifest(manifest)) {
+            Snapshot legacy = Snapshot.load(manifest);
+            legacy.detachText();
+            for (Collection<Row> rows : legacy.tables()) {
+                rows.forEach(row -> place(row.id, keyOf(row)));
+            }
+            return legacy;
+        }
+        List<Row> rows = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(manifest)) {
+            CsvCodec.Fields header = new CsvCodec.Fields(reader.readLine());
+            header.nextText();
+            long version = header.nextLong();
+            if (version != VERSION) {
+                throw new IOException("unsupported manifest version " + version);
+            }
+            generation = header.nextLong();
+            String line = reader.readLine();
+            while (line != null && !line.isEmpty()) {
+                CsvCodec.Fields fields = new CsvCodec.Fields(line);
+                String key = fields.nextText();
+                String file = fields.nextText();
+                files.put(key, file);
+                LongHashMap<Boolean> ids = members.computeIfAbsent(key, k -> new LongHashMap<>());
+                Snapshot loaded = Snapshot.load(directory.resolve(file));
+                loaded.detachText();
+                for (Collection<Row> segment : loaded.tables()) {
+                    for (Row row : segment) {
+                        placement.put(row.id, key);
+                        ids.put(row.id, Boolean.TRUE);
+                        rows.add(row);
+                    }
+                }
+                line = reader.readLine();
+            }
+        }
+        deleteUnreferenced();
+        rows.sort(Comparator.comparingLong(row -> row.id));
+        Snapshot snapshot = new Snapshot();
+        rows.forEach(snapshot::put);
+        return snapshot;
+    }
+
+    private void deleteUnreferenced() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Set<String> referenced = Set.copyOf(files.values());
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory)) {
+            for (Path path : paths) {
+                if (!referenced.contains(path.getFileName().toString())) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    synchronized void changed(AbstractTask task) {
+        place(task.getId(), keyOf(task));
+    }
+
+    synchronized void removed(AbstractTask task) {
+        String previous = placement.remove(task.getId());
+        if (previous != null) {
+            members.get(previous).remove(task.getId());
+            dirty.add(previous);
+        }
+    }
+
+    synchronized void cleared(TaskType type) {
+        Iterator<Map.Entry<String, LongHashMap<Boolean>>> iterator = members.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, LongHashMap<Boolean>> entry = iterator.next();
+            String key = entry.getKey();
+            if (!key.startsWith(type == TaskType.TASK ? TASKS : EPIC)) {
+                continue;
+            }
+            LongHashMap<Boolean> ids = entry.getValue();
+            ids.forEachKey(placement::remove);
+            dirty.add(key);
+            long epic = type == TaskType.SUBTASK ? Long.parseLong(key.substring(EPIC.length())) : 0;
+            if (type == TaskType.SUBTASK && ids.containsKey(epic)) {
+                placement.put(epic, key);
+                LongHashMap<Boolean> remaining = new LongHashMap<>();
+                remaining.put(epic, Boolean.TRUE);
+                entry.setValue(remaining);
+            } else {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void place(long id, String key) {
+        String previous = placement.put(id, key);
+        if (previous != null && !previous.equals(key)) {
+            members.get(previous).remove(id);
+            dirty.add(previous);
+        }
+        members.computeIfAbsent(key, k -> new LongHashMap<>()).put(id, Boolean.TRUE);
+        dirty.add(key);
+    }
+
+    synchronized Batch prepare(LongFunction<AbstractTask> resolver) {
+        Map<String, Snapshot> segments = new TreeMap<>();
+        for (String key : dirty) {
+            LongHashMap<Boolean> ids = members.get(key);
+            if (ids == null || ids.isEmpty()) {
+                members.remove(key);
+                segments.put(key, null);
+                continue;
+            }
+            Snapshot snapshot = new Snapshot();
+            ids.forEachKey(id -> snapshot.put(Row.of(resolver.apply(id))));
+            segments.put(key, snapshot);
+        }
+        dirty.clear();
+        return new Batch(segments);
+    }
+
+    synchronized void committed() {
+        dirty.clear();
+    }
+
+    synchronized void failed(Batch batch) {
+        dirty.addAll(batch.segments.keySet());
+    }
+
+    void commit(Batch batch, FileBackedOptions options) throws IOException {
+        if (batch.segments.isEmpty()) {
+            return;
+        }
+        Files.createDirectories(directory);
+        boolean fsync = options.getDurability() == Durability.FSYNC;
+        long nextGeneration = generation + 1;
+        Map<String, String> next = new TreeMap<>(files);
+        List<Path> obsolete = new ArrayList<>();
+        for (Map.Entry<String, Snapshot> entry : batch.segments.entrySet()) {
+            String key = entry.getKey();
+            Snapshot snapshot = entry.getValue();
+            String previous;
+            if (snapshot == null) {
+                previous = next.remove(key);
+            } else {
+                String file = key + "." + nextGeneration;
+                Path path = directory.resolve(file);
+                snapshot.save(path, options.getSnapshotFormat(), options.getCompression());
+                if (fsync) {
+                    force(path);
+                }
+                previous = next.put(key, file);
+            }
+            if (previous != null) {
+                obsolete.add(directory.resolve(previous));
+            }
+        }
+        Path temporary = manifest.resolveSibling(manifest.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary)) {
+            writer.write(MAGIC + CsvCodec.DELIMITER + VERSION + CsvCodec.DELIMITER + nextGeneration);
+            writer.newLine();
+            for (Map.Entry<String, String> entry : next.entrySet()) {
+                writer.write(entry.getKey() + CsvCodec.DELIMITER + entry.getValue());
+                writer.newLine();
+            }
+        }
+        if (fsync) {
+            force(temporary);
+        }
+        Files.move(temporary, manifest, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        files = next;
+        generation = nextGeneration;
+        for (Path path : obsolete) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static void force(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.force(false);
+        }
+    }
+
+    static class Batch {
+        private final Map<String, Snapshot> segments;
+
+        private Batch(Map<String, Snapshot> segments) {
+            this.segments = segments;
+        }
+
+        Map<String, Snapshot> segments() {
+            return segments;
+        }
+    }
+}
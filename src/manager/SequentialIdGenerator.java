@@ -4,7 +4,11 @@ public class SequentialIdGenerator implements IdGenerator{
     private long currentValue;
 
     public SequentialIdGenerator() {
-        this.currentValue = 1;
+        this(1);
+    }
+
+    public SequentialIdGenerator(long firstValue) {
+        this.currentValue = firstValue;
     }
 
     @Override
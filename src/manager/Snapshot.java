@@ -0,0 +1,244 @@
+package manager;
+
+import manager.functional.FiveFunction;
+import task.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+class Snapshot {
+    private final LongHashMap<Row> tasks = new LongHashMap<>();
+    private final LongHashMap<Row> epics = new LongHashMap<>();
+    private final LongHashMap<Row> subtasks = new LongHashMap<>();
+    private List<Long> history = List.of();
+    private Runnable detach;
+
+    static Snapshot of(Collection<Task> tasks, Collection<Epic> epics, Collection<Subtask> subtasks) {
+        Snapshot snapshot = new Snapshot();
+        tasks.forEach(task -> snapshot.put(Row.of(task)));
+        epics.forEach(epic -> snapshot.put(Row.of(epic)));
+        subtasks.forEach(subtask -> snapshot.put(Row.of(subtask)));
+        return snapshot;
+    }
+
+    static Snapshot load(Path path) throws IOException {
+        return load(path, 0);
+    }
+
+    static Snapshot load(Path path, int parallelism) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(BinarySnapshotCodec.MAGIC.length);
+            while (magic.hasRemaining() && channel.read(magic, magic.position()) > 0) {
+                continue;
+            }
+            Compression compression = Compression.detect(Arrays.copyOf(magic.array(), magic.position()));
+            if (compression != Compression.NONE) {
+                try (InputStream in = compression.decompress(Files.newInputStream(path))) {
+                    return read(in);
+                }
+            }
+            if (Arrays.equals(magic.array(), BinarySnapshotCodec.MAGIC)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("binary snapshot of " + channel.size() + " bytes is too large");
+                }
+                ByteBuffer version = ByteBuffer.allocate(1);
+                channel.read(version, BinarySnapshotCodec.MAGIC.length);
+                ByteBuffer buffer = version.get(0) == BinarySnapshotCodec.FIXED_VERSION
+                        ? channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                        : readFully(channel);
+                return BinarySnapshotCodec.read(buffer.position(BinarySnapshotCodec.MAGIC.length));
+            }
+            long size = channel.size();
+            if (parallelism != 1 && size >= ParallelCsvReader.MIN_SIZE && size <= Integer.MAX_VALUE) {
+                return ParallelCsvReader.read(readFully(channel), parallelism);
+            }
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            return read(reader);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+            continue;
+        }
+        return buffer.flip();
+    }
+
+    private static Snapshot read(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, 1 << 16);
+        buffered.mark(BinarySnapshotCodec.MAGIC.length);
+        byte[] magic = buffered.readNBytes(BinarySnapshotCodec.MAGIC.length);
+        buffered.reset();
+        if (Arrays.equals(magic, BinarySnapshotCodec.MAGIC)) {
+            ByteBuffer buffer = ByteBuffer.wrap(buffered.readAllBytes());
+            return BinarySnapshotCodec.read(buffer.position(BinarySnapshotCodec.MAGIC.length));
+        }
+        return read(new BufferedReader(new InputStreamReader(buffered, StandardCharsets.UTF_8)));
+    }
+
+    static Snapshot read(BufferedReader reader) throws IOException {
+        Snapshot snapshot = new Snapshot();
+        String line = reader.readLine();
+        while (line != null && !line.isEmpty()) {
+            snapshot.put(Row.parse(line));
+            line = reader.readLine();
+        }
+        line = reader.readLine();
+        if (line != null) {
+            snapshot.setHistory(CSVFormatter.parseHistory(line));
+        }
+        return snapshot;
+    }
+
+    void put(Row row) {
+        switch (row.type) {
+            case TASK -> tasks.put(row.id, row);
+            case EPIC -> epics.put(row.id, row);
+            case SUBTASK -> subtasks.put(row.id, row);
+        }
+    }
+
+    void remove(long id) {
+        if (tasks.remove(id) == null && epics.remove(id) == null) {
+            subtasks.remove(id);
+        }
+    }
+
+    void clear(TaskType type) {
+        switch (type) {
+            case TASK -> tasks.clear();
+            case SUBTASK -> subtasks.clear();
+            case EPIC -> {
+                epics.clear();
+                subtasks.clear();
+            }
+        }
+    }
+
+    int size() {
+        return tasks.size() + epics.size() + subtasks.size();
+    }
+
+    List<Collection<Row>> tables() {
+        return List.of(tasks.values(), epics.values(), subtasks.values());
+    }
+
+    void write(BufferedWriter writer) throws IOException {
+        for (Collection<Row> rows : tables()) {
+            for (Row row : rows) {
+                row.write(writer);
+                writer.newLine();
+            }
+        }
+        if (!history.isEmpty()) {
+            writer.newLine();
+            CsvCodec.writeHistory(writer, history);
+        }
+    }
+
+    void save(Path path, SnapshotFormat format, Compression compression) throws IOException {
+        try (OutputStream out = compression.compress(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            if (format == SnapshotFormat.BINARY) {
+                BinarySnapshotCodec.write(this, out);
+                return;
+            }
+            if (format == SnapshotFormat.BINARY_FIXED) {
+                BinarySnapshotCodec.writeFixed(this, out);
+                return;
+            }
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            write(writer);
+            writer.flush();
+        }
+    }
+
+    void setDetach(Runnable detach) {
+        this.detach = detach;
+    }
+
+    Runnable getDetach() {
+        return detach;
+    }
+
+    void detachText() {
+        if (detach != null) {
+            detach.run();
+        }
+    }
+
+    List<Long> getHistory() {
+        return history;
+    }
+
+    void setHistory(List<Long> history) {
+        this.history = history;
+    }
+
+    <T extends TaskManager> T build(
+            FiveFunction<
+                    HistoryManager,
+                    LongHashMap<Task>,
+                    LongHashMap<Epic>,
+                    LongHashMap<Subtask>,
+                    IntervalTree<AbstractTimeTask>,
+                    T> function) {
+        LongHashMap<Task> taskMap = new LongHashMap<>(tasks.size());
+        LongHashMap<Epic> epicMap = new LongHashMap<>(epics.size());
+        LongHashMap<Subtask> subtaskMap = new LongHashMap<>(subtasks.size());
+        IntervalTree<AbstractTimeTask> orderedTasks = Managers.getDefaultTimeIndex();
+        List<AbstractTimeTask> timeTasks = new ArrayList<>(tasks.size() + subtasks.size());
+        for (Row row : tasks.values()) {
+            Task task = row.toTask();
+            taskMap.put(task.getId(), task);
+            timeTasks.add(task);
+        }
+        for (Row row : epics.values()) {
+            Epic epic = row.toEpic();
+            epicMap.put(epic.getId(), epic);
+        }
+        for (Row row : subtasks.values()) {
+            Subtask subtask = row.toSubtask(epicMap.get(row.epic));
+            subtaskMap.put(subtask.getId(), subtask);
+            timeTasks.add(subtask);
+        }
+        orderedTasks.addAll(timeTasks);
+        for (Epic epic : epicMap.values()) {
+            epic.setStatus(epic.getSubtasksStatus());
+        }
+        HistoryManager historyManager = Managers.getDefaultHistory();
+        for (int i = history.size() - 1; i >= 0; i--) {
+            long id = history.get(i);
+            AbstractTask abstractTask = taskMap.get(id);
+            if (abstractTask != null) {
+                historyManager.add(abstractTask);
+                continue;
+            }
+            abstractTask = epicMap.get(id);
+            if (abstractTask != null) {
+                historyManager.add(abstractTask);
+                continue;
+            }
+            historyManager.add(subtaskMap.get(id));
+        }
+        return function.apply(historyManager, taskMap, epicMap, subtaskMap, orderedTasks);
+    }
+}
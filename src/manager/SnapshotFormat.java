@@ -0,0 +1,5 @@
+package manager;
+
+public enum SnapshotFormat {
+    CSV, BINARY, BINARY_FIXED
+}
@@ -2,6 +2,7 @@ package manager;
 
 import task.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TaskManager {
@@ -48,4 +49,6 @@ public interface TaskManager {
     List<AbstractTask> getHistory();
 
     List<AbstractTimeTask> getPrioritizedTasks();
+
+    Iterable<AbstractTimeTask> getPrioritizedTasks(LocalDateTime from, LocalDateTime to);
 }
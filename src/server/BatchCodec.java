@@ -0,0 +1,102 @@
+package server;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class BatchCodec {
+    static final String CONTENT_TYPE = "application/octet-stream";
+    private static final int MISSING = -1;
+
+    private BatchCodec() {
+    }
+
+    static byte[] encodeEntries(List<byte[]> frames) {
+        if (frames.size() % 2 != 0) {
+            throw new IllegalArgumentException("the batch has a key without a value");
+        }
+        return encode(frames);
+    }
+
+    static long frameSize(byte[] frame) {
+        return Integer.BYTES + (frame == null ? 0 : frame.length);
+    }
+
+    static Map<String, String> decodeEntries(byte[] body) {
+        List<String> frames = decode(body);
+        if (frames.size() % 2 != 0) {
+            throw new IllegalArgumentException("the batch has a key without a value");
+        }
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (int i = 0; i < frames.size(); i += 2) {
+            if (frames.get(i) == null || frames.get(i + 1) == null) {
+                throw new IllegalArgumentException("the batch has a missing key or value");
+            }
+            entries.put(frames.get(i), frames.get(i + 1));
+        }
+        return entries;
+    }
+
+    static byte[] encodeKeys(Collection<String> keys) {
+        List<byte[]> frames = new ArrayList<>(keys.size());
+        keys.forEach(key -> frames.add(key.getBytes(StandardCharsets.UTF_8)));
+        return encode(frames);
+    }
+
+    static List<String> decodeKeys(byte[] body) {
+        return decode(body);
+    }
+
+    static byte[] encodeValues(List<String> values) {
+        List<byte[]> frames = new ArrayList<>(values.size());
+        values.forEach(value -> frames.add(value == null ? null : value.getBytes(StandardCharsets.UTF_8)));
+        return encode(frames);
+    }
+
+    static List<String> decodeValues(byte[] body) {
+        return decode(body);
+    }
+
+    private static byte[] encode(List<byte[]> frames) {
+        long size = 0;
+        for (byte[] frame : frames) {
+            size += frameSize(frame);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size));
+        for (byte[] frame : frames) {
+            if (frame == null) {
+                buffer.putInt(MISSING);
+            } else {
+                buffer.putInt(frame.length).put(frame);
+            }
+        }
+        return buffer.array();
+    }
+
+    private static List<String> decode(byte[] body) {
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        List<String> frames = new ArrayList<>();
+        try {
+            while (buffer.hasRemaining()) {
+                int length = buffer.getInt();
+                if (length == MISSING) {
+                    frames.add(null);
+                    continue;
+                }
+                if (length < 0 || length > buffer.remaining()) {
+                    throw new IllegalArgumentException("the batch frame is truncated");
+                }
+                frames.add(new String(body, buffer.position(), length, StandardCharsets.UTF_8));
+                buffer.position(buffer.position() + length);
+            }
+        } catch (BufferUnderflowException exception) {
+            throw new IllegalArgumentException("the batch frame is truncated", exception);
+        }
+        return frames;
+    }
+}
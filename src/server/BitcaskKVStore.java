@@ -0,0 +1,479 @@
+package server;
+
+import manager.Durability;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+class BitcaskKVStore implements KVStore {
+    static final String DATA_EXTENSION = ".data";
+    static final String HINT_EXTENSION = ".hint";
+    static final int HEADER = 3 * Integer.BYTES;
+    static final int TOMBSTONE = -1;
+
+    private final Path directory;
+    private final KVServerOptions options;
+    private final Map<String, Entry> keydir = new ConcurrentHashMap<>();
+    private final Map<Long, FileChannel> files = new ConcurrentHashMap<>();
+    private final ExecutorService merger;
+    private FileChannel active;
+    private long activeId;
+    private long activeSize;
+    private ByteArrayOutputStream activeHints = new ByteArrayOutputStream();
+    private long total;
+    private long live;
+    private CompletableFuture<Void> compaction = CompletableFuture.completedFuture(null);
+
+    BitcaskKVStore(Path directory, KVServerOptions options) throws IOException {
+        if (options.getDurability() == Durability.GROUP || options.getDurability() == Durability.ASYNC) {
+            throw new IllegalArgumentException(options.getDurability() + " durability is not supported by the KV store");
+        }
+        this.directory = directory;
+        this.options = options;
+        Files.createDirectories(directory);
+        List<Long> ids = dataFileIds();
+        for (long id : ids) {
+            Path hint = pathOf(id, HINT_EXTENSION);
+            Path data = pathOf(id, DATA_EXTENSION);
+            if (Files.size(data) == 0) {
+                Files.deleteIfExists(hint);
+                Files.delete(data);
+                continue;
+            }
+            FileChannel channel = FileChannel.open(data, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            files.put(id, channel);
+            if (Files.exists(hint)) {
+                readHint(id, hint);
+            } else {
+                ByteArrayOutputStream hints = new ByteArrayOutputStream();
+                scan(channel, (key, value, offset, length) -> {
+                    Entry entry = new Entry(id, offset, length, HEADER + key.length + Math.max(length, 0));
+                    if (length == TOMBSTONE) {
+                        keydir.remove(new String(key, StandardCharsets.UTF_8));
+                    } else {
+                        keydir.put(new String(key, StandardCharsets.UTF_8), entry);
+                    }
+                    writeHint(hints, key, entry);
+                });
+                saveHint(id, hints.toByteArray());
+            }
+            total += channel.size();
+        }
+        keydir.values().forEach(entry -> live += entry.size);
+        activeId = ids.isEmpty() ? 0 : ids.get(ids.size() - 1) + 1;
+        active = open(activeId);
+        merger = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kv-merge-" + directory.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private List<Long> dataFileIds() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + DATA_EXTENSION)) {
+            for (Path path : paths) {
+                String name = path.getFileName().toString();
+                ids.add(Long.parseLong(name.substring(0, name.length() - DATA_EXTENSION.length())));
+            }
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private Path pathOf(long id, String extension) {
+        return directory.resolve(id + extension);
+    }
+
+    private FileChannel open(long id) throws IOException {
+        FileChannel channel = FileChannel.open(pathOf(id, DATA_EXTENSION), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        files.put(id, channel);
+        return channel;
+    }
+
+    int fileCount() {
+        return files.size();
+    }
+
+    long size() {
+        return total;
+    }
+
+    @Override
+    public String get(String key) throws IOException {
+        while (true) {
+            Entry entry = keydir.get(key);
+            if (entry == null) {
+                return null;
+            }
+            FileChannel channel = files.get(entry.file);
+            try {
+                if (channel != null) {
+                    return new String(read(channel, entry.offset, entry.length), StandardCharsets.UTF_8);
+                }
+            } catch (ClosedChannelException exception) {
+                if (keydir.get(key) == entry) {
+                    throw exception;
+                }
+                continue;
+            }
+            if (keydir.get(key) == entry) {
+                throw new IOException("data file " + entry.file + " is missing");
+            }
+        }
+    }
+
+    private static byte[] read(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("value at " + offset + " is truncated");
+            }
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public void put(String key, String value) throws IOException {
+        putAll(Map.of(key, value));
+    }
+
+    @Override
+    public synchronized void putAll(Map<String, String> values) throws IOException {
+        List<String> keys = new ArrayList<>(values.size());
+        List<byte[]> valueBytes = new ArrayList<>(values.size());
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            keys.add(entry.getKey());
+            valueBytes.add(entry.getValue().getBytes(StandardCharsets.UTF_8));
+        }
+        append(keys, valueBytes);
+    }
+
+    @Override
+    public synchronized void removeAll(Collection<String> keys) throws IOException {
+        Set<String> present = new LinkedHashSet<>();
+        for (String key : keys) {
+            if (keydir.containsKey(key)) {
+                present.add(key);
+            }
+        }
+        if (!present.isEmpty()) {
+            append(new ArrayList<>(present), Collections.nCopies(present.size(), null));
+        }
+    }
+
+    private void append(List<String> keys, List<byte[]> values) throws IOException {
+        List<byte[]> keyBytes = new ArrayList<>(keys.size());
+        List<ByteBuffer> records = new ArrayList<>(keys.size());
+        int length = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] key = keys.get(i).getBytes(StandardCharsets.UTF_8);
+            ByteBuffer record = encode(key, values.get(i));
+            keyBytes.add(key);
+            records.add(record);
+            length += record.capacity();
+        }
+        ByteBuffer batch = ByteBuffer.allocate(length);
+        records.forEach(batch::put);
+        batch.flip();
+        long position = activeSize;
+        try {
+            while (batch.hasRemaining()) {
+                active.write(batch, position + batch.position());
+            }
+            if (options.getDurability() == Durability.FSYNC) {
+                active.force(false);
+            }
+        } catch (IOException exception) {
+            try {
+                active.truncate(position);
+            } catch (IOException suppressed) {
+                exception.addSuppressed(suppressed);
+            }
+            throw exception;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] key = keyBytes.get(i);
+            int size = records.get(i).capacity();
+            boolean removed = values.get(i) == null;
+            Entry entry = new Entry(activeId, position + HEADER + key.length,
+                    removed ? TOMBSTONE : size - HEADER - key.length, size);
+            position += size;
+            writeHint(activeHints, key, entry);
+            Entry previous;
+            if (removed) {
+                previous = keydir.remove(keys.get(i));
+            } else {
+                previous = keydir.put(keys.get(i), entry);
+                live += entry.size;
+            }
+            if (previous != null) {
+                live -= previous.size;
+            }
+        }
+        activeSize += length;
+        total += length;
+        if (activeSize >= options.getMaxFileSize()) {
+            rotate(activeId + 1);
+        }
+        if (compactionDue()) {
+            compact();
+        }
+    }
+
+    private static ByteBuffer encode(byte[] key, byte[] value) {
+        ByteBuffer record = ByteBuffer.allocate(HEADER + key.length + (value == null ? 0 : value.length));
+        record.putInt(0).putInt(key.length).putInt(value == null ? TOMBSTONE : value.length).put(key);
+        if (value != null) {
+            record.put(value);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), Integer.BYTES, record.capacity() - Integer.BYTES);
+        return record.putInt(0, (int) crc.getValue()).flip();
+    }
+
+    private void rotate(long nextId) throws IOException {
+        if (options.getDurability() == Durability.FSYNC) {
+            active.force(false);
+        }
+        saveHint(activeId, activeHints.toByteArray());
+        activeHints = new ByteArrayOutputStream();
+        activeId = nextId;
+        activeSize = 0;
+        active = open(activeId);
+    }
+
+    private boolean compactionDue() {
+        return compaction.isDone() && total >= options.getCompactionSize() && 2 * (total - live) >= total;
+    }
+
+    synchronized CompletableFuture<Void> compact() {
+        if (!compaction.isDone()) {
+            return compaction;
+        }
+        List<Long> inputs = new ArrayList<>(files.keySet());
+        Collections.sort(inputs);
+        long merged = activeId + 1;
+        try {
+            rotate(activeId + 2);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        compaction = CompletableFuture.runAsync(() -> {
+            try {
+                merge(inputs, merged);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }, merger);
+        return compaction;
+    }
+
+    private void merge(List<Long> inputs, long merged) throws IOException {
+        Path path = pathOf(merged, DATA_EXTENSION);
+        FileChannel output = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteArrayOutputStream hints = new ByteArrayOutputStream();
+        List<String> keys = new ArrayList<>();
+        List<Entry> sources = new ArrayList<>();
+        List<Entry> targets = new ArrayList<>();
+        long[] size = {0};
+        try {
+            for (long id : inputs) {
+                scan(files.get(id), (key, value, offset, length) -> {
+                    if (length == TOMBSTONE) {
+                        return;
+                    }
+                    String name = new String(key, StandardCharsets.UTF_8);
+                    Entry current = keydir.get(name);
+                    if (current == null || current.file != id || current.offset != offset) {
+                        return;
+                    }
+                    ByteBuffer record = encode(key, value);
+                    while (record.hasRemaining()) {
+                        output.write(record, size[0] + record.position());
+                    }
+                    Entry moved = new Entry(merged, size[0] + HEADER + key.length, length, record.capacity());
+                    size[0] += moved.size;
+                    writeHint(hints, key, moved);
+                    keys.add(name);
+                    sources.add(current);
+                    targets.add(moved);
+                });
+            }
+            if (options.getDurability() == Durability.FSYNC) {
+                output.force(false);
+            }
+            saveHint(merged, hints.toByteArray());
+        } catch (IOException exception) {
+            output.close();
+            Files.deleteIfExists(path);
+            throw exception;
+        }
+        files.put(merged, output);
+        List<FileChannel> obsolete = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; i < keys.size(); i++) {
+                keydir.replace(keys.get(i), sources.get(i), targets.get(i));
+            }
+            for (long id : inputs) {
+                FileChannel channel = files.remove(id);
+                total -= channel.size();
+                obsolete.add(channel);
+            }
+            total += size[0];
+        }
+        for (FileChannel channel : obsolete) {
+            channel.close();
+        }
+        for (long id : inputs) {
+            Files.deleteIfExists(pathOf(id, HINT_EXTENSION));
+            Files.deleteIfExists(pathOf(id, DATA_EXTENSION));
+        }
+    }
+
+    private void scan(FileChannel channel, Visitor visitor) throws IOException {
+        long size = channel.size();
+        long end = 0;
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Channels.newInputStream(channel.position(0)), 1 << 16));
+        CRC32 crc = new CRC32();
+        ByteBuffer lengths = ByteBuffer.allocate(2 * Integer.BYTES);
+        try {
+            while (end + HEADER <= size) {
+                int checksum = in.readInt();
+                int keyLength = in.readInt();
+                int valueLength = in.readInt();
+                int stored = valueLength == TOMBSTONE ? 0 : valueLength;
+                if (keyLength < 0 || stored < 0 || (long) keyLength + stored > size - end - HEADER) {
+                    break;
+                }
+                byte[] key = new byte[keyLength];
+                in.readFully(key);
+                byte[] value = new byte[stored];
+                in.readFully(value);
+                crc.reset();
+                crc.update(lengths.clear().putInt(keyLength).putInt(valueLength).array());
+                crc.update(key);
+                crc.update(value);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                visitor.accept(key, value, end + HEADER + keyLength, valueLength);
+                end += HEADER + keyLength + stored;
+            }
+        } catch (EOFException ignored) {
+        }
+        if (end < size) {
+            channel.truncate(end);
+        }
+    }
+
+    private static void writeHint(ByteArrayOutputStream hints, byte[] key, Entry entry) {
+        DataOutputStream out = new DataOutputStream(hints);
+        try {
+            out.writeInt(key.length);
+            out.write(key);
+            out.writeLong(entry.offset);
+            out.writeInt(entry.length);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private void saveHint(long id, byte[] hints) throws IOException {
+        Path path = pathOf(id, HINT_EXTENSION);
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temporary, hints);
+        if (options.getDurability() == Durability.FSYNC) {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                channel.force(false);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void readHint(long id, Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            while (true) {
+                int keyLength;
+                try {
+                    keyLength = in.readInt();
+                } catch (EOFException exception) {
+                    return;
+                }
+                byte[] key = new byte[keyLength];
+                in.readFully(key);
+                long offset = in.readLong();
+                int length = in.readInt();
+                if (length == TOMBSTONE) {
+                    keydir.remove(new String(key, StandardCharsets.UTF_8));
+                } else {
+                    keydir.put(new String(key, StandardCharsets.UTF_8),
+                            new Entry(id, offset, length, HEADER + keyLength + length));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        compaction.exceptionally(exception -> null).join();
+        synchronized (this) {
+            merger.shutdown();
+            if (options.getDurability() == Durability.FSYNC) {
+                active.force(false);
+            }
+            saveHint(activeId, activeHints.toByteArray());
+            for (FileChannel channel : files.values()) {
+                channel.close();
+            }
+        }
+    }
+
+    private interface Visitor {
+        void accept(byte[] key, byte[] value, long offset, int length) throws IOException;
+    }
+
+    private static class Entry {
+        private final long file;
+        private final long offset;
+        private final int length;
+        private final int size;
+
+        private Entry(long file, long offset, int length, int size) {
+            this.file = file;
+            this.offset = offset;
+            this.length = length;
+            this.size = size;
+        }
+    }
+}
@@ -11,6 +11,7 @@ import server.annotation.POST;
 import server.annotation.QueryParams;
 import server.controller.Controller;
 import server.controller.EpicController;
+import server.controller.PrioritizedController;
 import server.controller.SubtaskController;
 import server.controller.TaskController;
 import server.exception.ServerAccessControllerException;
@@ -38,7 +39,8 @@ public class HttpTaskServer {
     private static final Map<String, Class<? extends Controller>> CONTROLLERS = Map.of(
             "/tasks/task/", TaskController.class,
             "/epics/epic/", EpicController.class,
-            "/subtasks/subtask/", SubtaskController.class
+            "/subtasks/subtask/", SubtaskController.class,
+            "/tasks/prioritized/", PrioritizedController.class
     );
     private static final Map<String, Class<? extends Annotation>> METHODS = Map.of(
             "GET", GET.class,
@@ -0,0 +1,28 @@
+package server;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class InMemoryKVStore implements KVStore {
+    private final Map<String, String> data = new ConcurrentHashMap<>();
+
+    @Override
+    public String get(String key) {
+        return data.get(key);
+    }
+
+    @Override
+    public void put(String key, String value) {
+        data.put(key, value);
+    }
+
+    @Override
+    public void removeAll(Collection<String> keys) {
+        keys.forEach(data::remove);
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,25 @@
+package server;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+@Builder(toBuilder = true)
+public class KVClientOptions {
+    @Builder.Default
+    private final Duration connectTimeout = Duration.ofSeconds(5);
+    @Builder.Default
+    private final Duration requestTimeout = Duration.ofSeconds(30);
+    @Builder.Default
+    private final int maxConcurrentRequests = 16;
+    @Builder.Default
+    private final int maxBatchSize = 1 << 20;
+    @Builder.Default
+    private final int maxBatchKeys = 4096;
+
+    public static KVClientOptions defaults() {
+        return builder().build();
+    }
+}
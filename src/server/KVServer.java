@@ -3,48 +3,86 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.util.HashMap;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
 
 public class KVServer {
     public static final int PORT = 8078;
+    public static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
     private final String apiToken;
     private final HttpServer server;
-    private final Map<String, String> data = new HashMap<>();
+    private final ExecutorService workers;
+    private final int port;
+    private final KVStore store;
 
     public KVServer() throws IOException {
+        this(KVServerOptions.defaults());
+    }
+
+    public KVServer(KVServerOptions options) throws IOException {
         apiToken = generateApiToken();
-        server = HttpServer.create(new InetSocketAddress("localhost", PORT), 0);
+        store = options.getDirectory() == null ? new InMemoryKVStore()
+                : new BitcaskKVStore(options.getDirectory(), options);
+        port = options.getPort();
+        server = HttpServer.create(new InetSocketAddress("localhost", port), options.getBacklog());
         server.createContext("/register", this::register);
         server.createContext("/save", this::save);
         server.createContext("/load", this::load);
+        server.createContext("/batch/save", this::saveAll);
+        server.createContext("/batch/load", this::loadAll);
+        server.createContext("/batch/delete", this::deleteAll);
+        workers = workersOf(options.getWorkerThreads());
+        server.setExecutor(workers);
+    }
+
+    private static ExecutorService workersOf(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "kv-server-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     private void load(HttpExchange h) throws IOException {
         try (h) {
+            h.getRequestBody().close();
             if (hasNoAuth(h)) {
-                h.sendResponseHeaders(403, 0);
+                h.sendResponseHeaders(403, -1);
                 return;
             }
             if ("GET".equals(h.getRequestMethod())) {
                 String key = h.getRequestURI().getPath().substring("/load/".length());
                 if (key.isEmpty()) {
-                    h.sendResponseHeaders(400, 0);
+                    h.sendResponseHeaders(400, -1);
+                    return;
+                }
+                String value;
+                try {
+                    value = store.get(key);
+                } catch (IOException exception) {
+                    h.sendResponseHeaders(500, -1);
                     return;
                 }
-                String value = data.get(key);
                 if (value == null) {
-                    h.sendResponseHeaders(400, 0);
+                    h.sendResponseHeaders(400, -1);
                     return;
                 }
-                byte[] bytes = value.getBytes();
+                byte[] bytes = value.getBytes(UTF_8);
                 h.sendResponseHeaders(200, bytes.length);
                 h.getResponseBody().write(bytes);
             } else {
-                h.sendResponseHeaders(405, 0);
+                h.sendResponseHeaders(405, -1);
             }
         }
     }
@@ -52,24 +90,126 @@ public class KVServer {
     private void save(HttpExchange h) throws IOException {
         try (h) {
             if (hasNoAuth(h)) {
-                h.sendResponseHeaders(403, 0);
+                h.sendResponseHeaders(403, -1);
                 return;
             }
             if ("POST".equals(h.getRequestMethod())) {
                 String key = h.getRequestURI().getPath().substring("/save/".length());
                 if (key.isEmpty()) {
-                    h.sendResponseHeaders(400, 0);
+                    h.sendResponseHeaders(400, -1);
                     return;
                 }
                 String value = readText(h);
                 if (value.isEmpty()) {
-                    h.sendResponseHeaders(400, 0);
+                    h.sendResponseHeaders(400, -1);
                     return;
                 }
-                data.put(key, value);
-                h.sendResponseHeaders(200, 0);
+                try {
+                    store.put(key, value);
+                } catch (IOException exception) {
+                    h.sendResponseHeaders(500, -1);
+                    return;
+                }
+                h.sendResponseHeaders(200, -1);
             } else {
-                h.sendResponseHeaders(405, 0);
+                h.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+
+    private void saveAll(HttpExchange h) throws IOException {
+        try (h) {
+            if (hasNoAuth(h)) {
+                h.sendResponseHeaders(403, -1);
+                return;
+            }
+            if ("POST".equals(h.getRequestMethod())) {
+                Map<String, String> values;
+                try {
+                    values = BatchCodec.decodeEntries(h.getRequestBody().readAllBytes());
+                } catch (IllegalArgumentException exception) {
+                    h.sendResponseHeaders(400, -1);
+                    return;
+                }
+                for (Map.Entry<String, String> entry : values.entrySet()) {
+                    if (entry.getKey().isEmpty() || entry.getValue().isEmpty()) {
+                        h.sendResponseHeaders(400, -1);
+                        return;
+                    }
+                }
+                try {
+                    store.putAll(values);
+                } catch (IOException exception) {
+                    h.sendResponseHeaders(500, -1);
+                    return;
+                }
+                h.sendResponseHeaders(200, -1);
+            } else {
+                h.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+
+    private void loadAll(HttpExchange h) throws IOException {
+        try (h) {
+            if (hasNoAuth(h)) {
+                h.sendResponseHeaders(403, -1);
+                return;
+            }
+            if ("POST".equals(h.getRequestMethod())) {
+                List<String> keys;
+                try {
+                    keys = BatchCodec.decodeKeys(h.getRequestBody().readAllBytes());
+                } catch (IllegalArgumentException exception) {
+                    h.sendResponseHeaders(400, -1);
+                    return;
+                }
+                List<String> values = new ArrayList<>(keys.size());
+                try {
+                    for (String key : keys) {
+                        values.add(key == null ? null : store.get(key));
+                    }
+                } catch (IOException exception) {
+                    h.sendResponseHeaders(500, -1);
+                    return;
+                }
+                byte[] bytes = BatchCodec.encodeValues(values);
+                h.getResponseHeaders().add("Content-Type", BatchCodec.CONTENT_TYPE);
+                h.sendResponseHeaders(200, bytes.length == 0 ? -1 : bytes.length);
+                h.getResponseBody().write(bytes);
+            } else {
+                h.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+
+    private void deleteAll(HttpExchange h) throws IOException {
+        try (h) {
+            if (hasNoAuth(h)) {
+                h.sendResponseHeaders(403, -1);
+                return;
+            }
+            if ("POST".equals(h.getRequestMethod())) {
+                List<String> keys;
+                try {
+                    keys = BatchCodec.decodeKeys(h.getRequestBody().readAllBytes());
+                } catch (IllegalArgumentException exception) {
+                    h.sendResponseHeaders(400, -1);
+                    return;
+                }
+                if (keys.contains(null)) {
+                    h.sendResponseHeaders(400, -1);
+                    return;
+                }
+                try {
+                    store.removeAll(keys);
+                } catch (IOException exception) {
+                    h.sendResponseHeaders(500, -1);
+                    return;
+                }
+                h.sendResponseHeaders(200, -1);
+            } else {
+                h.sendResponseHeaders(405, -1);
             }
         }
     }
@@ -79,19 +219,25 @@ public class KVServer {
             if ("GET".equals(h.getRequestMethod())) {
                 sendText(h, apiToken);
             } else {
-                h.sendResponseHeaders(405, 0);
+                h.sendResponseHeaders(405, -1);
             }
         }
     }
 
     public void start() {
-        System.out.println("PORT: " + PORT);
+        System.out.println("PORT: " + port);
         System.out.println("API_TOKEN: " + apiToken);
         server.start();
     }
 
     public void stop() {
         server.stop(1);
+        workers.shutdown();
+        try {
+            store.close();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
     }
 
     private String generateApiToken() {
@@ -115,7 +261,11 @@ public class KVServer {
     }
 
     public static void main(String[] args) throws IOException {
-        KVServer kvServer = new KVServer();
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        KVServer kvServer = new KVServer(args.length == 0 ? KVServerOptions.defaults()
+                : KVServerOptions.builder().directory(Path.of(args[0])).build());
         kvServer.start();
         System.in.read();
         kvServer.stop();
@@ -0,0 +1,29 @@
+package server;
+
+import lombok.Builder;
+import lombok.Getter;
+import manager.Durability;
+
+import java.nio.file.Path;
+
+@Getter
+@Builder(toBuilder = true)
+public class KVServerOptions {
+    @Builder.Default
+    private final int port = KVServer.PORT;
+    @Builder.Default
+    private final int backlog = 1024;
+    @Builder.Default
+    private final int workerThreads = Math.max(16, 4 * Runtime.getRuntime().availableProcessors());
+    private final Path directory;
+    @Builder.Default
+    private final Durability durability = Durability.WRITE;
+    @Builder.Default
+    private final long maxFileSize = 64L << 20;
+    @Builder.Default
+    private final long compactionSize = 16L << 20;
+
+    public static KVServerOptions defaults() {
+        return builder().build();
+    }
+}
@@ -0,0 +1,20 @@
+package server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+interface KVStore extends Closeable {
+    String get(String key) throws IOException;
+
+    void put(String key, String value) throws IOException;
+
+    default void putAll(Map<String, String> values) throws IOException {
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    void removeAll(Collection<String> keys) throws IOException;
+}
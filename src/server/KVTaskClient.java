@@ -5,31 +5,247 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class KVTaskClient {
+    private static final int MISSING = 400;
+
+    private final HttpClient client;
+    private final KVClientOptions options;
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
     private final String apiToken;
     private final URI uri;
 
     public KVTaskClient(URI serverUri) throws IOException, InterruptedException {
+        this(serverUri, KVClientOptions.defaults());
+    }
+
+    public KVTaskClient(URI serverUri, KVClientOptions options) throws IOException, InterruptedException {
         this.uri = serverUri;
-        HttpClient client = HttpClient.newHttpClient();
-        HttpRequest request = HttpRequest.newBuilder().uri(uri.resolve("/register")).GET().build();
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-        apiToken = response.body();
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(options.getConnectTimeout())
+                .build();
+        HttpRequest request = request(uri.resolve("/register")).GET().build();
+        apiToken = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
     }
 
     public void put(String key, String json) throws IOException, InterruptedException {
-        HttpClient client = HttpClient.newHttpClient();
-        HttpRequest request = HttpRequest.newBuilder().uri(addApiTokenQuery(uri.resolve("/save/" + key)))
-                .POST(HttpRequest.BodyPublishers.ofString(json)).build();
-        client.send(request, HttpResponse.BodyHandlers.ofString());
+        await(putAsync(key, json));
     }
 
     public String load(String key) throws IOException, InterruptedException {
-        HttpClient client = HttpClient.newHttpClient();
-        HttpRequest request = HttpRequest.newBuilder().uri(addApiTokenQuery(uri.resolve("/load/" + key)))
-                .GET().build();
-        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+        return await(loadAsync(key));
+    }
+
+    public CompletableFuture<Void> putAsync(String key, String json) {
+        return sendAsync(saveRequest(key, json), HttpResponse.BodyHandlers.discarding()).thenApply(response -> {
+            checkStatus(response);
+            return null;
+        });
+    }
+
+    public CompletableFuture<String> loadAsync(String key) {
+        return sendAsync(loadRequest(key), HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+            if (response.statusCode() == MISSING) {
+                return null;
+            }
+            checkStatus(response);
+            return response.body();
+        });
+    }
+
+    public void putAll(Map<String, String> values) throws IOException, InterruptedException {
+        await(putAllAsync(values));
+    }
+
+    public Map<String, String> loadAll(Collection<String> keys) throws IOException, InterruptedException {
+        return await(loadAllAsync(keys));
+    }
+
+    public void deleteAll(Collection<String> keys) throws IOException, InterruptedException {
+        await(deleteAllAsync(keys));
+    }
+
+    public CompletableFuture<Void> putAllAsync(Map<String, String> values) {
+        List<CompletableFuture<Void>> requests = new ArrayList<>();
+        List<byte[]> batch = new ArrayList<>();
+        long size = 0;
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] value = entry.getValue().getBytes(StandardCharsets.UTF_8);
+            long entrySize = BatchCodec.frameSize(key) + BatchCodec.frameSize(value);
+            if (!batch.isEmpty() && size + entrySize > options.getMaxBatchSize()) {
+                requests.add(sendPutAll(batch));
+                batch = new ArrayList<>();
+                size = 0;
+            }
+            batch.add(key);
+            batch.add(value);
+            size += entrySize;
+        }
+        if (!batch.isEmpty()) {
+            requests.add(sendPutAll(batch));
+        }
+        return CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new));
+    }
+
+    public CompletableFuture<Map<String, String>> loadAllAsync(Collection<String> keys) {
+        List<String> unique = new ArrayList<>(new LinkedHashSet<>(keys));
+        List<CompletableFuture<List<String>>> requests = new ArrayList<>();
+        for (int from = 0; from < unique.size(); from += options.getMaxBatchKeys()) {
+            requests.add(sendLoadAll(unique.subList(from, Math.min(unique.size(), from + options.getMaxBatchKeys()))));
+        }
+        return CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            Map<String, String> values = new LinkedHashMap<>();
+            int index = 0;
+            for (CompletableFuture<List<String>> request : requests) {
+                for (String value : request.join()) {
+                    String key = unique.get(index++);
+                    if (value != null) {
+                        values.put(key, value);
+                    }
+                }
+            }
+            return values;
+        });
+    }
+
+    public CompletableFuture<Void> deleteAllAsync(Collection<String> keys) {
+        List<String> unique = new ArrayList<>(new LinkedHashSet<>(keys));
+        List<CompletableFuture<Void>> requests = new ArrayList<>();
+        for (int from = 0; from < unique.size(); from += options.getMaxBatchKeys()) {
+            requests.add(sendDeleteAll(unique.subList(from, Math.min(unique.size(), from + options.getMaxBatchKeys()))));
+        }
+        return CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new));
+    }
+
+    private CompletableFuture<Void> sendPutAll(List<byte[]> batch) {
+        HttpRequest request = request(addApiTokenQuery(uri.resolve("/batch/save")))
+                .header("Content-Type", BatchCodec.CONTENT_TYPE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(BatchCodec.encodeEntries(batch))).build();
+        return sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(response -> {
+            checkStatus(response);
+            return null;
+        });
+    }
+
+    private CompletableFuture<List<String>> sendLoadAll(List<String> keys) {
+        HttpRequest request = request(addApiTokenQuery(uri.resolve("/batch/load")))
+                .header("Content-Type", BatchCodec.CONTENT_TYPE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(BatchCodec.encodeKeys(keys))).build();
+        return sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+            checkStatus(response);
+            try {
+                List<String> values = BatchCodec.decodeValues(response.body());
+                if (values.size() != keys.size()) {
+                    throw new IllegalArgumentException("expected " + keys.size() + " values, got " + values.size());
+                }
+                return values;
+            } catch (IllegalArgumentException exception) {
+                throw new CompletionException(new IOException(exception));
+            }
+        });
+    }
+
+    private CompletableFuture<Void> sendDeleteAll(List<String> keys) {
+        HttpRequest request = request(addApiTokenQuery(uri.resolve("/batch/delete")))
+                .header("Content-Type", BatchCodec.CONTENT_TYPE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(BatchCodec.encodeKeys(keys))).build();
+        return sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(response -> {
+            checkStatus(response);
+            return null;
+        });
+    }
+
+    private static void checkStatus(HttpResponse<?> response) {
+        if (response.statusCode() != 200) {
+            throw new CompletionException(new IOException(
+                    response.request().uri().getPath() + " failed with status " + response.statusCode()));
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                             HttpResponse.BodyHandler<T> handler) {
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        waiting.add(() -> {
+            try {
+                client.sendAsync(request, handler).whenComplete((response, exception) -> {
+                    inFlight.decrementAndGet();
+                    drain();
+                    if (exception != null) {
+                        result.completeExceptionally(exception);
+                    } else {
+                        result.complete(response);
+                    }
+                });
+            } catch (RuntimeException exception) {
+                inFlight.decrementAndGet();
+                result.completeExceptionally(exception);
+            }
+        });
+        drain();
+        return result;
+    }
+
+    private void drain() {
+        while (!waiting.isEmpty()) {
+            int current = inFlight.get();
+            if (current >= options.getMaxConcurrentRequests()) {
+                return;
+            }
+            if (!inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Runnable send = waiting.poll();
+            if (send == null) {
+                inFlight.decrementAndGet();
+            } else {
+                send.run();
+            }
+        }
+    }
+
+    private HttpRequest saveRequest(String key, String json) {
+        return request(addApiTokenQuery(uri.resolve("/save/" + key)))
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private HttpRequest loadRequest(String key) {
+        return request(addApiTokenQuery(uri.resolve("/load/" + key))).GET().build();
+    }
+
+    private HttpRequest.Builder request(URI uri) {
+        return HttpRequest.newBuilder().uri(uri).timeout(options.getRequestTimeout());
     }
 
     private URI addApiTokenQuery(URI uri) {
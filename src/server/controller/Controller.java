@@ -7,8 +7,10 @@ import manager.TaskManager;
 import server.controller.adapter.DurationTypeAdapter;
 import server.controller.adapter.LocalDateTimeTypeAdapter;
 import server.controller.adapter.SubtaskTypeAdapter;
+import server.controller.adapter.TaskTypeAdapter;
 import server.exception.WrongFormatRequestException;
 import task.Subtask;
+import task.Task;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -22,6 +24,7 @@ public abstract class Controller {
             .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
             .registerTypeAdapter(Duration.class, new DurationTypeAdapter())
             .registerTypeAdapter(Subtask.class, new SubtaskTypeAdapter())
+            .registerTypeAdapter(Task.class, new TaskTypeAdapter())
             .create();
 
     private final HttpExchange httpExchange;
@@ -0,0 +1,36 @@
+package server.controller;
+
+import com.sun.net.httpserver.HttpExchange;
+import manager.TaskManager;
+import server.annotation.GET;
+import server.annotation.QueryParams;
+import task.AbstractTimeTask;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class PrioritizedController extends Controller {
+    public PrioritizedController(HttpExchange httpExchange, TaskManager taskManager) {
+        super(httpExchange, taskManager);
+    }
+
+    @GET
+    public void getPrioritizedTasks() throws IOException {
+        okJson(taskManager.getPrioritizedTasks());
+    }
+
+    @GET
+    @QueryParams(params = {"from", "to"})
+    public void getPrioritizedTasksBetween(Map<String, String> params)
+            throws IOException {
+        final List<AbstractTimeTask> tasks = new ArrayList<>();
+        taskManager.getPrioritizedTasks(
+                LocalDateTime.parse(params.get("from")),
+                LocalDateTime.parse(params.get("to"))
+        ).forEach(tasks::add);
+        okJson(tasks);
+    }
+}
@@ -0,0 +1,80 @@
+package server.controller.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import task.Status;
+import task.Task;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+public class TaskTypeAdapter extends TypeAdapter<Task> {
+    @Override
+    public void write(JsonWriter jsonWriter, Task task) throws IOException {
+        if (task == null) {
+            jsonWriter.nullValue();
+            return;
+        }
+        jsonWriter.beginObject();
+        jsonWriter.name("startTime");
+        new LocalDateTimeTypeAdapter().write(jsonWriter, task.getStartTime());
+        jsonWriter.name("duration");
+        new DurationTypeAdapter().write(jsonWriter, task.getDuration());
+        jsonWriter.name("id").value(task.getId());
+        jsonWriter.name("name").value(task.getName());
+        jsonWriter.name("description").value(task.getDescription());
+        jsonWriter.name("status").value(task.getStatus().name());
+        jsonWriter.name("taskType").value(task.getType().name());
+        jsonWriter.endObject();
+    }
+
+    @Override
+    public Task read(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+        Long id = null;
+        String name = null;
+        String description = null;
+        Status status = null;
+        LocalDateTime startTime = null;
+        Duration duration = null;
+        jsonReader.beginObject();
+        while (jsonReader.peek() != JsonToken.END_OBJECT) {
+            switch (jsonReader.nextName()) {
+                case "id" -> {
+                    String value = nextNullableString(jsonReader);
+                    id = value == null ? null : Long.parseLong(value);
+                }
+                case "name" -> name = nextNullableString(jsonReader);
+                case "description" -> description = nextNullableString(jsonReader);
+                case "status" -> {
+                    String value = nextNullableString(jsonReader);
+                    status = value == null ? null : Status.valueOf(value);
+                }
+                case "startTime" -> startTime = new LocalDateTimeTypeAdapter().read(jsonReader);
+                case "duration" -> duration = new DurationTypeAdapter().read(jsonReader);
+                default -> jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        final Task task = new Task(name, description, startTime, duration);
+        task.setId(id);
+        if (status != null) {
+            task.setStatus(status);
+        }
+        return task;
+    }
+
+    private static String nextNullableString(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+        return jsonReader.nextString();
+    }
+}
@@ -16,6 +16,10 @@ public abstract class AbstractTask {
 
     protected TaskType taskType;
 
+    private transient volatile DeferredText deferredText;
+
+    private transient int deferredRecord;
+
     protected AbstractTask(String name, String description, TaskType taskType) {
         this.name = name;
         this.description = description;
@@ -24,22 +28,45 @@ public abstract class AbstractTask {
     }
 
     public String getName() {
+        resolveText();
         return this.name;
     }
 
     public void setName(String name) {
+        resolveText();
         this.name = name;
     }
 
 
     public String getDescription() {
+        resolveText();
         return description;
     }
 
     public void setDescription(String description) {
+        resolveText();
         this.description = description;
     }
 
+    public void deferText(DeferredText text, int record) {
+        this.deferredRecord = record;
+        this.deferredText = text;
+    }
+
+    private void resolveText() {
+        DeferredText text = deferredText;
+        if (text == null) {
+            return;
+        }
+        synchronized (this) {
+            if (deferredText != null) {
+                name = text.name(deferredRecord);
+                description = text.description(deferredRecord);
+                deferredText = null;
+            }
+        }
+    }
+
     public Long getId() {
         return id;
     }
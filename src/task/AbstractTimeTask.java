@@ -4,37 +4,58 @@ import manager.TaskType;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 public abstract class AbstractTimeTask extends AbstractTask {
-    private LocalDateTime startTime;
-    private Duration duration;
+    private long startTime;
+    private long duration;
 
     protected AbstractTimeTask(String name, String description, TaskType taskType, LocalDateTime startTime, Duration duration) {
         super(name, description, taskType);
-        this.startTime = startTime;
-        this.duration = duration;
+        this.startTime = toEpochSecond(startTime);
+        this.duration = duration.getSeconds();
+    }
+
+    public static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public static LocalDateTime ofEpochSecond(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
     }
 
     @Override
     public LocalDateTime getStartTime() {
-        return startTime;
+        return ofEpochSecond(startTime);
     }
 
     @Override
     public Duration getDuration() {
+        return Duration.ofSeconds(duration);
+    }
+
+    public long getStartEpochSecond() {
+        return startTime;
+    }
+
+    public long getDurationSeconds() {
         return duration;
     }
 
+    public long getEndEpochSecond() {
+        return startTime + duration;
+    }
+
     public void setStartTime(LocalDateTime startTime) {
-        this.startTime = startTime;
+        this.startTime = toEpochSecond(startTime);
     }
 
     public void setDuration(Duration duration) {
-        this.duration = duration;
+        this.duration = duration.getSeconds();
     }
 
     @Override
     public LocalDateTime getEndTime() {
-        return startTime.plus(duration);
+        return ofEpochSecond(getEndEpochSecond());
     }
 }
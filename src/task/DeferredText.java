@@ -0,0 +1,7 @@
+package task;
+
+public interface DeferredText {
+    String name(int record);
+
+    String description(int record);
+}
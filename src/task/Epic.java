@@ -4,13 +4,16 @@ import manager.TaskType;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 
 public class Epic extends AbstractTask {
 
     private List<Subtask> subtasks;
 
+    private transient SubtaskSummary summary;
+
     public Epic(String name, String description) {
         super(name, description, TaskType.EPIC);
         this.subtasks = new ArrayList<>();
@@ -21,21 +24,78 @@ public class Epic extends AbstractTask {
     }
 
     public void setSubtasks(List<Subtask> subtasks) {
+        if (summary != null) {
+            this.subtasks.forEach(subtask -> subtask.releaseSummarizingEpic(this));
+            summary = null;
+        }
         this.subtasks = subtasks;
     }
 
     public void clear() {
         setStatus(Status.NEW);
+        subtasks.forEach(subtask -> subtask.releaseSummarizingEpic(this));
         subtasks.clear();
+        summary = new SubtaskSummary();
     }
 
     public Epic addSubtask(Subtask subtask) {
+        summary().add(subtask);
         subtasks.add(subtask);
+        subtask.setSummarizingEpic(this);
         return this;
     }
 
-    private List<Long> getSubtaskIds() {
-        return getSubtasks().stream().map(Subtask::getId).collect(Collectors.toList());
+    public boolean removeSubtask(Subtask subtask) {
+        SubtaskSummary summary = summary();
+        if (!subtasks.remove(subtask)) {
+            return false;
+        }
+        summary.remove(subtask);
+        subtask.releaseSummarizingEpic(this);
+        return true;
+    }
+
+    public Status getSubtasksStatus() {
+        return summary().getStatus();
+    }
+
+    void beforeSubtaskChange(Subtask subtask) {
+        summary().remove(subtask);
+    }
+
+    void afterSubtaskChange(Subtask subtask) {
+        summary().add(subtask);
+    }
+
+    private SubtaskSummary summary() {
+        if (summary == null) {
+            summary = new SubtaskSummary();
+            for (Subtask subtask : subtasks) {
+                summary.add(subtask);
+                subtask.setSummarizingEpic(this);
+            }
+        }
+        return summary;
+    }
+
+    private boolean hasSameSubtaskIds(Epic epic) {
+        if (subtasks.size() != epic.subtasks.size()) {
+            return false;
+        }
+        for (int i = 0; i < subtasks.size(); i++) {
+            if (!Objects.equals(subtasks.get(i).getId(), epic.subtasks.get(i).getId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int subtaskIdsHashCode() {
+        int result = 1;
+        for (Subtask subtask : subtasks) {
+            result = 31 * result + Objects.hashCode(subtask.getId());
+        }
+        return result;
     }
 
     @Override
@@ -50,17 +110,17 @@ public class Epic extends AbstractTask {
 
     @Override
     public LocalDateTime getStartTime() {
-        return subtasks.stream().map(Subtask::getStartTime).min(Comparator.naturalOrder()).orElse(null);
+        return summary().getStartTime();
     }
 
     @Override
     public Duration getDuration() {
-        return subtasks.stream().map(Subtask::getDuration).reduce(Duration::plus).orElse(Duration.ZERO);
+        return summary().getDuration();
     }
 
     @Override
     public LocalDateTime getEndTime() {
-        return subtasks.stream().map(Subtask::getEndTime).max(Comparator.naturalOrder()).orElse(null);
+        return summary().getEndTime();
     }
 
     @Override
@@ -68,11 +128,11 @@ public class Epic extends AbstractTask {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Epic epic = (Epic) o;
-        return Objects.equals(getSubtaskIds(), epic.getSubtaskIds()) && Objects.equals(getId(), epic.getId());
+        return hasSameSubtaskIds(epic) && Objects.equals(getId(), epic.getId());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getSubtaskIds(), getId());
+        return 31 * (31 + subtaskIdsHashCode()) + Objects.hashCode(getId());
     }
 }
@@ -11,6 +11,8 @@ public class Subtask extends AbstractTimeTask {
 
     private Epic parentEpic;
 
+    private transient Epic summarizingEpic;
+
     @Builder
     public Subtask(String name, String description, Epic epic, LocalDateTime startTime, Duration duration) {
         super(name, description, TaskType.SUBTASK, startTime, duration);
@@ -26,6 +28,42 @@ public class Subtask extends AbstractTimeTask {
         this.parentEpic = parentEpic;
     }
 
+    void setSummarizingEpic(Epic summarizingEpic) {
+        this.summarizingEpic = summarizingEpic;
+    }
+
+    void releaseSummarizingEpic(Epic epic) {
+        if (summarizingEpic == epic) {
+            summarizingEpic = null;
+        }
+    }
+
+    private void updateSummarized(Runnable update) {
+        Epic epic = summarizingEpic;
+        if (epic == null) {
+            update.run();
+            return;
+        }
+        epic.beforeSubtaskChange(this);
+        update.run();
+        epic.afterSubtaskChange(this);
+    }
+
+    @Override
+    public void setStatus(Status status) {
+        updateSummarized(() -> super.setStatus(status));
+    }
+
+    @Override
+    public void setStartTime(LocalDateTime startTime) {
+        updateSummarized(() -> super.setStartTime(startTime));
+    }
+
+    @Override
+    public void setDuration(Duration duration) {
+        updateSummarized(() -> super.setDuration(duration));
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
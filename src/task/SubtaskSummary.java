@@ -0,0 +1,79 @@
+package task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+class SubtaskSummary {
+    private final NavigableMap<Long, Integer> startTimes = new TreeMap<>();
+    private final NavigableMap<Long, Integer> endTimes = new TreeMap<>();
+    private long durationSeconds;
+    private Duration duration = Duration.ZERO;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private final int[] statusCounts = new int[Status.values().length];
+    private int size;
+    private boolean stale;
+
+    void add(Subtask subtask) {
+        size++;
+        if (subtask.getStatus() != null) {
+            statusCounts[subtask.getStatus().ordinal()]++;
+        }
+        startTimes.merge(subtask.getStartEpochSecond(), 1, Integer::sum);
+        endTimes.merge(subtask.getEndEpochSecond(), 1, Integer::sum);
+        durationSeconds += subtask.getDurationSeconds();
+        stale = true;
+    }
+
+    void remove(Subtask subtask) {
+        size--;
+        if (subtask.getStatus() != null) {
+            statusCounts[subtask.getStatus().ordinal()]--;
+        }
+        decrement(startTimes, subtask.getStartEpochSecond());
+        decrement(endTimes, subtask.getEndEpochSecond());
+        durationSeconds -= subtask.getDurationSeconds();
+        stale = true;
+    }
+
+    LocalDateTime getStartTime() {
+        refresh();
+        return startTime;
+    }
+
+    Duration getDuration() {
+        refresh();
+        return duration;
+    }
+
+    LocalDateTime getEndTime() {
+        refresh();
+        return endTime;
+    }
+
+    Status getStatus() {
+        if (size == statusCounts[Status.NEW.ordinal()]) {
+            return Status.NEW;
+        }
+        if (size == statusCounts[Status.DONE.ordinal()]) {
+            return Status.DONE;
+        }
+        return Status.IN_PROGRESS;
+    }
+
+    private void refresh() {
+        if (!stale) {
+            return;
+        }
+        stale = false;
+        startTime = startTimes.isEmpty() ? null : AbstractTimeTask.ofEpochSecond(startTimes.firstKey());
+        endTime = endTimes.isEmpty() ? null : AbstractTimeTask.ofEpochSecond(endTimes.lastKey());
+        duration = Duration.ofSeconds(durationSeconds);
+    }
+
+    private static void decrement(NavigableMap<Long, Integer> times, long time) {
+        times.computeIfPresent(time, (t, count) -> count == 1 ? null : count - 1);
+    }
+}
@@ -0,0 +1,88 @@
+package benchmark;
+
+import manager.CSVFormatter;
+import task.Status;
+import task.Task;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class CsvCodecAllocation {
+    private static final int RECORDS = 100_000;
+    private static final int ROUNDS = 5;
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long blackhole;
+
+    private static String legacyToString(Task task) {
+        return Stream.of(
+                task.getId(),
+                task.getType(),
+                task.getName(),
+                task.getStatus(),
+                task.getDescription(),
+                task.getStartTime(),
+                task.getDuration()
+        ).map(Objects::toString).collect(Collectors.joining(","));
+    }
+
+    private static Task legacyParse(String value) {
+        String[] splitValue = value.split(",");
+        Task task = new Task(splitValue[2], splitValue[4], LocalDateTime.parse(splitValue[5]),
+                Duration.parse(splitValue[6]));
+        task.setId(Long.parseLong(splitValue[0]));
+        task.setStatus(Status.valueOf(splitValue[3]));
+        return task;
+    }
+
+    private static void measure(String label, Runnable encode, Runnable decode) {
+        long[] bytes = new long[2];
+        long[] nanos = {Long.MAX_VALUE, Long.MAX_VALUE};
+        Runnable[] phases = {encode, decode};
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int phase = 0; phase < phases.length; phase++) {
+                long allocated = THREADS.getCurrentThreadAllocatedBytes();
+                long start = System.nanoTime();
+                phases[phase].run();
+                nanos[phase] = Math.min(nanos[phase], System.nanoTime() - start);
+                bytes[phase] = THREADS.getCurrentThreadAllocatedBytes() - allocated;
+            }
+        }
+        System.out.printf("%-7s encode %,5d ns %,5d B/record, decode %,5d ns %,5d B/record%n", label,
+                nanos[0] / RECORDS, bytes[0] / RECORDS, nanos[1] / RECORDS, bytes[1] / RECORDS);
+    }
+
+    public static void main(String[] args) {
+        List<Task> tasks = new ArrayList<>(RECORDS);
+        LocalDateTime time = LocalDateTime.of(2000, 1, 1, 0, 0);
+        for (int i = 0; i < RECORDS; i++) {
+            Task task = new Task("task" + i, "description of task " + i, time, Duration.ofMinutes(95));
+            task.setId((long) i + 1);
+            tasks.add(task);
+            time = time.plusMinutes(10);
+        }
+        List<String> lines = tasks.stream().map(CSVFormatter::toString).toList();
+        StringBuilder buffer = new StringBuilder(256);
+
+        measure("legacy", () -> tasks.forEach(task -> blackhole += legacyToString(task).length()),
+                () -> lines.forEach(line -> blackhole += legacyParse(line).getDurationSeconds()));
+        measure("codec", () -> tasks.forEach(task -> {
+            buffer.setLength(0);
+            try {
+                CSVFormatter.write(buffer, task);
+            } catch (IOException exception) {
+                throw new IllegalStateException(exception);
+            }
+            blackhole += buffer.length();
+        }), () -> lines.forEach(line -> blackhole += CSVFormatter.parseTask(line).getDurationSeconds()));
+        System.out.println(blackhole == 0 ? "" : "done");
+    }
+}
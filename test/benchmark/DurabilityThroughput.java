@@ -0,0 +1,71 @@
+package benchmark;
+
+import manager.Durability;
+import manager.FileBackedOptions;
+import manager.FileBackedTasksManager;
+import manager.PersistenceMode;
+import task.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+public class DurabilityThroughput {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 2_000;
+
+    private static void measure(Durability durability) throws Exception {
+        Path directory = Files.createTempDirectory("durability");
+        FileBackedOptions options = FileBackedOptions.builder()
+                .mode(PersistenceMode.JOURNAL)
+                .durability(durability)
+                .compactionLogSize(0)
+                .build();
+        FileBackedTasksManager manager = new FileBackedTasksManager(directory.resolve("data"), options);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            LocalDateTime from = LocalDateTime.of(2000 + thread, 1, 1, 0, 0);
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    manager.addNewTask(new Task("name", "desc", from.plusHours(i), Duration.ofMinutes(5)));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long acknowledged = System.nanoTime() - start;
+        manager.close();
+        long durable = System.nanoTime() - start;
+        executor.shutdown();
+        int operations = THREADS * OPERATIONS_PER_THREAD;
+        System.out.printf("%-6s %,d ops: %,.0f ops/s acknowledged, %,.0f ops/s durable%n", durability, operations,
+                operations * 1e9 / acknowledged, operations * 1e9 / durable);
+        delete(directory);
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (Durability durability : Durability.values()) {
+            measure(durability);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package benchmark;
+
+import server.KVServer;
+import server.KVTaskClient;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public class KVBatchSync {
+    private static final int KEYS = 5_000;
+    private static final URI SERVER = URI.create("http://localhost:" + KVServer.PORT);
+
+    private static void report(String label, long elapsed) {
+        System.out.printf("%-18s %,6d ms for %,d keys%n", label, elapsed / 1_000_000, KEYS);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty(KVServer.NODELAY_PROPERTY, "true");
+        KVServer server = new KVServer();
+        server.start();
+        try {
+            KVTaskClient client = new KVTaskClient(SERVER);
+            Map<String, String> values = new LinkedHashMap<>();
+            for (int i = 0; i < KEYS; i++) {
+                values.put("board.epic-" + i, "x".repeat(256));
+            }
+
+            long start = System.nanoTime();
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                client.put(entry.getKey(), entry.getValue());
+            }
+            report("put per key", System.nanoTime() - start);
+
+            start = System.nanoTime();
+            List<CompletableFuture<Void>> puts = new ArrayList<>(KEYS);
+            values.forEach((key, value) -> puts.add(client.putAsync(key, value)));
+            CompletableFuture.allOf(puts.toArray(CompletableFuture[]::new)).join();
+            report("putAsync per key", System.nanoTime() - start);
+
+            start = System.nanoTime();
+            client.putAll(values);
+            report("putAll", System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (String key : values.keySet()) {
+                client.load(key);
+            }
+            report("load per key", System.nanoTime() - start);
+
+            start = System.nanoTime();
+            List<CompletableFuture<String>> loads = new ArrayList<>(KEYS);
+            values.keySet().forEach(key -> loads.add(client.loadAsync(key)));
+            CompletableFuture.allOf(loads.toArray(CompletableFuture[]::new)).join();
+            report("loadAsync per key", System.nanoTime() - start);
+
+            start = System.nanoTime();
+            client.loadAll(values.keySet());
+            report("loadAll", System.nanoTime() - start);
+        } finally {
+            server.stop();
+        }
+    }
+}
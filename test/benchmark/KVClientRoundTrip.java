@@ -0,0 +1,58 @@
+package benchmark;
+
+import server.KVServer;
+import server.KVTaskClient;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class KVClientRoundTrip {
+    private static final int REQUESTS = 2_000;
+    private static final URI SERVER = URI.create("http://localhost:" + KVServer.PORT);
+
+    private static void report(String label, long elapsed) {
+        System.out.printf("%-22s %,8d ns/put, %,7d puts/s%n", label, elapsed / REQUESTS,
+                REQUESTS * 1_000_000_000L / elapsed);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty(KVServer.NODELAY_PROPERTY, "true");
+        KVServer server = new KVServer();
+        server.start();
+        try {
+            KVTaskClient client = new KVTaskClient(SERVER);
+            String token = HttpClient.newHttpClient().send(HttpRequest.newBuilder(SERVER.resolve("/register")).build(),
+                    HttpResponse.BodyHandlers.ofString()).body();
+            String value = "x".repeat(1024);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                HttpClient fresh = HttpClient.newHttpClient();
+                fresh.send(HttpRequest.newBuilder(URI.create(SERVER + "/save/key" + i + "?API_TOKEN=" + token))
+                        .POST(HttpRequest.BodyPublishers.ofString(value)).build(), HttpResponse.BodyHandlers.ofString());
+            }
+            report("client per request", System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                client.put("key" + i, value);
+            }
+            report("shared client, put", System.nanoTime() - start);
+
+            start = System.nanoTime();
+            List<CompletableFuture<Void>> puts = new ArrayList<>(REQUESTS);
+            for (int i = 0; i < REQUESTS; i++) {
+                puts.add(client.putAsync("key" + i, value));
+            }
+            CompletableFuture.allOf(puts.toArray(CompletableFuture[]::new)).join();
+            report("shared client, putAsync", System.nanoTime() - start);
+        } finally {
+            server.stop();
+        }
+    }
+}
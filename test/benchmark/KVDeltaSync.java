@@ -0,0 +1,66 @@
+package benchmark;
+
+import manager.CSVFormatter;
+import manager.HttpTaskManager;
+import server.KVServer;
+import task.AbstractTask;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class KVDeltaSync {
+    private static final int EPICS = 500;
+    private static final int SUBTASKS_PER_EPIC = 20;
+    private static final int UPDATES = 500;
+    private static final URI SERVER = URI.create("http://localhost:" + KVServer.PORT);
+    private static final String KEY = "board";
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty(KVServer.NODELAY_PROPERTY, "true");
+        KVServer server = new KVServer();
+        server.start();
+        try {
+            HttpTaskManager manager = new HttpTaskManager(SERVER, KEY);
+            LocalDateTime time = LocalDateTime.of(2000, 1, 1, 0, 0);
+            for (int i = 0; i < EPICS; i++) {
+                Epic epic = manager.addNewEpic(new Epic("epic" + i, "description of epic " + i));
+                for (int j = 0; j < SUBTASKS_PER_EPIC; j++) {
+                    manager.addNewSubtask(new Subtask("subtask" + j, "description", epic, time, Duration.ofMinutes(5)));
+                    time = time.plusMinutes(10);
+                }
+            }
+            List<AbstractTask> entities = new ArrayList<>(manager.getEpicsList());
+            entities.addAll(manager.getSubtasksList());
+            long boardBytes = entities.stream().mapToLong(task -> CSVFormatter.toString(task).length() + 1).sum();
+
+            Subtask subtask = manager.getSubtasksList().get(SUBTASKS_PER_EPIC * EPICS / 2);
+            long start = System.nanoTime();
+            for (int i = 0; i < UPDATES; i++) {
+                subtask.setStatus(i % 2 == 0 ? Status.DONE : Status.NEW);
+                manager.updateSubtask(subtask);
+            }
+            long elapsed = System.nanoTime() - start;
+            manager.close();
+            Epic parent = subtask.getParentEpic();
+            long segmentBytes = CSVFormatter.toString(parent).length() + 1 + parent.getSubtasks().stream()
+                    .mapToLong(sibling -> CSVFormatter.toString(sibling).length() + 1).sum();
+            System.out.printf("%,d entities: whole board %,9d bytes, uploaded per update %,6d bytes, %,6d us per update%n",
+                    entities.size(), boardBytes, segmentBytes, elapsed / UPDATES / 1_000);
+
+            start = System.nanoTime();
+            HttpTaskManager loaded = HttpTaskManager.loadFromServer(SERVER, KEY);
+            System.out.printf("loadFromServer %,d entities in %,d ms%n",
+                    loaded.getEpicsList().size() + loaded.getSubtasksList().size(),
+                    (System.nanoTime() - start) / 1_000_000);
+            loaded.close();
+        } finally {
+            server.stop();
+        }
+    }
+}
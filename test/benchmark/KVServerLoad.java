@@ -0,0 +1,64 @@
+package benchmark;
+
+import server.KVServer;
+import server.KVServerOptions;
+import server.KVTaskClient;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+public class KVServerLoad {
+    private static final int REQUESTS_PER_CLIENT = 4_000;
+    private static final URI SERVER = URI.create("http://localhost:" + KVServer.PORT);
+
+    private static void measure(int clients) throws Exception {
+        List<Thread> threads = new ArrayList<>(clients);
+        String value = "x".repeat(1024);
+        for (int t = 0; t < clients; t++) {
+            KVTaskClient client = new KVTaskClient(SERVER);
+            int id = t;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        String key = "key" + id + "-" + i % 256;
+                        if (i % 2 == 0) {
+                            client.put(key, value);
+                        } else {
+                            client.load(key);
+                        }
+                    }
+                } catch (Exception exception) {
+                    throw new RuntimeException(exception);
+                }
+            }));
+        }
+        long start = System.nanoTime();
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%3d clients: %,8d requests/s%n", clients,
+                (long) clients * REQUESTS_PER_CLIENT * 1_000_000_000L / elapsed);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty(KVServer.NODELAY_PROPERTY, "true");
+        KVServerOptions options = KVServerOptions.defaults();
+        if (args.length > 0) {
+            options = options.toBuilder().workerThreads(Integer.parseInt(args[0])).build();
+        }
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors()
+                + ", worker threads: " + options.getWorkerThreads());
+        KVServer server = new KVServer(options);
+        server.start();
+        try {
+            for (int clients : new int[]{1, 2, 4, 8, 16}) {
+                measure(clients);
+            }
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package benchmark;
+
+import server.KVServer;
+import server.KVServerOptions;
+import server.KVTaskClient;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class KVServerRestart {
+    private static final int KEYS = 20_000;
+    private static final URI SERVER = URI.create("http://localhost:" + KVServer.PORT);
+
+    private static long start(KVServerOptions options) throws IOException {
+        long start = System.nanoTime();
+        KVServer server = new KVServer(options);
+        long elapsed = System.nanoTime() - start;
+        server.start();
+        server.stop();
+        return elapsed;
+    }
+
+    private static void delete(Path directory, String extension) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                if (extension == null || path.toString().endsWith(extension)) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty(KVServer.NODELAY_PROPERTY, "true");
+        Path directory = Files.createTempDirectory("kv");
+        KVServerOptions options = KVServerOptions.builder().directory(directory).maxFileSize(4L << 20).build();
+        KVServer server = new KVServer(options);
+        server.start();
+        String value = "x".repeat(1024);
+        try {
+            KVTaskClient client = new KVTaskClient(SERVER);
+            long start = System.nanoTime();
+            for (int i = 0; i < KEYS; i++) {
+                client.put("key" + i, value);
+            }
+            System.out.printf("put  %,8d ns/request%n", (System.nanoTime() - start) / KEYS);
+            start = System.nanoTime();
+            for (int i = 0; i < KEYS; i++) {
+                client.load("key" + (i * 7919 % KEYS));
+            }
+            System.out.printf("load %,8d ns/request%n", (System.nanoTime() - start) / KEYS);
+        } finally {
+            server.stop();
+        }
+        System.out.printf("restart with hint files    %,6d ms%n", start(options) / 1_000_000);
+        delete(directory, ".hint");
+        System.out.printf("restart scanning data files %,6d ms%n", start(options) / 1_000_000);
+        delete(directory, null);
+    }
+}
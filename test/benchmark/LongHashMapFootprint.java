@@ -0,0 +1,47 @@
+package benchmark;
+
+import manager.LongHashMap;
+
+import java.lang.ref.Reference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public class LongHashMapFootprint {
+    private static final int ENTITIES = 1_000_000;
+    private static final Object VALUE = new Object();
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void measure(String name, Supplier<Object> filler) {
+        long before = usedMemory();
+        Object map = filler.get();
+        long after = usedMemory();
+        System.out.printf("%-12s %,d entities: %,d bytes (%.1f bytes/entity)%n",
+                name, ENTITIES, after - before, (double) (after - before) / ENTITIES);
+        Reference.reachabilityFence(map);
+    }
+
+    public static void main(String[] args) {
+        measure("HashMap", () -> {
+            Map<Long, Object> map = new HashMap<>();
+            for (long id = 1; id <= ENTITIES; id++) {
+                map.put(id, VALUE);
+            }
+            return map;
+        });
+        measure("LongHashMap", () -> {
+            LongHashMap<Object> map = new LongHashMap<>();
+            for (long id = 1; id <= ENTITIES; id++) {
+                map.put(id, VALUE);
+            }
+            return map;
+        });
+    }
+}
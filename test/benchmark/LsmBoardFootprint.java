@@ -0,0 +1,92 @@
+package benchmark;
+
+import manager.InMemoryTaskManager;
+import manager.LsmTaskManager;
+import manager.TaskManager;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class LsmBoardFootprint {
+    private static final int EPICS = 20_000;
+    private static final int SUBTASKS_PER_EPIC = 20;
+    private static final int LOOKUPS = 20_000;
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void fill(TaskManager manager) {
+        LocalDateTime time = LocalDateTime.of(2000, 1, 1, 0, 0);
+        for (int i = 0; i < EPICS; i++) {
+            manager.addNewTask(new Task("task" + i, "description of task " + i, time, Duration.ofMinutes(5)));
+            time = time.plusMinutes(10);
+            Epic epic = manager.addNewEpic(new Epic("epic" + i, "description of epic " + i));
+            for (int j = 0; j < SUBTASKS_PER_EPIC; j++) {
+                manager.addNewSubtask(new Subtask("subtask" + j, "description of subtask " + j, epic, time,
+                        Duration.ofMinutes(5)));
+                time = time.plusMinutes(10);
+            }
+        }
+    }
+
+    private static void measure(String name, TaskManager manager) {
+        long before = usedMemory();
+        long start = System.nanoTime();
+        fill(manager);
+        long filled = System.nanoTime() - start;
+        long after = usedMemory();
+        Random random = new Random(42);
+        long entities = (long) EPICS * (2 + SUBTASKS_PER_EPIC);
+        start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            manager.getSubtaskById(1 + (long) random.nextInt((int) entities));
+        }
+        long lookups = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            manager.addNewTask(new Task("clash", "desc", LocalDateTime.of(2000, 1, 1, 0, 0)
+                    .plusMinutes(10L * random.nextInt((int) entities)), Duration.ofMinutes(1)));
+        }
+        long overlaps = System.nanoTime() - start;
+        System.out.printf("%-9s %,d entities: heap %,11d bytes, fill %,6d ms, getSubtaskById %,6d ns, "
+                        + "overlap check %,6d ns%n", name, entities, after - before, filled / 1_000_000,
+                lookups / LOOKUPS, overlaps / LOOKUPS);
+        Reference.reachabilityFence(manager);
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || args[0].equals("memory")) {
+            measure("in-memory", new InMemoryTaskManager());
+        }
+        if (args.length == 0 || args[0].equals("lsm")) {
+            Path directory = Files.createTempDirectory("lsm");
+            try (LsmTaskManager manager = new LsmTaskManager(directory)) {
+                measure("lsm", manager);
+            }
+            delete(directory);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package benchmark;
+
+import manager.CacheStats;
+import manager.PagedOptions;
+import manager.PagedTaskManager;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+public class PagedCacheBenchmark {
+    private static final int EPICS = 10_000;
+    private static final int SUBTASKS_PER_EPIC = 20;
+    private static final int LOOKUPS = 200_000;
+    private static final long[] CACHE_SIZES = {1L << 20, 8L << 20, 64L << 20};
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void fill(PagedTaskManager manager) {
+        LocalDateTime time = LocalDateTime.of(2000, 1, 1, 0, 0);
+        for (int i = 0; i < EPICS; i++) {
+            manager.addNewTask(new Task("task" + i, "description of task " + i, time, Duration.ofMinutes(5)));
+            time = time.plusMinutes(10);
+            Epic epic = manager.addNewEpic(new Epic("epic" + i, "description of epic " + i));
+            for (int j = 0; j < SUBTASKS_PER_EPIC; j++) {
+                manager.addNewSubtask(new Subtask("subtask" + j, "description of subtask " + j, epic, time,
+                        Duration.ofMinutes(5)));
+                time = time.plusMinutes(10);
+            }
+        }
+    }
+
+    private static long skewedSubtask(Random random) {
+        int epic = random.nextInt(10) < 8 ? random.nextInt(EPICS / 5) : random.nextInt(EPICS);
+        return 3 + (long) epic * (2 + SUBTASKS_PER_EPIC) + random.nextInt(SUBTASKS_PER_EPIC);
+    }
+
+    private static void measure(Path data, long cacheSize) throws IOException {
+        long before = usedMemory();
+        try (PagedTaskManager manager = new PagedTaskManager(data, PagedOptions.builder().cacheSize(cacheSize).build())) {
+            long indexed = usedMemory();
+            Random random = new Random(42);
+            long start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                manager.getSubtaskById(skewedSubtask(random));
+            }
+            long elapsed = System.nanoTime() - start;
+            long cached = usedMemory();
+            CacheStats stats = manager.cacheStats();
+            System.out.printf("cache %,11d bytes: heap %,11d bytes (indexes %,11d), getSubtaskById %,6d ns, "
+                            + "hit rate %5.1f%%, evictions %,d%n", cacheSize, cached - before, indexed - before,
+                    elapsed / LOOKUPS, 100 * stats.hitRate(), stats.getEvictions());
+            Reference.reachabilityFence(manager);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("paged");
+        Path data = directory.resolve("data");
+        try (PagedTaskManager manager = new PagedTaskManager(data)) {
+            fill(manager);
+        }
+        System.out.printf("%,d entities, file %,d bytes%n", (long) EPICS * (2 + SUBTASKS_PER_EPIC), Files.size(data));
+        for (long cacheSize : CACHE_SIZES) {
+            measure(data, cacheSize);
+        }
+        Files.delete(data);
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,60 @@
+package benchmark;
+
+import manager.FileBackedOptions;
+import manager.FileBackedTasksManager;
+import manager.SnapshotFormat;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+public class ParallelLoadBenchmark {
+    private static final int EPICS = 20_000;
+    private static final int SUBTASKS_PER_EPIC = 50;
+    private static final int ROUNDS = 3;
+
+    private static Path fill() throws Exception {
+        Path data = Files.createTempFile("parallel-load", ".csv");
+        LocalDateTime time = LocalDateTime.of(2000, 1, 1, 0, 0);
+        long id = 1;
+        try (BufferedWriter writer = Files.newBufferedWriter(data)) {
+            for (int i = 0; i < EPICS; i++) {
+                long epic = id++;
+                for (int j = 0; j < SUBTASKS_PER_EPIC; j++) {
+                    writer.write((id++) + ",SUBTASK,subtask" + j + ",NEW,description," + epic + "," + time + ",PT5M");
+                    writer.newLine();
+                    time = time.plusMinutes(10);
+                }
+                writer.write(epic + ",EPIC,epic" + i + ",NEW,description of epic " + i);
+                writer.newLine();
+            }
+        }
+        return data;
+    }
+
+    private static void measure(Path data, int parallelism) {
+        FileBackedOptions options = FileBackedOptions.builder()
+                .snapshotFormat(SnapshotFormat.CSV)
+                .loadParallelism(parallelism)
+                .build();
+        long load = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            FileBackedTasksManager.loadFromFile(data, options);
+            load = Math.min(load, System.nanoTime() - start);
+        }
+        System.out.printf("parallelism %-6s load %,d ms%n", parallelism == 0 ? "common" : parallelism,
+                load / 1_000_000);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path data = fill();
+        System.out.printf("%,d entities, %,d bytes, %d cores%n", EPICS * (1 + SUBTASKS_PER_EPIC), Files.size(data),
+                Runtime.getRuntime().availableProcessors());
+        for (int parallelism : new int[]{1, 2, 4, 8, 0}) {
+            measure(data, parallelism);
+        }
+        Files.deleteIfExists(data);
+    }
+}
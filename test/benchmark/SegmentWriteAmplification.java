@@ -0,0 +1,75 @@
+package benchmark;
+
+import manager.FileBackedOptions;
+import manager.FileBackedTasksManager;
+import manager.PersistenceMode;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class SegmentWriteAmplification {
+    private static final int EPICS = 1_000;
+    private static final int SUBTASKS_PER_EPIC = 100;
+    private static final int UPDATES = 200;
+
+    private static void measure(PersistenceMode mode) throws Exception {
+        Path directory = Files.createTempDirectory("segments");
+        Path data = directory.resolve("data");
+        FileBackedOptions options = FileBackedOptions.builder().mode(mode).build();
+        try (FileBackedTasksManager manager = new FileBackedTasksManager(data,
+                options.toBuilder().writeBehindDelay(Duration.ofHours(1)).build())) {
+            LocalDateTime time = LocalDateTime.of(2000, 1, 1, 0, 0);
+            for (int i = 0; i < EPICS; i++) {
+                Epic epic = manager.addNewEpic(new Epic("epic" + i, "description of epic " + i));
+                for (int j = 0; j < SUBTASKS_PER_EPIC; j++) {
+                    manager.addNewSubtask(new Subtask("subtask" + j, "description", epic, time, Duration.ofMinutes(5)));
+                    time = time.plusMinutes(10);
+                }
+            }
+        }
+        FileBackedTasksManager manager = FileBackedTasksManager.loadFromFile(data, options);
+        Subtask subtask = manager.getSubtasksList().get(SUBTASKS_PER_EPIC * EPICS / 2);
+        long start = System.nanoTime();
+        for (int i = 0; i < UPDATES; i++) {
+            subtask.setStatus(i % 2 == 0 ? Status.DONE : Status.NEW);
+            manager.updateSubtask(subtask);
+        }
+        long elapsed = System.nanoTime() - start;
+        manager.close();
+        long written = mode == PersistenceMode.SEGMENTED ? latestSegmentSize(directory) + Files.size(data) : Files.size(data);
+        System.out.printf("%-9s %,d entities: %,7d bytes written per update, %,6d us per update%n", mode,
+                EPICS * (1 + SUBTASKS_PER_EPIC), written, elapsed / UPDATES / 1_000);
+        delete(directory);
+    }
+
+    private static long latestSegmentSize(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.list(directory.resolve("data.segments"))) {
+            Path latest = paths.max(Comparator.comparingLong(path -> {
+                String name = path.getFileName().toString();
+                return Long.parseLong(name.substring(name.lastIndexOf('.') + 1));
+            })).orElseThrow();
+            return Files.size(latest);
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        measure(PersistenceMode.SNAPSHOT);
+        measure(PersistenceMode.SEGMENTED);
+    }
+}
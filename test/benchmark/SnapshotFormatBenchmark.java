@@ -0,0 +1,89 @@
+package benchmark;
+
+import manager.Compression;
+import manager.FileBackedOptions;
+import manager.FileBackedTasksManager;
+import manager.SnapshotFormat;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+public class SnapshotFormatBenchmark {
+    private static final int TASKS = 100_000;
+    private static final int EPICS = 1_000;
+    private static final int SUBTASKS_PER_EPIC = 100;
+    private static final int ROUNDS = 5;
+
+    private static void measure(SnapshotFormat format, Compression compression) throws Exception {
+        Path data = Files.createTempFile("snapshot", "." + format.name().toLowerCase());
+        FileBackedOptions options = FileBackedOptions.builder()
+                .snapshotFormat(format)
+                .compression(compression)
+                .build();
+        FileBackedTasksManager manager = FileBackedTasksManager.loadFromFile(fill(data, options), options);
+        long save = Long.MAX_VALUE;
+        long load = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            Task task = manager.getTasksList().get(0);
+            long start = System.nanoTime();
+            manager.updateTask(task);
+            save = Math.min(save, System.nanoTime() - start);
+            start = System.nanoTime();
+            FileBackedTasksManager.loadFromFile(data, options);
+            load = Math.min(load, System.nanoTime() - start);
+        }
+        System.out.printf("%-12s %-7s %,d entities: %,11d bytes, save %,d ms, load %,d ms%n", format, compression,
+                TASKS + EPICS * (1 + SUBTASKS_PER_EPIC), Files.size(data), save / 1_000_000, load / 1_000_000);
+        manager.close();
+        Files.deleteIfExists(data);
+        Files.deleteIfExists(data.resolveSibling(data.getFileName() + ".history"));
+    }
+
+    private static Path fill(Path data, FileBackedOptions options) throws Exception {
+        LocalDateTime time = LocalDateTime.of(2000, 1, 1, 0, 0);
+        try (DeferredManager manager = new DeferredManager(data, options)) {
+            for (int i = 0; i < TASKS; i++) {
+                manager.addNewTask(new Task("task" + i, "description of task " + i, time, Duration.ofMinutes(5)));
+                time = time.plusMinutes(10);
+            }
+            for (int i = 0; i < EPICS; i++) {
+                Epic epic = manager.addNewEpic(new Epic("epic" + i, "description of epic " + i));
+                for (int j = 0; j < SUBTASKS_PER_EPIC; j++) {
+                    manager.addNewSubtask(new Subtask("subtask" + j, "description", epic, time, Duration.ofMinutes(5)));
+                    time = time.plusMinutes(10);
+                }
+            }
+            manager.deferred = false;
+            manager.save();
+        }
+        return data;
+    }
+
+    private static class DeferredManager extends FileBackedTasksManager {
+        private boolean deferred = true;
+
+        private DeferredManager(Path data, FileBackedOptions options) {
+            super(data, options);
+        }
+
+        @Override
+        protected void save() {
+            if (!deferred) {
+                super.save();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            for (Compression compression : Compression.values()) {
+                measure(format, compression);
+            }
+        }
+    }
+}
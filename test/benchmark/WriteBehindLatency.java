@@ -0,0 +1,54 @@
+package benchmark;
+
+import manager.FileBackedOptions;
+import manager.FileBackedTasksManager;
+import task.Task;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+public class WriteBehindLatency {
+    private static final int TASKS = 20_000;
+    private static final int UPDATES = 2_000;
+
+    private static void measure(Path data, FileBackedOptions options, String label) throws Exception {
+        FileBackedTasksManager manager = FileBackedTasksManager.loadFromFile(data, options);
+        List<Task> tasks = manager.getTasksList();
+        long[] latencies = new long[UPDATES];
+        long start = System.nanoTime();
+        for (int i = 0; i < UPDATES; i++) {
+            Task task = tasks.get(i % tasks.size());
+            task.setDescription("update " + i);
+            long begin = System.nanoTime();
+            manager.updateTask(task);
+            latencies[i] = System.nanoTime() - begin;
+        }
+        long acknowledged = System.nanoTime() - start;
+        manager.close();
+        long durable = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        System.out.printf("%-13s p50 %,9d ns, p99 %,11d ns, %,6d ms acknowledged, %,6d ms durable%n", label,
+                latencies[UPDATES / 2], latencies[UPDATES * 99 / 100], acknowledged / 1_000_000,
+                durable / 1_000_000);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path data = Files.createTempFile("write-behind", ".bin");
+        FileBackedOptions writeBehind = FileBackedOptions.builder().writeBehindDelay(Duration.ofMillis(50)).build();
+        try (FileBackedTasksManager manager = new FileBackedTasksManager(data, writeBehind)) {
+            LocalDateTime time = LocalDateTime.of(2000, 1, 1, 0, 0);
+            for (int i = 0; i < TASKS; i++) {
+                manager.addNewTask(new Task("task" + i, "description of task " + i, time, Duration.ofMinutes(5)));
+                time = time.plusMinutes(10);
+            }
+        }
+        measure(data, FileBackedOptions.defaults(), "synchronous");
+        measure(data, writeBehind, "write-behind");
+        Files.deleteIfExists(data);
+        Files.deleteIfExists(data.resolveSibling(data.getFileName() + ".history"));
+    }
+}
@@ -0,0 +1,126 @@
+package manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import task.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+abstract class AbstractDiskTaskManagerTest extends AbstractTaskManagerTest {
+    @TempDir
+    Path directory;
+
+    abstract TaskManager taskManager(Duration historyFlushDelay);
+
+    abstract TaskManager taskManager(Durability durability);
+
+    abstract Path log() throws IOException;
+
+    @AfterEach
+    public void close() throws IOException {
+        ((Closeable) taskManager).close();
+    }
+
+    TaskManager reopen() throws IOException {
+        ((Closeable) taskManager).close();
+        taskManager = taskManager();
+        return taskManager;
+    }
+
+    protected TaskManager fillBoth(int epics) {
+        InMemoryTaskManager expected = new InMemoryTaskManager();
+        LocalDateTime time = LocalDateTime.of(2000, 1, 1, 0, 0);
+        for (TaskManager manager : List.of(expected, taskManager)) {
+            for (int i = 0; i < epics; i++) {
+                LocalDateTime start = time.plusHours(i);
+                manager.addNewTask(new Task("task " + i, "description, of task", start, Duration.ofMinutes(5)));
+                Epic epic = manager.addNewEpic(new Epic("epic " + i, "description of epic"));
+                manager.addNewSubtask(new Subtask("subtask " + i, "first", epic, start.plusMinutes(10),
+                        Duration.ofMinutes(5)));
+                manager.addNewSubtask(new Subtask("subtask " + i, "second", epic, start.plusMinutes(20),
+                        Duration.ofMinutes(5)));
+            }
+            Subtask done = manager.getSubtasksList().get(1);
+            done.setStatus(Status.DONE);
+            manager.updateSubtask(done);
+            manager.removeTaskById(manager.getTasksList().get(2).getId());
+            manager.getEpicById(manager.getEpicsList().get(0).getId());
+            manager.getTaskById(manager.getTasksList().get(0).getId());
+        }
+        return expected;
+    }
+
+    protected long directorySize() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
+    @Test
+    void matchesInMemoryTaskManager() {
+        TaskManager expected = fillBoth(200);
+
+        assertTaskManagersEquals(expected, taskManager);
+        assertEquals(Status.IN_PROGRESS, taskManager.getEpicsList().get(0).getStatus());
+    }
+
+    @Test
+    void reopen_restoresState() throws IOException {
+        TaskManager expected = fillBoth(50);
+
+        TaskManager reopened = reopen();
+
+        assertTaskManagersEquals(expected, reopened);
+        LocalDateTime time = LocalDateTime.of(2100, 1, 1, 0, 0);
+        assertEquals(expected.addNewTask(new Task("name", "desc", time, Duration.ZERO)).getId(),
+                reopened.addNewTask(new Task("name", "desc", time, Duration.ZERO)).getId());
+    }
+
+    @Test
+    void reopen_ignoresTornTail() throws IOException {
+        List<Task> tasks = getTasks(3);
+        ((Closeable) taskManager).close();
+        Files.write(log(), new byte[]{0, 0, 0, 100, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        taskManager = taskManager();
+
+        assertEquals(tasks, taskManager.getTasksList());
+        assertNotNull(taskManager.addNewTask(new Task("name", "desc", LocalDateTime.of(2100, 1, 1, 0, 0),
+                Duration.ZERO)));
+        assertEquals(4, reopen().getTasksList().size());
+    }
+
+    @Test
+    void getById_persistsHistoryLazily() throws IOException {
+        List<Task> tasks = getTasks(3);
+        Epic epic = getEpics(1).get(0);
+        List<Subtask> subtasks = getSubtasks(2, epic);
+        ((Closeable) taskManager).close();
+        taskManager = taskManager(Duration.ofHours(1));
+        long size = directorySize();
+
+        taskManager.getTaskById(tasks.get(1).getId());
+        taskManager.getEpicById(epic.getId());
+        taskManager.getSubtaskById(subtasks.get(0).getId());
+
+        assertEquals(size, directorySize());
+        List<AbstractTask> history = taskManager.getHistory();
+        assertEquals(history, reopen().getHistory());
+    }
+
+    @Test
+    void durability_requiresWriteOrFsync() {
+        assertThrows(IllegalArgumentException.class, () -> taskManager(Durability.GROUP));
+    }
+}
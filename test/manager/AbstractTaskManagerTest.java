@@ -52,6 +52,14 @@ abstract class AbstractTaskManagerTest {
                 .collect(Collectors.toList());
     }
 
+    static void assertTaskManagersEquals(TaskManager taskManager1, TaskManager taskManager2) {
+        assertEquals(taskManager1.getTasksList(), taskManager2.getTasksList());
+        assertEquals(taskManager1.getEpicsList(), taskManager2.getEpicsList());
+        assertEquals(taskManager1.getSubtasksList(), taskManager2.getSubtasksList());
+        assertEquals(taskManager1.getHistory(), taskManager2.getHistory());
+        assertEquals(taskManager1.getPrioritizedTasks(), taskManager2.getPrioritizedTasks());
+    }
+
     @BeforeEach
     public void init() {
         taskManager = taskManager();
@@ -142,6 +150,50 @@ abstract class AbstractTaskManagerTest {
         assertEquals(Status.IN_PROGRESS, savedTask.getStatus());
     }
 
+    @Test
+    void updateTask_intersection() {
+        List<Task> tasks = getTasks(2);
+        Task task = tasks.get(1);
+        Task movedTask = new Task(task.getName(), task.getDescription(), tasks.get(0).getStartTime(), DURATION);
+        movedTask.setId(task.getId());
+
+        assertNull(taskManager.updateTask(movedTask));
+        assertEquals(task, taskManager.getTaskById(task.getId()));
+        assertNull(taskManager.addNewTask(new Task("name", "desc", task.getStartTime(), DURATION)));
+    }
+
+    @Test
+    void updateTask_sameTime() {
+        Task task = getTasks(1).get(0);
+        Task updatedTask = new Task("newName", task.getDescription(), task.getStartTime(), DURATION.multipliedBy(2));
+        updatedTask.setId(task.getId());
+
+        taskManager.updateTask(updatedTask);
+
+        assertEquals(List.of(updatedTask), taskManager.getPrioritizedTasks());
+        assertNull(taskManager.addNewTask(new Task("name", "desc", task.getEndTime(), DURATION)));
+    }
+
+    @Test
+    void removeTaskById_releasesTime() {
+        Task task = getTasks(1).get(0);
+
+        taskManager.removeTaskById(task.getId());
+
+        assertNotNull(taskManager.addNewTask(new Task("name", "desc", task.getStartTime(), DURATION)));
+    }
+
+    @Test
+    void clearTasks_releasesTime() {
+        List<Task> tasks = getTasks(10);
+
+        taskManager.clearTasks();
+
+        tasks.forEach(task -> assertNotNull(
+                taskManager.addNewTask(new Task("name", "desc", task.getStartTime(), DURATION))));
+        assertEquals(10, taskManager.getPrioritizedTasks().size());
+    }
+
     @Test
     void updateTask_null() {
         Task task = getTasks(1).get(0);
@@ -433,6 +485,22 @@ abstract class AbstractTaskManagerTest {
         });
     }
 
+    @Test
+    void removeEpicById_cascade() {
+        List<Epic> epics = getEpics(2);
+        List<Subtask> removedSubtasks = getSubtasks(100, epics.get(0));
+        List<Subtask> keptSubtasks = getSubtasks(10, epics.get(1));
+        removedSubtasks.forEach(subtask -> taskManager.getSubtaskById(subtask.getId()));
+
+        taskManager.removeEpicById(epics.get(0).getId());
+
+        assertEquals(keptSubtasks, taskManager.getSubtasksList());
+        assertEquals(keptSubtasks, taskManager.getPrioritizedTasks());
+        assertTrue(taskManager.getHistory().isEmpty());
+        removedSubtasks.forEach(subtask -> assertNotNull(
+                taskManager.addNewTask(new Task("name", "desc", subtask.getStartTime(), DURATION))));
+    }
+
     @Test
     void removeEpicById_unknownId() {
         getEpics(100);
@@ -490,4 +558,25 @@ abstract class AbstractTaskManagerTest {
         tasks.sort(Comparator.comparing(Task::getStartTime));
         assertEquals(tasks, taskManager.getPrioritizedTasks());
     }
+
+    @Test
+    void getPrioritizedTasks_window() {
+        List<Task> tasks = getTasks(10);
+        List<AbstractTimeTask> window = new ArrayList<>();
+
+        taskManager.getPrioritizedTasks(TIME.plusHours(3).plusMinutes(1), TIME.plusHours(6))
+                .forEach(window::add);
+
+        assertEquals(tasks.subList(2, 5), window);
+    }
+
+    @Test
+    void getPrioritizedTasks_emptyWindow() {
+        getTasks(10);
+
+        assertFalse(taskManager.getPrioritizedTasks(TIME.plusHours(3).plusMinutes(5), TIME.plusHours(4))
+                .iterator().hasNext());
+        assertFalse(taskManager.getPrioritizedTasks(TIME.plusYears(1), TIME.plusYears(2))
+                .iterator().hasNext());
+    }
 }
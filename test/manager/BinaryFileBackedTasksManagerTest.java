@@ -0,0 +1,67 @@
+package manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryFileBackedTasksManagerTest extends AbstractTaskManagerTest {
+    @TempDir
+    Path directory;
+
+    private Path data() {
+        return directory.resolve("data");
+    }
+
+    @Override
+    TaskManager taskManager() {
+        return new FileBackedTasksManager(data());
+    }
+
+    @AfterEach
+    public void close() throws IOException {
+        ((FileBackedTasksManager) taskManager).close();
+    }
+
+    private FileBackedTasksManager reload() {
+        ((FileBackedTasksManager) taskManager).flush();
+        return FileBackedTasksManager.loadFromFile(data());
+    }
+
+    @Test
+    void save_defaultsToBinary() throws IOException {
+        getTasks(3);
+
+        byte[] bytes = Files.readAllBytes(data());
+        assertArrayEquals(BinarySnapshotCodec.MAGIC, Arrays.copyOf(bytes, BinarySnapshotCodec.MAGIC.length));
+    }
+
+    @Test
+    void loadFromFile() {
+        List<Task> tasks = getTasks(3);
+        List<Epic> epics = getEpics(2);
+        List<Subtask> subtasks = getSubtasks(3, epics.get(0));
+        getSubtasks(2, epics.get(1));
+        tasks.forEach(task -> taskManager.getTaskById(task.getId()));
+        taskManager.getSubtaskById(subtasks.get(1).getId());
+
+        Subtask subtask = subtasks.get(0);
+        subtask.setStatus(Status.DONE);
+        taskManager.updateSubtask(subtask);
+        taskManager.removeTaskById(tasks.get(1).getId());
+        taskManager.removeEpicById(epics.get(1).getId());
+
+        assertTaskManagersEquals(taskManager, reload());
+    }
+}
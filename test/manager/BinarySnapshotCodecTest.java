@@ -0,0 +1,181 @@
+package manager;
+
+import manager.exception.ManagerLoadException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static manager.AbstractTaskManagerTest.assertTaskManagersEquals;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinarySnapshotCodecTest {
+    private static final FileBackedOptions FIXED = FileBackedOptions.builder()
+            .snapshotFormat(SnapshotFormat.BINARY_FIXED)
+            .build();
+
+    @TempDir
+    Path directory;
+
+    private void fill(TaskManager taskManager) {
+        taskManager.addNewTask(new Task("name, with comma", "desc,\nlines",
+                LocalDateTime.of(1, 1, 1, 0, 0), Duration.ofMinutes(5)));
+        Epic epic = taskManager.addNewEpic(new Epic("epic", "desc"));
+        Subtask subtask = taskManager.addNewSubtask(new Subtask("subtask", "desc", epic,
+                LocalDateTime.of(2030, 6, 1, 12, 30), Duration.ofHours(2)));
+        subtask.setStatus(Status.DONE);
+        taskManager.updateSubtask(subtask);
+    }
+
+    @Test
+    void saveAndLoad() {
+        Path data = directory.resolve("data");
+        FileBackedTasksManager taskManager = new FileBackedTasksManager(data);
+        fill(taskManager);
+
+        assertTaskManagersEquals(taskManager, FileBackedTasksManager.loadFromFile(data));
+    }
+
+    @Test
+    void loadFromFile_migratesCsv() throws IOException {
+        Path data = directory.resolve("data");
+        FileBackedTasksManager csvManager = new FileBackedTasksManager(data, FileBackedOptions.builder()
+                .snapshotFormat(SnapshotFormat.CSV)
+                .build());
+        csvManager.addNewTask(new Task("name", "desc", LocalDateTime.of(2000, 1, 1, 0, 0), Duration.ZERO));
+        long csvSize = Files.size(data);
+
+        FileBackedTasksManager taskManager = FileBackedTasksManager.loadFromFile(data);
+        assertTaskManagersEquals(csvManager, taskManager);
+        taskManager.addNewEpic(new Epic("epic", "desc"));
+
+        byte[] bytes = Files.readAllBytes(data);
+        assertArrayEquals(BinarySnapshotCodec.MAGIC, Arrays.copyOf(bytes, BinarySnapshotCodec.MAGIC.length));
+        assertTrue(bytes.length < csvSize);
+        assertTaskManagersEquals(taskManager, FileBackedTasksManager.loadFromFile(data));
+    }
+
+    @Test
+    void saveAndLoad_fixed() throws IOException {
+        Path data = directory.resolve("data");
+        FileBackedTasksManager taskManager = new FileBackedTasksManager(data, FIXED);
+        fill(taskManager);
+
+        assertEquals(BinarySnapshotCodec.FIXED_VERSION, Files.readAllBytes(data)[BinarySnapshotCodec.MAGIC.length]);
+        assertTaskManagersEquals(taskManager, FileBackedTasksManager.loadFromFile(data, FIXED));
+    }
+
+    @Test
+    void loadFromFile_decodesTextLazily() {
+        Path data = directory.resolve("data");
+        fill(new FileBackedTasksManager(data, FIXED));
+
+        FileBackedTasksManager taskManager = FileBackedTasksManager.loadFromFile(data, FIXED);
+        Task task = taskManager.getTasksList().get(0);
+        assertEquals("name, with comma", task.getName());
+        assertEquals("desc,\nlines", task.getDescription());
+    }
+
+    @Test
+    void loadFromFile_mapsFixedSnapshot() throws IOException {
+        Path data = directory.resolve("data");
+        fill(new FileBackedTasksManager(data, FIXED));
+        byte[] bytes = Files.readAllBytes(data);
+        int name = indexOf(bytes, "name, with comma".getBytes(StandardCharsets.UTF_8));
+
+        FileBackedTasksManager taskManager = FileBackedTasksManager.loadFromFile(data, FIXED);
+        try (FileChannel channel = FileChannel.open(data, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap("N".getBytes(StandardCharsets.UTF_8)), name);
+        }
+
+        assertEquals("Name, with comma", taskManager.getTasksList().get(0).getName());
+    }
+
+    @Test
+    void compact_detachesMappedText() throws IOException {
+        Path data = directory.resolve("data");
+        FileBackedOptions options = FIXED.toBuilder().mode(PersistenceMode.JOURNAL).build();
+        FileBackedTasksManager filled = new FileBackedTasksManager(data, options);
+        fill(filled);
+        filled.compact().join();
+        filled.close();
+        Path link = Files.createLink(directory.resolve("link"), data);
+
+        FileBackedTasksManager taskManager = FileBackedTasksManager.loadFromFile(data, options);
+        taskManager.addNewEpic(new Epic("other", "desc"));
+        taskManager.compact().join();
+        try (FileChannel channel = FileChannel.open(link, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate((int) channel.size()), 0);
+        }
+
+        assertEquals("name, with comma", taskManager.getTasksList().get(0).getName());
+        assertEquals("subtask", taskManager.getSubtasksList().get(0).getName());
+        taskManager.close();
+    }
+
+    private static int indexOf(byte[] bytes, byte[] part) {
+        for (int i = 0; i + part.length <= bytes.length; i++) {
+            if (Arrays.equals(bytes, i, i + part.length, part, 0, part.length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    void save_keepsLazyEntitiesReadable() {
+        Path data = directory.resolve("data");
+        fill(new FileBackedTasksManager(data, FIXED));
+
+        FileBackedTasksManager taskManager = FileBackedTasksManager.loadFromFile(data, FIXED);
+        Subtask subtask = taskManager.getSubtasksList().get(0);
+        taskManager.clearTasks();
+
+        assertEquals("subtask", subtask.getName());
+        assertTaskManagersEquals(taskManager, FileBackedTasksManager.loadFromFile(data));
+    }
+
+    @Test
+    void loadFromFile_unsupportedVersion() throws IOException {
+        Path data = directory.resolve("data");
+        byte[] bytes = Arrays.copyOf(BinarySnapshotCodec.MAGIC, BinarySnapshotCodec.MAGIC.length + 1);
+        bytes[BinarySnapshotCodec.MAGIC.length] = BinarySnapshotCodec.FIXED_VERSION + 1;
+        Files.write(data, bytes);
+
+        assertThrows(ManagerLoadException.class, () -> FileBackedTasksManager.loadFromFile(data));
+    }
+
+    @Test
+    void loadFromFile_truncated() throws IOException {
+        Path data = directory.resolve("data");
+        fill(new FileBackedTasksManager(data));
+        byte[] bytes = Files.readAllBytes(data);
+        Files.write(data, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThrows(ManagerLoadException.class, () -> FileBackedTasksManager.loadFromFile(data));
+    }
+
+    @Test
+    void loadFromFile_tooLarge() throws IOException {
+        Path data = directory.resolve("data");
+        try (FileChannel channel = FileChannel.open(data, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(BinarySnapshotCodec.MAGIC));
+            channel.write(ByteBuffer.wrap(new byte[]{BinarySnapshotCodec.VERSION}), Integer.MAX_VALUE);
+        }
+
+        assertThrows(ManagerLoadException.class, () -> FileBackedTasksManager.loadFromFile(data));
+    }
+}
@@ -0,0 +1,105 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import server.KVServer;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static manager.AbstractTaskManagerTest.assertTaskManagersEquals;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressionTest {
+    @TempDir
+    Path directory;
+
+    private void fill(TaskManager taskManager, int epics) {
+        LocalDateTime time = LocalDateTime.of(2000, 1, 1, 0, 0);
+        for (int i = 0; i < epics; i++) {
+            taskManager.addNewTask(new Task("task " + i, "description, of task", time, Duration.ofMinutes(5)));
+            Epic epic = taskManager.addNewEpic(new Epic("epic " + i, "description of epic"));
+            taskManager.addNewSubtask(new Subtask("subtask " + i, "description", epic,
+                    time.plusMinutes(10), Duration.ofMinutes(5)));
+            time = time.plusHours(1);
+        }
+        taskManager.getEpicById(taskManager.getEpicsList().get(0).getId());
+    }
+
+    @Test
+    void saveAndLoad() throws IOException {
+        for (PersistenceMode mode : PersistenceMode.values()) {
+            for (SnapshotFormat format : SnapshotFormat.values()) {
+                for (Compression compression : Compression.values()) {
+                    Path data = directory.resolve(mode + "-" + format + "-" + compression);
+                    FileBackedOptions options = FileBackedOptions.builder()
+                            .mode(mode)
+                            .snapshotFormat(format)
+                            .compression(compression)
+                            .build();
+                    FileBackedTasksManager taskManager = new FileBackedTasksManager(data, options);
+                    fill(taskManager, 20);
+                    taskManager.flush();
+                    taskManager.compact().join();
+
+                    assertTaskManagersEquals(taskManager, FileBackedTasksManager.loadFromFile(data,
+                            options.toBuilder().compression(Compression.NONE).build()));
+                    taskManager.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    void save_compresses() throws IOException {
+        Path plain = directory.resolve("plain");
+        Path compressed = directory.resolve("compressed");
+        FileBackedOptions options = FileBackedOptions.builder().writeBehindDelay(Duration.ofHours(1)).build();
+        try (FileBackedTasksManager plainManager = new FileBackedTasksManager(plain, options);
+             FileBackedTasksManager compressedManager = new FileBackedTasksManager(compressed,
+                     options.toBuilder().compression(Compression.GZIP).build())) {
+            fill(plainManager, 1000);
+            fill(compressedManager, 1000);
+        }
+
+        byte[] bytes = Files.readAllBytes(compressed);
+        assertEquals(Compression.GZIP, Compression.detect(Arrays.copyOf(bytes, Compression.HEADER_SIZE)));
+        assertTrue(bytes.length * 2 < Files.size(plain));
+    }
+
+    @Test
+    void detect_plainSnapshots() {
+        assertEquals(Compression.NONE, Compression.detect("80,TASK".getBytes()));
+        assertEquals(Compression.NONE, Compression.detect(BinarySnapshotCodec.MAGIC));
+        assertEquals(Compression.NONE, Compression.detect(SegmentStore.MAGIC.getBytes()));
+        assertEquals(Compression.NONE, Compression.detect(new byte[0]));
+    }
+
+    @Test
+    void httpTaskManager_compressedState() throws IOException, InterruptedException {
+        KVServer kvServer = new KVServer();
+        kvServer.start();
+        URI uri = URI.create("http://localhost:" + KVServer.PORT);
+        try {
+            HttpTaskManager taskManager = new HttpTaskManager(uri, "compressed", Compression.GZIP);
+            fill(taskManager, 20);
+            taskManager.flush();
+
+            assertTrue(taskManager.loadState().startsWith("H4sI"));
+            assertTaskManagersEquals(taskManager, HttpTaskManager.loadFromServer(uri, "compressed"));
+            taskManager.close();
+        } finally {
+            kvServer.stop();
+            Files.deleteIfExists(Path.of("tmp"));
+            Files.deleteIfExists(Path.of("tmp.history"));
+        }
+    }
+}
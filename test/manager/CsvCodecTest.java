@@ -0,0 +1,100 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import task.AbstractTimeTask;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvCodecTest {
+    @Test
+    void writeText_escapesDelimiters() {
+        for (String text : List.of("plain", "", "a,b", "\"quoted\"", "line\nbreak\r\n", "back\\slash,", "mid\"quote")) {
+            Epic epic = new Epic(text, text + ",desc");
+            epic.setId(1L);
+            String csv = CSVFormatter.toString(epic);
+
+            assertEquals(-1, csv.indexOf('\n'));
+            Epic parsed = CSVFormatter.parseEpic(csv);
+            assertEquals(text, parsed.getName());
+            assertEquals(text + ",desc", parsed.getDescription());
+        }
+    }
+
+    @Test
+    void parse_legacyRecords() {
+        Task task = CSVFormatter.parseTask("3,TASK,back\\slash,DONE,mid\"quote,2000-01-01T10:15,PT1H30M");
+
+        assertEquals(3L, task.getId());
+        assertEquals("back\\slash", task.getName());
+        assertEquals("mid\"quote", task.getDescription());
+        assertEquals(Status.DONE, task.getStatus());
+        assertEquals(LocalDateTime.of(2000, 1, 1, 10, 15), task.getStartTime());
+        assertEquals(Duration.ofMinutes(90), task.getDuration());
+        assertEquals("", CSVFormatter.parseEpic("1,EPIC,name,NEW,").getDescription());
+    }
+
+    @Test
+    void writeTime_matchesLocalDateTime() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long epochSecond = i < 50_000
+                    ? random.nextLong() % 400_000_000_000L
+                    : (random.nextInt(200_000) - 100_000) * 86_400L + random.nextInt(3) * random.nextInt(86_400);
+            StringBuilder builder = new StringBuilder();
+            CsvCodec.writeTime(builder, epochSecond);
+            String expected = AbstractTimeTask.ofEpochSecond(epochSecond).toString();
+
+            assertEquals(expected, builder.toString());
+            assertEquals(epochSecond, new CsvCodec.Fields(expected).nextEpochSecond());
+        }
+    }
+
+    @Test
+    void writeDuration_matchesDuration() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long seconds = i % 2 == 0 ? random.nextInt(1_000_000) - 500_000 : random.nextLong() % 1_000_000_000_000L;
+            StringBuilder builder = new StringBuilder();
+            CsvCodec.writeDuration(builder, seconds);
+            String expected = Duration.ofSeconds(seconds).toString();
+
+            assertEquals(expected, builder.toString());
+            assertEquals(seconds, new CsvCodec.Fields(expected).nextDurationSeconds());
+        }
+        assertEquals(Duration.parse("P1DT1.5S").getSeconds(), new CsvCodec.Fields("P1DT1.5S").nextDurationSeconds());
+    }
+
+    @Test
+    void parse_malformed() {
+        assertThrows(IllegalArgumentException.class, () -> CSVFormatter.parseEpic("1,EPIC,\"open,NEW,desc"));
+        assertThrows(IllegalArgumentException.class, () -> CSVFormatter.parseEpic("1,TASK,name,NEW,desc"));
+        assertThrows(IllegalArgumentException.class, () -> CSVFormatter.parseTask("1,TASK,name,NEW"));
+        assertThrows(NumberFormatException.class, () -> CSVFormatter.parseEpic("x,EPIC,name,NEW,desc"));
+    }
+
+    @Test
+    void subtask_roundTrip() {
+        Epic epic = new Epic("epic", "desc");
+        epic.setId(1L);
+        Subtask subtask = new Subtask("a,\"b\"", "c\nd", epic, LocalDateTime.of(1, 1, 1, 0, 0, 1), Duration.ofSeconds(61));
+        subtask.setId(2L);
+
+        Subtask parsed = CSVFormatter.parseSubtask(CSVFormatter.toString(subtask), id -> epic);
+        assertEquals(subtask, parsed);
+        assertEquals(subtask.getName(), parsed.getName());
+        assertEquals(subtask.getDescription(), parsed.getDescription());
+        assertEquals(subtask.getStartTime(), parsed.getStartTime());
+        assertEquals(subtask.getDuration(), parsed.getDuration());
+        assertEquals(List.of(3L, -1L, 5L), CSVFormatter.parseHistory("3,-1,5"));
+    }
+}
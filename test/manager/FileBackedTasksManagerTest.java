@@ -3,6 +3,7 @@ package manager;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import task.AbstractTask;
+import task.AbstractTimeTask;
 import task.Epic;
 import task.Subtask;
 import task.Task;
@@ -12,6 +13,8 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -23,13 +26,17 @@ public class FileBackedTasksManagerTest extends AbstractTaskManagerTest {
 
     @Override
     TaskManager taskManager() {
-        return new FileBackedTasksManager(testPath);
+        return new FileBackedTasksManager(testPath, FileBackedOptions.builder()
+                .snapshotFormat(SnapshotFormat.CSV)
+                .build());
     }
 
     @AfterEach
     public void deleteFile() {
         try {
+            ((FileBackedTasksManager) taskManager).close();
             Files.deleteIfExists(testPath);
+            Files.deleteIfExists(FileBackedTasksManager.historyPathOf(testPath));
         } catch (IOException | SecurityException exception) {
             // ignored
         }
@@ -67,13 +74,14 @@ public class FileBackedTasksManagerTest extends AbstractTaskManagerTest {
 
     private void assertHistory(BufferedReader reader) {
         try {
-            assertTrue(reader.readLine().isEmpty());
+            assertNull(reader.readLine());
+            ((FileBackedTasksManager) taskManager).flush();
             assertEquals(
                     taskManager.getHistory().stream()
                             .map(AbstractTask::getId)
                             .map(Objects::toString)
                             .collect(Collectors.joining(",")),
-                    reader.readLine()
+                    Files.readString(FileBackedTasksManager.historyPathOf(testPath))
             );
         } catch (IOException exception) {
             throw new RuntimeException();
@@ -117,6 +125,35 @@ public class FileBackedTasksManagerTest extends AbstractTaskManagerTest {
         }
     }
 
+    @Test
+    void save_readsDoNotRewriteData() throws IOException {
+        List<Task> tasks = getTasks(3);
+        Files.delete(testPath);
+
+        tasks.forEach(task -> taskManager.getTaskById(task.getId()));
+        ((FileBackedTasksManager) taskManager).flush();
+
+        assertFalse(Files.exists(testPath));
+        assertEquals(3, taskManager.getHistory().size());
+        assertEquals(
+                taskManager.getHistory().stream()
+                        .map(AbstractTask::getId)
+                        .map(Objects::toString)
+                        .collect(Collectors.joining(",")),
+                Files.readString(FileBackedTasksManager.historyPathOf(testPath))
+        );
+    }
+
+    @Test
+    void loadFromFile_historyFile() {
+        List<Task> tasks = getTasks(3);
+        taskManager.getTaskById(tasks.get(2).getId());
+        taskManager.getTaskById(tasks.get(0).getId());
+        ((FileBackedTasksManager) taskManager).flush();
+
+        assertEquals(taskManager.getHistory(), FileBackedTasksManager.loadFromFile(testPath).getHistory());
+    }
+
     @Test
     void save_empty() {
         assertFalse(Files.exists(testPath));
@@ -180,13 +217,6 @@ public class FileBackedTasksManagerTest extends AbstractTaskManagerTest {
         }
     }
 
-    private void assertTaskManagersEquals(TaskManager taskManager1, TaskManager taskManager2) {
-        assertEquals(taskManager1.getTasksList(), taskManager2.getTasksList());
-        assertEquals(taskManager1.getEpicsList(), taskManager2.getEpicsList());
-        assertEquals(taskManager1.getSubtasksList(), taskManager2.getSubtasksList());
-        assertEquals(taskManager1.getHistory(), taskManager2.getHistory());
-    }
-
     @Test
     void loadFromFile() {
         List<Task> tasks = getTasks(3);
@@ -243,4 +273,16 @@ public class FileBackedTasksManagerTest extends AbstractTaskManagerTest {
 
         assertTaskManagersEquals(taskManager, tasksManager2);
     }
+
+    @Test
+    void getPrioritizedTasks_windowModified() {
+        List<Task> tasks = getTasks(10);
+        Iterator<AbstractTimeTask> window = taskManager.getPrioritizedTasks(
+                tasks.get(0).getStartTime(), tasks.get(9).getStartTime()).iterator();
+
+        assertEquals(tasks.get(0), window.next());
+        taskManager.removeTaskById(tasks.get(5).getId());
+
+        assertThrows(ConcurrentModificationException.class, window::next);
+    }
 }
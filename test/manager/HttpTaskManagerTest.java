@@ -0,0 +1,265 @@
+package manager;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpTaskManagerTest extends AbstractTaskManagerTest {
+    private static final String KEY = "board";
+    private static final Map<String, String> values = new ConcurrentHashMap<>();
+    private static final List<String> saved = Collections.synchronizedList(new ArrayList<>());
+    private static HttpServer server;
+    private static URI uri;
+
+    @BeforeAll
+    public static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/register", h -> respond(h, "token"));
+        server.createContext("/save/", h -> {
+            String key = h.getRequestURI().getPath().substring("/save/".length());
+            values.put(key, new String(h.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            saved.add(key);
+            h.sendResponseHeaders(200, -1);
+            h.close();
+        });
+        server.createContext("/load/", h -> respond(h,
+                values.getOrDefault(h.getRequestURI().getPath().substring("/load/".length()), "")));
+        server.createContext("/batch/save", h -> {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(h.getRequestBody().readAllBytes()));
+            while (in.available() > 0) {
+                String key = readFrame(in);
+                values.put(key, readFrame(in));
+                saved.add(key);
+            }
+            h.sendResponseHeaders(200, -1);
+            h.close();
+        });
+        server.createContext("/batch/load", h -> {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(h.getRequestBody().readAllBytes()));
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            while (in.available() > 0) {
+                String value = values.get(readFrame(in));
+                if (value == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(value.getBytes(StandardCharsets.UTF_8).length);
+                    out.write(value.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            respond(h, bytes.toByteArray());
+        });
+        server.createContext("/batch/delete", h -> {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(h.getRequestBody().readAllBytes()));
+            while (in.available() > 0) {
+                values.remove(readFrame(in));
+            }
+            h.sendResponseHeaders(200, -1);
+            h.close();
+        });
+        server.start();
+        uri = URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterAll
+    public static void stopServer() {
+        server.stop(0);
+    }
+
+    private static String readFrame(DataInputStream in) throws IOException {
+        byte[] frame = new byte[in.readInt()];
+        in.readFully(frame);
+        return new String(frame, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> withoutGenerations(Collection<String> keys) {
+        return keys.stream().map(key -> key.replaceFirst("\\.\\d+$", "")).sorted().toList();
+    }
+
+    private static void respond(HttpExchange h, String body) throws IOException {
+        respond(h, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange h, byte[] bytes) throws IOException {
+        h.sendResponseHeaders(200, bytes.length == 0 ? -1 : bytes.length);
+        h.getResponseBody().write(bytes);
+        h.close();
+    }
+
+    @Override
+    TaskManager taskManager() {
+        values.clear();
+        saved.clear();
+        try {
+            return new HttpTaskManager(uri, KEY);
+        } catch (IOException | InterruptedException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    @AfterEach
+    public void close() throws IOException {
+        ((HttpTaskManager) taskManager).close();
+    }
+
+    private HttpTaskManager reload() throws IOException, InterruptedException {
+        ((HttpTaskManager) taskManager).flush();
+        return HttpTaskManager.loadFromServer(uri, KEY);
+    }
+
+    @Test
+    void loadFromServer() throws IOException, InterruptedException {
+        List<Task> tasks = getTasks(3);
+        List<Epic> epics = getEpics(3);
+        List<Subtask> subtasks = getSubtasks(3, epics.get(0));
+        getSubtasks(2, epics.get(2));
+        taskManager.getTaskById(tasks.get(1).getId());
+        taskManager.getSubtaskById(subtasks.get(2).getId());
+
+        assertTaskManagersEquals(taskManager, reload());
+        assertFalse(values.containsKey("tmp"));
+    }
+
+    @Test
+    void save_uploadsOnlyChangedEpic() throws IOException, InterruptedException {
+        getTasks(3);
+        List<Epic> epics = getEpics(10);
+        epics.forEach(epic -> getSubtasks(3, epic));
+        Subtask subtask = taskManager.getSubtasksByEpicId(epics.get(4).getId()).get(1);
+        saved.clear();
+
+        subtask.setStatus(Status.DONE);
+        taskManager.updateSubtask(subtask);
+
+        assertEquals(withoutGenerations(List.of(KEY, KEY + ".epic-" + epics.get(4).getId(), KEY + ".index-0")),
+                withoutGenerations(saved));
+        assertTaskManagersEquals(taskManager, reload());
+    }
+
+    @Test
+    void save_addsSegmentToIndexPage() {
+        getTasks(3);
+        getEpics(2);
+        saved.clear();
+
+        Epic epic = taskManager.addNewEpic(new Epic("epic", "desc"));
+
+        assertEquals(withoutGenerations(List.of(KEY, KEY + ".epic-" + epic.getId(), KEY + ".index-0")),
+                withoutGenerations(saved));
+    }
+
+    @Test
+    void loadFromServer_remove() throws IOException, InterruptedException {
+        getTasks(3);
+        List<Epic> epics = getEpics(2);
+        getSubtasks(3, epics.get(0));
+        Subtask moved = getSubtasks(1, epics.get(1)).get(0);
+        saved.clear();
+
+        taskManager.removeEpicById(epics.get(0).getId());
+        taskManager.removeSubtaskById(moved.getId());
+
+        assertFalse(withoutGenerations(saved).contains(KEY + ".epic-" + epics.get(0).getId()));
+        assertFalse(withoutGenerations(values.keySet()).contains(KEY + ".epic-" + epics.get(0).getId()));
+        assertTaskManagersEquals(taskManager, reload());
+    }
+
+    @Test
+    void loadFromServer_clear() throws IOException, InterruptedException {
+        getTasks(3);
+        List<Epic> epics = getEpics(2);
+        getSubtasks(3, epics.get(0));
+        taskManager.clearSubtasks();
+        assertTaskManagersEquals(taskManager, reload());
+
+        taskManager.clearTasks();
+        taskManager.clearEpics();
+        assertTaskManagersEquals(taskManager, reload());
+    }
+
+    @Test
+    void loadFromServer_doesNotReuploadLoadedSegments() throws IOException, InterruptedException {
+        getTasks(3);
+        List<Epic> epics = getEpics(3);
+        getSubtasks(2, epics.get(1));
+        HttpTaskManager loaded = reload();
+        saved.clear();
+
+        Task task = loaded.getTasksList().get(0);
+        task.setStatus(Status.DONE);
+        loaded.updateTask(task);
+
+        assertEquals(withoutGenerations(List.of(KEY, KEY + ".tasks-0", KEY + ".index-0")), withoutGenerations(saved));
+        assertTaskManagersEquals(loaded, HttpTaskManager.loadFromServer(uri, KEY));
+        loaded.close();
+    }
+
+    @Test
+    void loadFromServer_migratesSingleValue() throws IOException, InterruptedException {
+        Task task = new Task("task", "desc", LocalDateTime.of(2000, 1, 1, 0, 0), Duration.ZERO);
+        task.setId(1L);
+        Epic epic = new Epic("epic", "desc");
+        epic.setId(2L);
+        values.put(KEY, String.join(System.lineSeparator(),
+                CSVFormatter.toString(task), CSVFormatter.toString(epic), "", "1"));
+
+        HttpTaskManager loaded = HttpTaskManager.loadFromServer(uri, KEY);
+        assertEquals(1, loaded.getTasksList().size());
+        assertEquals(1, loaded.getEpicsList().size());
+        assertEquals(List.of(loaded.getTasksList().get(0)), loaded.getHistory());
+        loaded.addNewEpic(new Epic("epic", "desc"));
+
+        assertTrue(KVSegments.isManifest(loaded.loadState()));
+        assertTaskManagersEquals(loaded, HttpTaskManager.loadFromServer(uri, KEY));
+        loaded.close();
+    }
+
+    @Test
+    void save_deletesReplacedSegments() throws IOException, InterruptedException {
+        List<Task> tasks = getTasks(100);
+        List<Epic> epics = getEpics(2);
+        Subtask subtask = getSubtasks(3, epics.get(0)).get(0);
+        saved.clear();
+
+        for (int i = 0; i < 5; i++) {
+            subtask.setStatus(i % 2 == 0 ? Status.DONE : Status.NEW);
+            taskManager.updateSubtask(subtask);
+            Task task = tasks.get(50);
+            task.setStatus(i % 2 == 0 ? Status.DONE : Status.NEW);
+            taskManager.updateTask(task);
+        }
+
+        List<String> keys = withoutGenerations(values.keySet());
+        assertEquals(keys.stream().distinct().toList(), keys);
+        String prefix = KEY + ".tasks-" + tasks.get(50).getId() / SegmentStore.TASKS_PER_SEGMENT + ".";
+        String segment = values.keySet().stream().filter(key -> key.startsWith(prefix)).findFirst().orElseThrow();
+        assertTrue(values.get(segment).lines().count() <= SegmentStore.TASKS_PER_SEGMENT + 2);
+        assertTaskManagersEquals(taskManager, reload());
+    }
+}
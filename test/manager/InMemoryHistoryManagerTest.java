@@ -128,6 +128,22 @@ class InMemoryHistoryManagerTest {
         }
     }
 
+    @Test
+    void remove_evicted() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 13; i++) {
+            tasks.add(newTask("name" + i, "desc" + i));
+        }
+
+        tasks.subList(0, 11).forEach(historyManager::add);
+        historyManager.remove(tasks.get(0).getId());
+        tasks.subList(11, 13).forEach(historyManager::add);
+
+        List<AbstractTask> myHistory = new ArrayList<>(tasks.subList(3, 13));
+        Collections.reverse(myHistory);
+        assertEquals(myHistory, historyManager.getHistory());
+    }
+
     @Test
     void getHistory_empty() {
         assertTrue(historyManager.getHistory().isEmpty());
@@ -1,8 +1,30 @@
 package manager;
 
+import org.junit.jupiter.api.Test;
+import task.AbstractTimeTask;
+import task.Task;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
 public class InMemoryTaskManagerTest extends AbstractTaskManagerTest{
     @Override
     TaskManager taskManager() {
         return new InMemoryTaskManager();
     }
-}
\ No newline at end of file
+
+    @Test
+    void getPrioritizedTasks_windowModified() {
+        List<Task> tasks = getTasks(10);
+        Iterator<AbstractTimeTask> window = taskManager.getPrioritizedTasks(
+                tasks.get(0).getStartTime(), tasks.get(9).getStartTime()).iterator();
+
+        window.next();
+        taskManager.removeTaskById(tasks.get(5).getId());
+
+        assertThrows(ConcurrentModificationException.class, window::next);
+    }
+}
@@ -0,0 +1,219 @@
+package manager;
+
+import manager.exception.ManagerSaveException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournaledFileBackedTasksManagerTest extends AbstractTaskManagerTest {
+    private static final FileBackedOptions OPTIONS = FileBackedOptions.builder()
+            .mode(PersistenceMode.JOURNAL)
+            .build();
+
+    @TempDir
+    Path directory;
+
+    private Path data() {
+        return directory.resolve("data");
+    }
+
+    @Override
+    TaskManager taskManager() {
+        return new FileBackedTasksManager(data(), OPTIONS);
+    }
+
+    @AfterEach
+    public void close() throws IOException {
+        ((FileBackedTasksManager) taskManager).close();
+    }
+
+    private FileBackedTasksManager reload() {
+        ((FileBackedTasksManager) taskManager).flush();
+        return FileBackedTasksManager.loadFromFile(data(), OPTIONS);
+    }
+
+    @Test
+    void save_empty() {
+        assertFalse(Files.exists(data()));
+        assertFalse(Files.exists(Journal.pathOf(data())));
+    }
+
+    @Test
+    void save_appendsOnly() {
+        getTasks(3);
+
+        assertFalse(Files.exists(data()));
+        assertTrue(Files.exists(Journal.pathOf(data())));
+    }
+
+    @Test
+    void loadFromFile() {
+        List<Task> tasks = getTasks(3);
+        List<Epic> epics = getEpics(2);
+        List<Subtask> subtasks = getSubtasks(3, epics.get(0));
+        getSubtasks(2, epics.get(1));
+        tasks.forEach(task -> taskManager.getTaskById(task.getId()));
+        taskManager.getSubtaskById(subtasks.get(1).getId());
+
+        Subtask subtask = subtasks.get(0);
+        subtask.setStatus(Status.DONE);
+        taskManager.updateSubtask(subtask);
+        taskManager.removeTaskById(tasks.get(1).getId());
+        taskManager.removeEpicById(epics.get(1).getId());
+
+        assertTaskManagersEquals(taskManager, reload());
+    }
+
+    @Test
+    void loadFromFile_clear() {
+        getTasks(3);
+        List<Epic> epics = getEpics(2);
+        getSubtasks(3, epics.get(0));
+        taskManager.clearTasks();
+        taskManager.clearSubtasks();
+        getTasks(2);
+
+        assertTaskManagersEquals(taskManager, reload());
+    }
+
+    @Test
+    void loadFromFile_continuesIds() {
+        List<Task> tasks = getTasks(3);
+
+        FileBackedTasksManager reloaded = reload();
+        Epic epic = reloaded.addNewEpic(new Epic("name", "desc"));
+
+        assertTrue(tasks.stream().noneMatch(task -> task.getId().equals(epic.getId())));
+    }
+
+    @Test
+    void loadFromFile_tornTail() throws IOException {
+        getTasks(2);
+        Files.writeString(Journal.pathOf(data()), "3,TASK,name,NEW,desc", StandardOpenOption.APPEND);
+
+        FileBackedTasksManager reloaded = reload();
+        assertTaskManagersEquals(taskManager, reloaded);
+
+        reloaded.addNewEpic(new Epic("name", "desc"));
+        reloaded.close();
+        assertTaskManagersEquals(reloaded, reload());
+    }
+
+    @Test
+    void save_failedAppend() throws IOException {
+        getTasks(2);
+        long committed = Files.size(Journal.pathOf(data()));
+
+        assertThrows(ManagerSaveException.class, () -> newTask("\uD800", "desc"));
+        assertThrows(ManagerSaveException.class, () -> newTask("name", "desc"));
+
+        assertEquals(committed, Files.size(Journal.pathOf(data())));
+        assertEquals(2, FileBackedTasksManager.loadFromFile(data(), OPTIONS).getTasksList().size());
+    }
+
+    @Test
+    void compact() throws IOException {
+        List<Task> tasks = getTasks(3);
+        List<Epic> epics = getEpics(2);
+        getSubtasks(3, epics.get(0));
+        taskManager.getTaskById(tasks.get(0).getId());
+
+        ((FileBackedTasksManager) taskManager).compact().join();
+        taskManager.removeTaskById(tasks.get(1).getId());
+        getSubtasks(2, epics.get(1));
+
+        assertTrue(Files.exists(data()));
+        assertFalse(Files.exists(Journal.compactingPathOf(data())));
+        assertTaskManagersEquals(taskManager, reload());
+    }
+
+    @Test
+    void compact_recordTrigger() throws IOException {
+        taskManager = new FileBackedTasksManager(data(), OPTIONS.toBuilder().compactionRecords(10).build());
+        getTasks(25);
+        ((FileBackedTasksManager) taskManager).close();
+
+        assertTrue(Files.exists(data()));
+        assertTrue(Snapshot.load(data()).size() >= 10);
+        assertTrue(Files.readAllLines(Journal.pathOf(data())).stream()
+                .filter(line -> !line.equals(Journal.COMMIT))
+                .count() < 25);
+        assertTaskManagersEquals(taskManager, reload());
+    }
+
+    @Test
+    void loadFromFile_interruptedCompaction() throws IOException {
+        getTasks(3);
+        Files.move(Journal.pathOf(data()), Journal.compactingPathOf(data()));
+        getEpics(2);
+
+        assertTaskManagersEquals(taskManager, reload());
+    }
+
+    @Test
+    void loadFromFile_durability() throws IOException {
+        for (Durability durability : Durability.values()) {
+            Path data = directory.resolve(durability.name());
+            FileBackedOptions options = OPTIONS.toBuilder().durability(durability).build();
+            FileBackedTasksManager manager = new FileBackedTasksManager(data, options);
+            Epic epic = manager.addNewEpic(new Epic("name", "desc"));
+            Task task = manager.addNewTask(new Task("name", "desc", LocalDateTime.of(2000, 1, 1, 0, 0),
+                    Duration.ofMinutes(5)));
+            manager.addNewSubtask(new Subtask("name", "desc", epic, LocalDateTime.of(2000, 1, 2, 0, 0),
+                    Duration.ofMinutes(5)));
+            manager.getTaskById(task.getId());
+            manager.close();
+
+            assertTaskManagersEquals(manager, FileBackedTasksManager.loadFromFile(data, options));
+        }
+    }
+
+    @Test
+    void groupCommit_concurrentWriters() throws Exception {
+        FileBackedOptions options = OPTIONS.toBuilder().durability(Durability.GROUP).build();
+        FileBackedTasksManager manager = new FileBackedTasksManager(data(), options);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            LocalDateTime start = LocalDateTime.of(2000 + thread, 1, 1, 0, 0);
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    manager.addNewTask(new Task("name", "desc", start.plusHours(i), Duration.ofMinutes(5)));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        manager.close();
+
+        assertEquals(200, manager.getTasksList().size());
+        assertTaskManagersEquals(manager, FileBackedTasksManager.loadFromFile(data(), options));
+    }
+
+    @Test
+    void asyncDurability_snapshotMode() {
+        FileBackedOptions options = FileBackedOptions.builder().durability(Durability.ASYNC).build();
+
+        assertThrows(IllegalArgumentException.class, () -> new FileBackedTasksManager(data(), options));
+    }
+}
@@ -0,0 +1,96 @@
+package manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashMapTest {
+    private LongHashMap<String> map;
+
+    @BeforeEach
+    public void init() {
+        map = new LongHashMap<>();
+    }
+
+    @Test
+    void put() {
+        assertNull(map.put(1, "value1"));
+        assertNull(map.put(-1, "value2"));
+        assertEquals("value1", map.put(1, "value3"));
+
+        assertEquals(2, map.size());
+        assertEquals("value3", map.get(1));
+        assertEquals("value2", map.get(-1));
+        assertNull(map.get(2));
+    }
+
+    @Test
+    void remove() {
+        map.put(1, "value1");
+        map.put(2, "value2");
+
+        assertEquals("value1", map.remove(1));
+        assertNull(map.remove(1));
+
+        assertEquals(1, map.size());
+        assertFalse(map.containsKey(1));
+        assertTrue(map.containsKey(2));
+    }
+
+    @Test
+    void values_insertionOrder() {
+        for (long key = 100; key > 0; key--) {
+            map.put(key * 31, "value" + key);
+        }
+        map.remove(31 * 50);
+        map.put(31 * 100, "updated");
+        map.put(31 * 50, "value50");
+
+        List<String> values = new ArrayList<>(map.values());
+        assertEquals(100, values.size());
+        assertEquals("updated", values.get(0));
+        assertEquals("value1", values.get(98));
+        assertEquals("value50", values.get(99));
+    }
+
+    @Test
+    void clear() {
+        for (long key = 0; key < 100; key++) {
+            map.put(key, "value" + key);
+        }
+
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertFalse(map.values().iterator().hasNext());
+        assertNull(map.get(5));
+    }
+
+    @Test
+    void randomOperations() {
+        Map<Long, String> expected = new LinkedHashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                String value = "value" + i;
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+        List<Long> keys = new ArrayList<>();
+        map.forEachKey(keys::add);
+        assertEquals(new ArrayList<>(expected.keySet()), keys);
+    }
+}
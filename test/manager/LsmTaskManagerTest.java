@@ -0,0 +1,195 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import task.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LsmTaskManagerTest extends AbstractDiskTaskManagerTest {
+    private static final LsmOptions OPTIONS = LsmOptions.builder()
+            .memtableSize(4 << 10)
+            .blockSize(256)
+            .mergeThreshold(3)
+            .build();
+
+    @Override
+    TaskManager taskManager() {
+        return new LsmTaskManager(directory, OPTIONS);
+    }
+
+    @Override
+    TaskManager taskManager(Duration historyFlushDelay) {
+        return new LsmTaskManager(directory, OPTIONS.toBuilder().historyFlushDelay(historyFlushDelay).build());
+    }
+
+    @Override
+    TaskManager taskManager(Durability durability) {
+        return new LsmTaskManager(directory.resolve(durability.name()),
+                OPTIONS.toBuilder().durability(durability).build());
+    }
+
+    @Override
+    Path log() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(LsmStore.LOG_EXTENSION)).findFirst().orElseThrow();
+        }
+    }
+
+    @Override
+    LsmTaskManager reopen() throws IOException {
+        return (LsmTaskManager) super.reopen();
+    }
+
+    @Test
+    void flush_writesTablesAndMerges() throws IOException {
+        TaskManager expected = fillBoth(300);
+        LsmTaskManager lsm = (LsmTaskManager) taskManager;
+
+        lsm.flush();
+        assertTrue(lsm.tableCount() >= 1);
+        lsm.compact().join();
+
+        assertEquals(1, lsm.tableCount());
+        assertTaskManagersEquals(expected, lsm);
+        assertTaskManagersEquals(expected, reopen());
+    }
+
+    private long tablesSize() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(SSTable.EXTENSION))
+                    .mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
+    @Test
+    void compact_dropsRemovedEntities() throws IOException {
+        getTasks(200);
+        LsmTaskManager lsm = (LsmTaskManager) taskManager;
+        lsm.flush();
+        long filled = tablesSize();
+        taskManager.clearTasks();
+        lsm.flush();
+
+        lsm.compact().join();
+
+        LsmTaskManager reopened = reopen();
+        assertEquals(List.of(), reopened.getTasksList());
+        assertEquals(1, reopened.tableCount());
+        assertTrue(tablesSize() * 4 < filled);
+    }
+
+    @Test
+    void reopen_collectsOnlyStoreFiles() throws IOException {
+        List<Task> tasks = getTasks(20);
+        ((LsmTaskManager) taskManager).flush();
+        Files.writeString(directory.resolve("notes.txt"), "notes");
+        Files.writeString(directory.resolve("backup.sst"), "backup");
+        Files.writeString(directory.resolve("999.sst"), "orphan");
+        Files.writeString(directory.resolve(LsmStore.MANIFEST + ".tmp"), "partial");
+
+        LsmTaskManager reopened = reopen();
+
+        assertEquals(tasks, reopened.getTasksList());
+        assertTrue(Files.exists(directory.resolve("notes.txt")));
+        assertTrue(Files.exists(directory.resolve("backup.sst")));
+        assertFalse(Files.exists(directory.resolve("999.sst")));
+        assertFalse(Files.exists(directory.resolve(LsmStore.MANIFEST + ".tmp")));
+    }
+
+    @Test
+    void overlaps_flushedTasks() {
+        List<Task> tasks = getTasks(50);
+        ((LsmTaskManager) taskManager).flush();
+
+        Task task = tasks.get(25);
+        assertNull(taskManager.addNewTask(new Task("name", "desc", task.getStartTime().plusMinutes(1),
+                Duration.ofMinutes(1))));
+        assertNull(taskManager.addNewTask(new Task("name", "desc", task.getStartTime().minusMinutes(1),
+                Duration.ofHours(2))));
+        assertNotNull(taskManager.addNewTask(new Task("name", "desc", task.getEndTime(), Duration.ofMinutes(1))));
+    }
+
+    private List<AbstractTimeTask> window(LocalDateTime from, LocalDateTime to) {
+        List<AbstractTimeTask> window = new ArrayList<>();
+        taskManager.getPrioritizedTasks(from, to).forEach(window::add);
+        return window;
+    }
+
+    @Test
+    void getPrioritizedTasks_windowModified() {
+        List<Task> tasks = getTasks(10);
+        Iterator<AbstractTimeTask> window = taskManager.getPrioritizedTasks(
+                tasks.get(0).getStartTime(), tasks.get(9).getStartTime()).iterator();
+
+        assertEquals(tasks.get(0), window.next());
+        taskManager.removeTaskById(tasks.get(1).getId());
+        Task moved = tasks.get(2);
+        moved.setStartTime(moved.getStartTime().plusYears(1));
+        taskManager.updateTask(moved);
+
+        assertEquals(tasks.get(3), window.next());
+    }
+
+    @Test
+    void getPrioritizedTasks_longTask() {
+        LocalDateTime time = LocalDateTime.of(2000, 1, 1, 0, 0);
+        Task longTask = taskManager.addNewTask(new Task("long", "desc", time, Duration.ofDays(30)));
+        Task later = taskManager.addNewTask(new Task("later", "desc", time.plusDays(40), Duration.ofMinutes(5)));
+        ((LsmTaskManager) taskManager).flush();
+
+        assertEquals(List.of(longTask), window(time.plusDays(10), time.plusDays(11)));
+        assertEquals(List.of(longTask, later), window(time.plusDays(29), time.plusDays(41)));
+        assertNull(taskManager.addNewTask(new Task("inside", "desc", time.plusDays(20), Duration.ofMinutes(5))));
+    }
+
+    @Test
+    void removeTaskById_shrinksOverlapWindow() throws IOException {
+        LocalDateTime time = LocalDateTime.of(2000, 1, 1, 0, 0);
+        Task longTask = taskManager.addNewTask(new Task("long", "desc", time, Duration.ofDays(30)));
+        taskManager.addNewTask(new Task("short", "desc", time.plusDays(40), Duration.ofMinutes(5)));
+        assertEquals(Duration.ofDays(30).toSeconds(), ((LsmTaskManager) taskManager).maxDuration());
+
+        taskManager.removeTaskById(longTask.getId());
+
+        assertEquals(Duration.ofMinutes(5).toSeconds(), ((LsmTaskManager) taskManager).maxDuration());
+        assertEquals(Duration.ofMinutes(5).toSeconds(), reopen().maxDuration());
+        taskManager.clearTasks();
+        assertEquals(0, reopen().maxDuration());
+    }
+
+    @Test
+    void epicStatus_countersSurviveReopen() throws IOException {
+        List<Epic> epics = getEpics(2);
+        List<Subtask> subtasks = getSubtasks(2, epics.get(0));
+        Subtask done = subtasks.get(0);
+        done.setStatus(Status.DONE);
+        taskManager.updateSubtask(done);
+        Subtask moved = new Subtask("moved", "desc", epics.get(1), subtasks.get(1).getStartTime(),
+                subtasks.get(1).getDuration());
+        moved.setId(subtasks.get(1).getId());
+        moved.setStatus(Status.IN_PROGRESS);
+        taskManager.updateSubtask(moved);
+
+        LsmTaskManager reopened = reopen();
+        assertEquals(Status.DONE, reopened.getEpicById(epics.get(0).getId()).getStatus());
+        assertEquals(Status.IN_PROGRESS, reopened.getEpicById(epics.get(1).getId()).getStatus());
+
+        reopened.removeSubtaskById(done.getId());
+        Epic renamed = new Epic("renamed", "desc");
+        renamed.setId(epics.get(1).getId());
+        reopened.updateEpic(renamed);
+        reopened = reopen();
+        assertEquals(Status.NEW, reopened.getEpicById(epics.get(0).getId()).getStatus());
+        assertEquals(Status.IN_PROGRESS, reopened.getEpicById(epics.get(1).getId()).getStatus());
+    }
+}
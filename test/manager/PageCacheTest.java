@@ -0,0 +1,85 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCacheTest {
+    private static final int PAGE = 100;
+    private static final long WEIGHT = PAGE + PageCache.ENTRY_OVERHEAD;
+
+    @Test
+    void get() {
+        PageCache cache = new PageCache(10 * WEIGHT);
+        byte[] value = new byte[PAGE];
+        cache.put(1, value);
+
+        assertSame(value, cache.get(1));
+        assertNull(cache.get(2));
+
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.5, stats.hitRate());
+    }
+
+    @Test
+    void put_staysWithinCapacity() {
+        PageCache cache = new PageCache(10 * WEIGHT);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, new byte[PAGE]);
+        }
+
+        CacheStats stats = cache.stats();
+        assertEquals(10, stats.getEntries());
+        assertEquals(10 * WEIGHT, stats.getSize());
+        assertEquals(90, stats.getEvictions());
+        assertNotNull(cache.get(99));
+    }
+
+    @Test
+    void put_keepsReferencedEntries() {
+        PageCache cache = new PageCache(4 * WEIGHT);
+        for (int i = 0; i < 4; i++) {
+            cache.put(i, new byte[PAGE]);
+        }
+        cache.get(0);
+
+        cache.put(4, new byte[PAGE]);
+        cache.put(5, new byte[PAGE]);
+
+        assertNotNull(cache.get(0));
+        assertNull(cache.get(1));
+        assertNotNull(cache.get(5));
+        assertEquals(4, cache.stats().getEntries());
+    }
+
+    @Test
+    void put_replacesAndSkipsOversized() {
+        PageCache cache = new PageCache(2 * WEIGHT);
+        cache.put(1, new byte[PAGE]);
+        byte[] value = new byte[PAGE];
+
+        cache.put(1, value);
+        cache.put(2, new byte[3 * PAGE]);
+
+        assertSame(value, cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals(1, cache.stats().getEntries());
+        assertEquals(WEIGHT, cache.stats().getSize());
+    }
+
+    @Test
+    void remove() {
+        PageCache cache = new PageCache(10 * WEIGHT);
+        cache.put(1, new byte[PAGE]);
+        cache.put(2, new byte[PAGE]);
+
+        cache.remove(1);
+
+        assertNull(cache.get(1));
+        assertNotNull(cache.get(2));
+        assertEquals(WEIGHT, cache.stats().getSize());
+    }
+}
@@ -0,0 +1,145 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import task.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PagedTaskManagerTest extends AbstractDiskTaskManagerTest {
+    private static final PagedOptions OPTIONS = PagedOptions.builder()
+            .cacheSize(4 << 10)
+            .compactionSize(16 << 10)
+            .build();
+
+    @Override
+    TaskManager taskManager() {
+        return new PagedTaskManager(log(), OPTIONS);
+    }
+
+    @Override
+    TaskManager taskManager(Duration historyFlushDelay) {
+        return new PagedTaskManager(log(), OPTIONS.toBuilder().historyFlushDelay(historyFlushDelay).build());
+    }
+
+    @Override
+    TaskManager taskManager(Durability durability) {
+        return new PagedTaskManager(directory.resolve(durability.name()),
+                OPTIONS.toBuilder().durability(durability).build());
+    }
+
+    @Override
+    Path log() {
+        return directory.resolve("data");
+    }
+
+    @Override
+    PagedTaskManager reopen() throws IOException {
+        return (PagedTaskManager) super.reopen();
+    }
+
+    @Test
+    void cache_staysWithinBudget() throws IOException {
+        fillBoth(300);
+        PagedTaskManager paged = reopen();
+
+        for (int i = 0; i < 3; i++) {
+            paged.getTasksList();
+            paged.getTaskById(paged.getTasksList().get(0).getId());
+        }
+
+        CacheStats stats = paged.cacheStats();
+        assertTrue(stats.getSize() <= OPTIONS.getCacheSize());
+        assertTrue(stats.getEvictions() > 0);
+        assertTrue(stats.getHits() > 0);
+        assertTrue(stats.getMisses() > 0);
+    }
+
+    @Test
+    void compact_shrinksFile() throws IOException {
+        List<Task> tasks = getTasks(50);
+        for (int i = 0; i < 20; i++) {
+            taskManager.getTaskById(tasks.get(i).getId());
+        }
+        long before = Files.size(log());
+
+        ((PagedTaskManager) taskManager).compact();
+
+        assertTrue(Files.size(log()) < before);
+        assertEquals(tasks, taskManager.getTasksList());
+        assertEquals(taskManager.getHistory(), reopen().getHistory());
+        assertEquals(tasks, taskManager.getTasksList());
+    }
+
+    @Test
+    void write_compactsGarbage() throws IOException {
+        Epic epic = newEpic("name", "desc");
+        List<Subtask> subtasks = getSubtasks(20, epic);
+        for (int i = 0; i < 200; i++) {
+            Subtask subtask = subtasks.get(i % subtasks.size());
+            subtask.setStatus(i % 2 == 0 ? Status.DONE : Status.IN_PROGRESS);
+            taskManager.updateSubtask(subtask);
+        }
+
+        assertTrue(Files.size(log()) < 2 * OPTIONS.getCompactionSize());
+        assertEquals(taskManager.getSubtasksList(), reopen().getSubtasksList());
+    }
+
+    @Test
+    void addNewSubtask_appendsConstantSize() throws IOException {
+        Epic epic = newEpic("name", "desc");
+        getSubtasks(1, epic);
+        long first = Files.size(log());
+        getSubtasks(1, epic);
+        long step = Files.size(log()) - first;
+        getSubtasks(50, epic);
+        long before = Files.size(log());
+        getSubtasks(1, epic);
+
+        assertEquals(step, Files.size(log()) - before);
+        PagedTaskManager reopened = reopen();
+        assertEquals(53, reopened.getEpicById(epic.getId()).getSubtasks().size());
+    }
+
+    @Test
+    void updateSubtask_movesMembershipAcrossReopen() throws IOException {
+        List<Epic> epics = getEpics(2);
+        List<Subtask> subtasks = getSubtasks(2, epics.get(0));
+        Subtask moved = new Subtask("moved", "desc", epics.get(1), subtasks.get(1).getStartTime(),
+                subtasks.get(1).getDuration());
+        moved.setId(subtasks.get(1).getId());
+        moved.setStatus(Status.DONE);
+        taskManager.updateSubtask(moved);
+
+        PagedTaskManager reopened = reopen();
+        List<Subtask> remaining = reopened.getEpicById(epics.get(0).getId()).getSubtasks();
+        assertEquals(1, remaining.size());
+        assertEquals(subtasks.get(0).getId(), remaining.get(0).getId());
+        assertEquals(Status.NEW, reopened.getEpicById(epics.get(0).getId()).getStatus());
+        assertEquals(Status.DONE, reopened.getEpicById(epics.get(1).getId()).getStatus());
+
+        reopened.removeEpicById(epics.get(1).getId());
+        reopened = reopen();
+        assertNull(reopened.getSubtaskById(moved.getId()));
+        assertEquals(1, reopened.getSubtasksList().size());
+    }
+
+    @Test
+    void getPrioritizedTasks_windowModified() {
+        List<Task> tasks = getTasks(10);
+        Iterator<AbstractTimeTask> window = taskManager.getPrioritizedTasks(
+                tasks.get(0).getStartTime(), tasks.get(9).getStartTime()).iterator();
+
+        assertEquals(tasks.get(0), window.next());
+        taskManager.removeTaskById(tasks.get(5).getId());
+
+        assertThrows(ConcurrentModificationException.class, window::next);
+    }
+}
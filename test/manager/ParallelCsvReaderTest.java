@@ -0,0 +1,102 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelCsvReaderTest {
+    @TempDir
+    Path directory;
+
+    private static List<String> lines(int epics) {
+        TaskManager taskManager = new InMemoryTaskManager();
+        LocalDateTime time = LocalDateTime.of(2000, 1, 1, 0, 0);
+        for (int i = 0; i < epics; i++) {
+            taskManager.addNewTask(new Task("задача " + i, "desc", time, Duration.ofMinutes(5)));
+            Epic epic = taskManager.addNewEpic(new Epic("epic " + i, "desc"));
+            for (int j = 0; j < 3; j++) {
+                time = time.plusMinutes(10);
+                taskManager.addNewSubtask(new Subtask("subtask " + j, "desc", epic, time, Duration.ofMinutes(5)));
+            }
+            time = time.plusMinutes(10);
+        }
+        List<String> lines = new ArrayList<>();
+        for (var rows : Snapshot.of(taskManager.getTasksList(), taskManager.getEpicsList(),
+                taskManager.getSubtasksList()).tables()) {
+            rows.forEach(row -> lines.add(row.toCsv()));
+        }
+        Collections.reverse(lines);
+        return lines;
+    }
+
+    private static List<List<String>> csv(Snapshot snapshot) {
+        return snapshot.tables().stream().map(rows -> rows.stream().map(Row::toCsv).toList()).toList();
+    }
+
+    private static void assertReadsLikeSequential(String text, int parallelism) throws IOException {
+        Snapshot expected = Snapshot.read(new BufferedReader(new StringReader(text)));
+        Snapshot actual = ParallelCsvReader.read(
+                ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)), parallelism, 64);
+
+        assertEquals(csv(expected), csv(actual));
+        assertEquals(expected.getHistory(), actual.getHistory());
+    }
+
+    @Test
+    void read_subtasksBeforeEpics() throws IOException {
+        String text = String.join("\n", lines(200)) + "\n";
+
+        assertReadsLikeSequential(text, 4);
+    }
+
+    @Test
+    void read_history() throws IOException {
+        String text = String.join("\n", lines(200)) + "\n\n5,3,1";
+
+        assertReadsLikeSequential(text, 3);
+        assertReadsLikeSequential(text.replace("\n", "\r\n"), 3);
+    }
+
+    @Test
+    void read_onlyHistory() throws IOException {
+        assertReadsLikeSequential("\n1,2", 2);
+        assertReadsLikeSequential("", 2);
+    }
+
+    @Test
+    void loadFromFile_parallel() throws IOException {
+        Path data = directory.resolve("data");
+        List<String> lines = lines(1000);
+        while (Files.notExists(data) || Files.size(data) < ParallelCsvReader.MIN_SIZE) {
+            Files.write(data, lines, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        FileBackedOptions options = FileBackedOptions.builder().snapshotFormat(SnapshotFormat.CSV).build();
+
+        FileBackedTasksManager parallel = FileBackedTasksManager.loadFromFile(data, options);
+        FileBackedTasksManager sequential = FileBackedTasksManager.loadFromFile(data,
+                options.toBuilder().loadParallelism(1).build());
+
+        assertEquals(sequential.getTasksList(), parallel.getTasksList());
+        assertEquals(sequential.getEpicsList(), parallel.getEpicsList());
+        assertEquals(sequential.getSubtasksList(), parallel.getSubtasksList());
+        assertEquals(sequential.getPrioritizedTasks(), parallel.getPrioritizedTasks());
+    }
+}
@@ -0,0 +1,154 @@
+package manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentedFileBackedTasksManagerTest extends AbstractTaskManagerTest {
+    private static final FileBackedOptions OPTIONS = FileBackedOptions.builder()
+            .mode(PersistenceMode.SEGMENTED)
+            .build();
+
+    @TempDir
+    Path directory;
+
+    private Path data() {
+        return directory.resolve("data");
+    }
+
+    @Override
+    TaskManager taskManager() {
+        return new FileBackedTasksManager(data(), OPTIONS);
+    }
+
+    @AfterEach
+    public void close() throws IOException {
+        ((FileBackedTasksManager) taskManager).close();
+    }
+
+    private FileBackedTasksManager reload() {
+        ((FileBackedTasksManager) taskManager).flush();
+        return FileBackedTasksManager.loadFromFile(data(), OPTIONS);
+    }
+
+    private Set<String> segmentFiles() throws IOException {
+        try (Stream<Path> paths = Files.list(SegmentStore.directoryOf(data()))) {
+            return paths.map(path -> path.getFileName().toString()).collect(Collectors.toSet());
+        }
+    }
+
+    @Test
+    void loadFromFile() {
+        List<Task> tasks = getTasks(3);
+        List<Epic> epics = getEpics(3);
+        List<Subtask> subtasks = getSubtasks(3, epics.get(0));
+        getSubtasks(2, epics.get(2));
+        getTasks(2);
+        taskManager.getTaskById(tasks.get(1).getId());
+        taskManager.getSubtaskById(subtasks.get(2).getId());
+
+        assertTaskManagersEquals(taskManager, reload());
+    }
+
+    @Test
+    void save_rewritesOnlyChangedEpic() throws IOException {
+        getTasks(3);
+        List<Epic> epics = getEpics(10);
+        epics.forEach(epic -> getSubtasks(3, epic));
+        Subtask subtask = taskManager.getSubtasksByEpicId(epics.get(4).getId()).get(1);
+        Set<String> before = segmentFiles();
+
+        subtask.setStatus(Status.DONE);
+        taskManager.updateSubtask(subtask);
+
+        Set<String> added = new HashSet<>(segmentFiles());
+        added.removeAll(before);
+        Set<String> removed = new HashSet<>(before);
+        removed.removeAll(segmentFiles());
+        assertEquals(1, added.size());
+        assertEquals(1, removed.size());
+        assertTrue(added.iterator().next().startsWith("epic-" + epics.get(4).getId() + "."));
+        assertTrue(removed.iterator().next().startsWith("epic-" + epics.get(4).getId() + "."));
+        assertTaskManagersEquals(taskManager, reload());
+    }
+
+    @Test
+    void loadFromFile_remove() throws IOException {
+        getTasks(3);
+        List<Epic> epics = getEpics(2);
+        getSubtasks(3, epics.get(0));
+        Subtask moved = getSubtasks(1, epics.get(1)).get(0);
+        taskManager.removeEpicById(epics.get(0).getId());
+        taskManager.removeSubtaskById(moved.getId());
+
+        assertEquals(2, segmentFiles().size());
+        assertTaskManagersEquals(taskManager, reload());
+    }
+
+    @Test
+    void loadFromFile_clear() {
+        getTasks(3);
+        List<Epic> epics = getEpics(2);
+        getSubtasks(3, epics.get(0));
+        taskManager.clearSubtasks();
+        assertTaskManagersEquals(taskManager, reload());
+
+        taskManager.clearTasks();
+        taskManager.clearEpics();
+        assertTaskManagersEquals(taskManager, reload());
+    }
+
+    @Test
+    void loadFromFile_movedSubtask() {
+        List<Epic> epics = getEpics(2);
+        Subtask subtask = getSubtasks(1, epics.get(0)).get(0);
+        Subtask moved = new Subtask("moved", "desc", epics.get(1), subtask.getStartTime(), subtask.getDuration());
+        moved.setId(subtask.getId());
+        taskManager.updateSubtask(moved);
+
+        FileBackedTasksManager loaded = reload();
+        assertEquals(epics.get(1).getId(), loaded.getSubtasksList().get(0).getParentEpic().getId());
+        assertEquals(List.of(), loaded.getSubtasksByEpicId(epics.get(0).getId()));
+    }
+
+    @Test
+    void loadFromFile_migratesSnapshot() throws IOException {
+        FileBackedTasksManager snapshotManager = new FileBackedTasksManager(data());
+        snapshotManager.addNewTask(new Task("name", "desc", LocalDateTime.of(2000, 1, 1, 0, 0), Duration.ZERO));
+        snapshotManager.close();
+
+        FileBackedTasksManager taskManager = FileBackedTasksManager.loadFromFile(data(), OPTIONS);
+        assertTaskManagersEquals(snapshotManager, taskManager);
+        taskManager.addNewEpic(new Epic("epic", "desc"));
+
+        assertEquals(SegmentStore.MAGIC, Files.readAllLines(data()).get(0).substring(0, SegmentStore.MAGIC.length()));
+        assertTaskManagersEquals(taskManager, FileBackedTasksManager.loadFromFile(data(), OPTIONS));
+    }
+
+    @Test
+    void loadFromFile_deletesUnreferencedSegments() throws IOException {
+        getTasks(1);
+        Path orphan = SegmentStore.directoryOf(data()).resolve("epic-1.99");
+        Files.writeString(orphan, "");
+
+        reload();
+        assertFalse(Files.exists(orphan));
+    }
+}
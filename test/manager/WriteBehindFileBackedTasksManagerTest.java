@@ -0,0 +1,128 @@
+package manager;
+
+import manager.exception.ManagerSaveException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindFileBackedTasksManagerTest extends AbstractTaskManagerTest {
+    private static final FileBackedOptions OPTIONS = FileBackedOptions.builder()
+            .writeBehindDelay(Duration.ofHours(1))
+            .build();
+
+    @TempDir
+    Path directory;
+
+    private Path data() {
+        return directory.resolve("data");
+    }
+
+    @Override
+    TaskManager taskManager() {
+        return new FileBackedTasksManager(data(), OPTIONS);
+    }
+
+    @AfterEach
+    public void close() throws IOException {
+        ((FileBackedTasksManager) taskManager).close();
+    }
+
+    @Test
+    void save_deferredUntilFlush() {
+        List<Epic> epics = getEpics(2);
+        List<Subtask> subtasks = getSubtasks(3, epics.get(0));
+        getTasks(3);
+        taskManager.getSubtaskById(subtasks.get(1).getId());
+
+        assertFalse(Files.exists(data()));
+        ((FileBackedTasksManager) taskManager).flush();
+        assertTaskManagersEquals(taskManager, FileBackedTasksManager.loadFromFile(data()));
+    }
+
+    @Test
+    void close_flushes() throws IOException {
+        getTasks(3);
+        ((FileBackedTasksManager) taskManager).close();
+
+        assertTaskManagersEquals(taskManager, FileBackedTasksManager.loadFromFile(data()));
+    }
+
+    @Test
+    void save_persistsInBackground() throws Exception {
+        FileBackedTasksManager manager = new FileBackedTasksManager(data(), OPTIONS.toBuilder()
+                .writeBehindDelay(Duration.ofMillis(10))
+                .build());
+        LocalDateTime time = LocalDateTime.of(2000, 1, 1, 0, 0);
+        for (int i = 0; i < 50; i++) {
+            manager.addNewTask(new Task("name", "desc", time.plusHours(i), Duration.ofMinutes(5)));
+        }
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!Files.exists(data()) || FileBackedTasksManager.loadFromFile(data()).getTasksList().size() < 50) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+        assertEquals(manager.getTasksList(), FileBackedTasksManager.loadFromFile(data()).getTasksList());
+        manager.close();
+    }
+
+    @Test
+    void flush_retriesAfterFailure() throws IOException {
+        getTasks(3);
+        Files.createDirectories(data().resolve("blocker"));
+
+        assertThrows(ManagerSaveException.class, () -> ((FileBackedTasksManager) taskManager).flush());
+        Files.delete(data().resolve("blocker"));
+        Files.delete(data());
+        ((FileBackedTasksManager) taskManager).flush();
+        assertTaskManagersEquals(taskManager, FileBackedTasksManager.loadFromFile(data()));
+    }
+
+    @Test
+    void save_keepsMutationsAndReportsBackgroundFailure() throws Exception {
+        FileBackedTasksManager manager = new FileBackedTasksManager(data(), OPTIONS.toBuilder()
+                .writeBehindDelay(Duration.ofMillis(10))
+                .build());
+        Files.createDirectories(data().resolve("blocker"));
+        LocalDateTime time = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        int added = 0;
+        while (manager.getPersistenceFailure() == null) {
+            assertTrue(System.nanoTime() < deadline);
+            manager.addNewTask(new Task("name", "desc", time.plusHours(added++), Duration.ofMinutes(5)));
+            Thread.sleep(10);
+        }
+        assertEquals(added, manager.getTasksList().size());
+        assertThrows(ManagerSaveException.class, manager::flush);
+        Files.delete(data().resolve("blocker"));
+        Files.delete(data());
+
+        while (manager.getPersistenceFailure() != null
+                || FileBackedTasksManager.loadFromFile(data()).getTasksList().size() < added) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+        assertEquals(manager.getTasksList(), FileBackedTasksManager.loadFromFile(data()).getTasksList());
+        manager.close();
+    }
+
+    @Test
+    void writeBehind_journalMode() {
+        FileBackedOptions options = OPTIONS.toBuilder().mode(PersistenceMode.JOURNAL).build();
+
+        assertThrows(IllegalArgumentException.class, () -> new FileBackedTasksManager(data(), options));
+    }
+}
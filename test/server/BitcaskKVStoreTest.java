@@ -0,0 +1,218 @@
+package server;
+
+import manager.Durability;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitcaskKVStoreTest {
+    private static final KVServerOptions OPTIONS = KVServerOptions.builder()
+            .maxFileSize(4 << 10)
+            .compactionSize(Long.MAX_VALUE)
+            .build();
+
+    @TempDir
+    Path directory;
+    private BitcaskKVStore store;
+
+    @BeforeEach
+    public void open() throws IOException {
+        store = new BitcaskKVStore(directory, OPTIONS);
+    }
+
+    @AfterEach
+    public void close() throws IOException {
+        store.close();
+    }
+
+    private BitcaskKVStore reopen() throws IOException {
+        store.close();
+        store = new BitcaskKVStore(directory, OPTIONS);
+        return store;
+    }
+
+    private void fill(int keys, int versions) throws IOException {
+        for (int version = 0; version < versions; version++) {
+            for (int i = 0; i < keys; i++) {
+                store.put("key" + i, "value" + i + "-" + version);
+            }
+        }
+    }
+
+    private void assertFilled(int keys, int versions) throws IOException {
+        for (int i = 0; i < keys; i++) {
+            assertEquals("value" + i + "-" + (versions - 1), store.get("key" + i));
+        }
+    }
+
+    private List<Path> files(String extension) throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> path.toString().endsWith(extension)).sorted().toList();
+        }
+    }
+
+    @Test
+    void putAndGet() throws IOException {
+        store.put("key", "value1");
+        store.put("key", "value2");
+        store.put("другой", "значение");
+
+        assertEquals("value2", store.get("key"));
+        assertEquals("значение", store.get("другой"));
+        assertNull(store.get("missing"));
+    }
+
+    @Test
+    void putAll_appendsOneBatch() throws IOException {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < 300; i++) {
+            values.put("key" + i, "value" + i + "-0");
+        }
+        store.put("key0", "stale");
+
+        store.putAll(values);
+
+        assertFilled(300, 1);
+        reopen();
+        assertFilled(300, 1);
+    }
+
+    @Test
+    void reopen_readsHints() throws IOException {
+        fill(200, 3);
+
+        reopen();
+
+        assertTrue(store.fileCount() > 1);
+        assertFilled(200, 3);
+    }
+
+    @Test
+    void reopen_scansFilesWithoutHints() throws IOException {
+        fill(200, 3);
+        store.close();
+        for (Path hint : files(BitcaskKVStore.HINT_EXTENSION)) {
+            Files.delete(hint);
+        }
+
+        store = new BitcaskKVStore(directory, OPTIONS);
+
+        assertFilled(200, 3);
+        assertFalse(files(BitcaskKVStore.HINT_EXTENSION).isEmpty());
+    }
+
+    @Test
+    void reopen_ignoresTornTail() throws IOException {
+        fill(10, 2);
+        store.close();
+        List<Path> data = files(BitcaskKVStore.DATA_EXTENSION);
+        Path last = data.get(data.size() - 1);
+        Files.delete(last.resolveSibling(last.getFileName().toString()
+                .replace(BitcaskKVStore.DATA_EXTENSION, BitcaskKVStore.HINT_EXTENSION)));
+        Files.write(last, new byte[]{0, 0, 0, 7, 0, 0, 0, 3, 0, 0, 0, 100, 1, 2}, StandardOpenOption.APPEND);
+
+        store = new BitcaskKVStore(directory, OPTIONS);
+
+        assertFilled(10, 2);
+        store.put("key0", "after");
+        assertEquals("after", reopen().get("key0"));
+    }
+
+    @Test
+    void removeAll_survivesReopenAndCompaction() throws IOException {
+        fill(100, 2);
+
+        store.removeAll(List.of("key1", "key2", "missing"));
+
+        assertNull(store.get("key1"));
+        assertNull(reopen().get("key2"));
+        store.close();
+        for (Path hint : files(BitcaskKVStore.HINT_EXTENSION)) {
+            Files.delete(hint);
+        }
+        store = new BitcaskKVStore(directory, OPTIONS);
+        assertNull(store.get("key1"));
+        store.compact().join();
+        assertNull(reopen().get("key2"));
+        assertEquals("value3-1", store.get("key3"));
+        store.put("key1", "again");
+        assertEquals("again", reopen().get("key1"));
+    }
+
+    @Test
+    void compact_dropsStaleVersions() throws IOException {
+        fill(100, 20);
+        long filled = store.size();
+
+        store.compact().join();
+
+        assertFilled(100, 20);
+        assertTrue(store.size() * 10 < filled);
+        assertEquals(2, store.fileCount());
+        reopen();
+        assertFilled(100, 20);
+    }
+
+    @Test
+    void compact_concurrentReadsAndWrites() throws IOException, InterruptedException {
+        fill(100, 20);
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<Void> compaction = store.compact();
+        Thread reader = new Thread(() -> {
+            try {
+                while (!compaction.isDone()) {
+                    assertFilled(50, 20);
+                }
+            } catch (Throwable throwable) {
+                failures.add(throwable);
+            }
+        });
+        reader.start();
+        for (int i = 50; i < 100; i++) {
+            store.put("key" + i, "value" + i + "-20");
+        }
+        compaction.join();
+
+        reader.join();
+        assertEquals(List.of(), failures);
+        assertFilled(50, 20);
+        for (int i = 50; i < 100; i++) {
+            assertEquals("value" + i + "-20", store.get("key" + i));
+        }
+        reopen();
+        assertEquals("value99-20", store.get("key99"));
+    }
+
+    @Test
+    void put_compactsInBackground() throws IOException {
+        store.close();
+        store = new BitcaskKVStore(directory, OPTIONS.toBuilder().compactionSize(16 << 10).build());
+
+        fill(10, 2_000);
+        reopen();
+
+        assertTrue(store.size() + (16 << 10) < 20_000L * (BitcaskKVStore.HEADER + "key0".length() + "value0-0".length()));
+        assertFilled(10, 2_000);
+    }
+
+    @Test
+    void durability_requiresWriteOrFsync() {
+        assertThrows(IllegalArgumentException.class, () -> new BitcaskKVStore(directory.resolve("group"),
+                OPTIONS.toBuilder().durability(Durability.GROUP).build()));
+    }
+}
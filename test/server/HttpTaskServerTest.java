@@ -22,6 +22,7 @@ import java.util.List;
 import server.controller.Controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static server.controller.adapter.SubtaskTypeAdapter.EMPTY_EPIC;
 
 public class HttpTaskServerTest {
@@ -144,4 +145,49 @@ public class HttpTaskServerTest {
                 ).body(), listOfSubtask)
         );
     }
+
+    @Test
+    public void testPrioritizedWindow() throws IOException, InterruptedException {
+        LocalDateTime time = LocalDateTime.of(2000, 1, 1, 0, 0, 0);
+        Duration duration = Duration.ofMinutes(30);
+        List<Task> tasks = List.of(
+                new Task("name1", "desc1", time, duration),
+                new Task("name2", "desc2", time.plusHours(1), duration),
+                new Task("name3", "desc3", time.plusHours(2), duration)
+        );
+        for (int i = 1; i <= tasks.size(); i++) {
+            tasks.get(i - 1).setId((long) i);
+        }
+        URI uriTask = URI.create("http://localhost:8080/tasks/task/");
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        Gson gson = Controller.getGson();
+        Type listOfTask = new TypeToken<ArrayList<Task>>() {}.getType();
+        for (Task task : tasks) {
+            client.send(HttpRequest.newBuilder()
+                    .uri(uriTask)
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(task)))
+                    .header("Content-Type", "application/json")
+                    .build(), HttpResponse.BodyHandlers.ofString());
+        }
+
+        URI uriWindow = URI.create("http://localhost:8080/tasks/prioritized/?from="
+                + time.plusMinutes(45) + "&to=" + time.plusHours(3));
+        assertEquals(
+                tasks.subList(1, 3),
+                gson.fromJson(client.send(
+                        HttpRequest.newBuilder().uri(uriWindow).GET().build(),
+                        HttpResponse.BodyHandlers.ofString()
+                ).body(), listOfTask)
+        );
+    }
+
+    @Test
+    public void testTaskWithNullId() {
+        Task task = Controller.getGson().fromJson(
+                "{\"id\":null,\"name\":\"name1\",\"description\":\"desc1\",\"status\":null,"
+                        + "\"startTime\":\"2000-01-01T00:00\",\"duration\":\"PT30M\"}", Task.class);
+        assertNull(task.getId());
+        assertEquals("name1", task.getName());
+        assertEquals(LocalDateTime.of(2000, 1, 1, 0, 0), task.getStartTime());
+    }
 }
@@ -0,0 +1,241 @@
+package server;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KVTaskClientTest {
+    private KVServer kvServer;
+    private KVTaskClient client;
+
+    @BeforeAll
+    public static void enableNoDelay() {
+        System.setProperty(KVServer.NODELAY_PROPERTY, "true");
+    }
+
+    @BeforeEach
+    public void startServer() throws IOException, InterruptedException {
+        kvServer = new KVServer();
+        kvServer.start();
+        client = new KVTaskClient(URI.create("http://localhost:" + KVServer.PORT));
+    }
+
+    @AfterEach
+    public void stopServer() {
+        kvServer.stop();
+    }
+
+    @Test
+    void putAndLoad() throws IOException, InterruptedException {
+        client.put("key", "value1");
+        client.put("key", "value2");
+
+        assertEquals("value2", client.load("key"));
+        client.put("ключ", "значение");
+        assertEquals("значение", client.load("ключ"));
+        assertNull(client.load("missing"));
+        assertNull(client.loadAsync("missing").join());
+    }
+
+    @Test
+    void put_failsOnErrorStatus() throws IOException, InterruptedException {
+        assertThrows(IOException.class, () -> client.put("key", ""));
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> client.putAsync("key", "").join());
+        assertInstanceOf(IOException.class, exception.getCause());
+    }
+
+    @Test
+    void putAsyncAndLoadAsync() {
+        List<CompletableFuture<Void>> puts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            puts.add(client.putAsync("key" + i, "value" + i));
+        }
+        CompletableFuture.allOf(puts.toArray(CompletableFuture[]::new)).join();
+
+        List<CompletableFuture<String>> loads = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            loads.add(client.loadAsync("key" + i));
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals("value" + i, loads.get(i).join());
+        }
+    }
+
+    @Test
+    void putAllAndLoadAll() throws IOException, InterruptedException {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            values.put("key" + i, "value" + i);
+        }
+        values.put("ключ", "значение");
+
+        client.putAll(values);
+
+        List<String> keys = new ArrayList<>(values.keySet());
+        keys.add("missing");
+        assertEquals(values, client.loadAll(keys));
+        assertEquals("value7", client.load("key7"));
+        assertEquals(Map.of(), client.loadAll(List.of()));
+    }
+
+    @Test
+    void deleteAll() throws IOException, InterruptedException {
+        client.putAll(Map.of("key1", "value1", "key2", "value2"));
+
+        client.deleteAll(List.of("key1", "missing"));
+
+        assertEquals(Map.of("key2", "value2"), client.loadAll(List.of("key1", "key2")));
+        client.deleteAll(List.of());
+    }
+
+    @Test
+    void putAll_splitsLargeBatches() throws IOException, InterruptedException {
+        KVTaskClient batching = new KVTaskClient(URI.create("http://localhost:" + KVServer.PORT),
+                KVClientOptions.builder().maxBatchSize(1024).maxBatchKeys(7).build());
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            values.put("key" + i, "x".repeat(i));
+        }
+        values.put("empty", "");
+
+        IOException exception = assertThrows(IOException.class, () -> batching.putAll(values));
+        assertTrue(exception.getMessage().contains("400"));
+        values.remove("empty");
+        values.remove("key0");
+        batching.putAll(values);
+
+        assertEquals(values, batching.loadAll(values.keySet()));
+    }
+
+    @Test
+    void putAll_sizesBatchesInUtf8Bytes() throws IOException, InterruptedException {
+        List<Integer> bodies = Collections.synchronizedList(new ArrayList<>());
+        HttpServer recording = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        recording.createContext("/register", h -> {
+            h.sendResponseHeaders(200, 0);
+            h.close();
+        });
+        recording.createContext("/batch/save", h -> {
+            bodies.add(h.getRequestBody().readAllBytes().length);
+            h.sendResponseHeaders(200, -1);
+            h.close();
+        });
+        recording.start();
+        try {
+            KVTaskClient batching = new KVTaskClient(URI.create("http://localhost:" + recording.getAddress().getPort()),
+                    KVClientOptions.builder().maxBatchSize(1024).build());
+            Map<String, String> values = new LinkedHashMap<>();
+            for (int i = 0; i < 20; i++) {
+                values.put("ключ" + i, "я".repeat(100));
+            }
+
+            batching.putAll(values);
+
+            assertTrue(bodies.size() > 1);
+            bodies.forEach(body -> assertTrue(body <= 1024, body + " bytes"));
+            int encoded = values.entrySet().stream().mapToInt(entry -> 2 * Integer.BYTES
+                    + entry.getKey().getBytes(StandardCharsets.UTF_8).length
+                    + entry.getValue().getBytes(StandardCharsets.UTF_8).length).sum();
+            assertEquals(encoded, bodies.stream().mapToInt(Integer::intValue).sum());
+        } finally {
+            recording.stop(0);
+        }
+    }
+
+    @Test
+    void put_concurrentClients() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                try {
+                    KVTaskClient own = new KVTaskClient(URI.create("http://localhost:" + KVServer.PORT));
+                    for (int i = 0; i < 200; i++) {
+                        own.put("key" + thread + "-" + i, "value" + i);
+                    }
+                } catch (Throwable throwable) {
+                    failures.add(throwable);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(List.of(), failures);
+        for (int t = 0; t < 8; t++) {
+            for (int i = 0; i < 200; i += 50) {
+                assertEquals("value" + i, client.loadAsync("key" + t + "-" + i).join());
+            }
+        }
+    }
+
+    @Test
+    void durableServer_keepsValuesAcrossRestarts(@TempDir Path directory) throws IOException, InterruptedException {
+        kvServer.stop();
+        KVServerOptions options = KVServerOptions.builder().directory(directory).build();
+        kvServer = new KVServer(options);
+        kvServer.start();
+        client = new KVTaskClient(URI.create("http://localhost:" + KVServer.PORT));
+        client.put("key", "value1");
+        client.put("key", "value2");
+        kvServer.stop();
+
+        kvServer = new KVServer(options);
+        kvServer.start();
+        client = new KVTaskClient(URI.create("http://localhost:" + KVServer.PORT));
+
+        assertEquals("value2", client.load("key"));
+    }
+
+    @Test
+    void loadAsync_timesOut() throws IOException, InterruptedException {
+        HttpServer stalled = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stalled.createContext("/register", h -> {
+            h.sendResponseHeaders(200, 0);
+            h.close();
+        });
+        stalled.createContext("/load", h -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException ignored) {
+            }
+            h.close();
+        });
+        stalled.start();
+        try {
+            KVTaskClient impatient = new KVTaskClient(URI.create("http://localhost:" + stalled.getAddress().getPort()),
+                    KVClientOptions.builder().requestTimeout(Duration.ofMillis(100)).build());
+
+            CompletionException exception = assertThrows(CompletionException.class,
+                    () -> impatient.loadAsync("key").join());
+            assertInstanceOf(HttpTimeoutException.class, exception.getCause());
+            assertThrows(HttpTimeoutException.class, () -> impatient.load("key"));
+        } finally {
+            stalled.stop(0);
+        }
+    }
+}
@@ -99,4 +99,60 @@ class EpicTest {
 
         assertEquals(Status.IN_PROGRESS, epic.getStatus());
     }
+
+    @Test
+    void subtasksDoneAfterRemoval() {
+        Epic epic = taskManager.addNewEpic(newEpic("name1", "desc1"));
+        Subtask first = taskManager.addNewSubtask(
+                new Subtask("name1", "desc1", epic, time, Duration.ofMinutes(10)));
+        Subtask second = taskManager.addNewSubtask(
+                new Subtask("name2", "desc2", epic, time.plusHours(1), Duration.ofMinutes(10)));
+
+        first.setStatus(Status.DONE);
+        taskManager.updateSubtask(first);
+        assertEquals(Status.IN_PROGRESS, epic.getStatus());
+
+        taskManager.removeSubtaskById(second.getId());
+        assertEquals(Status.DONE, epic.getStatus());
+
+        taskManager.removeSubtaskById(first.getId());
+        assertEquals(Status.NEW, epic.getStatus());
+    }
+
+    @Test
+    void timeAggregates() {
+        Epic epic = taskManager.addNewEpic(newEpic("name1", "desc1"));
+        Subtask first = taskManager.addNewSubtask(
+                new Subtask("name1", "desc1", epic, time.plusHours(2), Duration.ofMinutes(30)));
+        Subtask second = taskManager.addNewSubtask(
+                new Subtask("name2", "desc2", epic, time, Duration.ofMinutes(10)));
+
+        assertEquals(time, epic.getStartTime());
+        assertEquals(time.plusHours(2).plusMinutes(30), epic.getEndTime());
+        assertEquals(Duration.ofMinutes(40), epic.getDuration());
+
+        second.setStartTime(time.plusHours(5));
+        taskManager.updateSubtask(second);
+
+        assertEquals(time.plusHours(2), epic.getStartTime());
+        assertEquals(time.plusHours(5).plusMinutes(10), epic.getEndTime());
+
+        taskManager.removeSubtaskById(second.getId());
+
+        assertEquals(first.getStartTime(), epic.getStartTime());
+        assertEquals(first.getEndTime(), epic.getEndTime());
+        assertEquals(first.getDuration(), epic.getDuration());
+    }
+
+    @Test
+    void timeAggregates_empty() {
+        Epic epic = taskManager.addNewEpic(newEpic("name1", "desc1"));
+        Subtask subtask = taskManager.addNewSubtask(newSubtask("name1", "desc1", epic));
+
+        taskManager.removeSubtaskById(subtask.getId());
+
+        assertNull(epic.getStartTime());
+        assertNull(epic.getEndTime());
+        assertEquals(Duration.ZERO, epic.getDuration());
+    }
 }